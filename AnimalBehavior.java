@@ -0,0 +1,28 @@
+// The behaviors of the animals in oops.java that ShelterMetrics counts and times
+// Each one reports exactly one AnimalEvent per call, so the event says which behavior ran.
+
+enum AnimalBehavior {
+    MAKE_SOUND("makeSound"), MOVE("move"), PLAY("play"), REST("rest"), EAT("eat"),
+    CLIMB("climb"), FLY("fly"), SLEEP("sleep"), CHECK_ENERGY("checkEnergy");
+
+    final String method;
+
+    AnimalBehavior(String method) {
+        this.method = method;
+    }
+
+    // The behavior that reports the event
+    static AnimalBehavior of(AnimalEvent event) {
+        return switch (event) {
+            case SLEEP -> SLEEP;
+            case CHECK_ENERGY -> CHECK_ENERGY;
+            case DOG_SOUND, CAT_SOUND, BIRD_SOUND -> MAKE_SOUND;
+            case DOG_RUN, CAT_WALK_INDOORS, CAT_PROWL, BIRD_FLY_AROUND, BIRD_HOP -> MOVE;
+            case DOG_FETCH, DOG_TOO_TIRED_TO_PLAY, CAT_PLAY -> PLAY;
+            case DOG_REST, CAT_NAP -> REST;
+            case DOG_EAT -> EAT;
+            case CAT_CLIMB, CAT_TOO_TIRED_TO_CLIMB -> CLIMB;
+            case BIRD_FLY_DISTANCE, BIRD_CANNOT_FLY, BIRD_TOO_TIRED_TO_FLY -> FLY;
+        };
+    }
+}
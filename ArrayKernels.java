@@ -0,0 +1,253 @@
+// Array Kernels in Java
+// The loops from arrays.java and loops.java, packaged as small reusable "kernels" over int[] and
+// double[]: sum, min/max, scale, fill, prefix sum and search.
+//
+// There are two implementations:
+//   ArrayKernels.SCALAR  - plain index loops, exactly like the tutorial files
+//   VectorArrayKernels   - SIMD loops with the jdk.incubator.vector API, which handle
+//                          several elements (lanes) per instruction
+// ArrayKernels.get() picks one when the class is first used: the vector version if the JVM was
+// started with --add-modules jdk.incubator.vector, the scalar one otherwise.
+// -Darraykernels=scalar forces the scalar version.
+//
+// Compile and run (the incubator module is needed to compile VectorArrayKernels):
+//   javac --add-modules jdk.incubator.vector ArrayKernels.java VectorArrayKernels.java
+//   java --add-modules jdk.incubator.vector ArrayKernels
+
+import java.util.Arrays;
+
+public interface ArrayKernels {
+    ArrayKernels SCALAR = new Scalar();
+
+    // "scalar" or "vector (N int lanes)"
+    String name();
+
+    long sum(int[] values);
+
+    // The vector version adds in a different order, so the last bits can differ from the scalar sum
+    double sum(double[] values);
+
+    // min and max need at least one element; for double[] a NaN anywhere gives NaN, like Math.min
+    int min(int[] values);
+
+    int max(int[] values);
+
+    double min(double[] values);
+
+    double max(double[] values);
+
+    // Multiply every element in place
+    void scale(int[] values, int factor);
+
+    void scale(double[] values, double factor);
+
+    void fill(int[] values, int value);
+
+    void fill(double[] values, double value);
+
+    // values[i] becomes values[0] + ... + values[i] (int overflow wraps, as with +=)
+    void prefixSum(int[] values);
+
+    void prefixSum(double[] values);
+
+    // Index of the first element equal to key (==, so NaN is never found), or -1
+    int indexOf(int[] values, int key);
+
+    int indexOf(double[] values, double key);
+
+    // The implementation chosen at startup
+    static ArrayKernels get() {
+        return Selected.KERNELS;
+    }
+
+    // True when the JVM has the Vector API module and -Darraykernels=scalar was not given
+    static boolean vectorApiAvailable() {
+        return !"scalar".equals(System.getProperty("arraykernels"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    // ========================== SELECTION ==========================
+    final class Selected {
+        static final ArrayKernels KERNELS = select();
+
+        private Selected() {
+        }
+
+        private static ArrayKernels select() {
+            if (!vectorApiAvailable()) {
+                return SCALAR;
+            }
+            try {
+                // Loaded by name, so this class also runs on a JVM without the incubator module
+                return (ArrayKernels) Class.forName("VectorArrayKernels").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return SCALAR;
+            }
+        }
+    }
+
+    // ========================== SCALAR ==========================
+    final class Scalar implements ArrayKernels {
+        private Scalar() {
+        }
+
+        @Override
+        public String name() {
+            return "scalar";
+        }
+
+        @Override
+        public long sum(int[] values) {
+            long sum = 0;
+            for (int i = 0; i < values.length; i++) {
+                sum += values[i];
+            }
+            return sum;
+        }
+
+        @Override
+        public double sum(double[] values) {
+            double sum = 0;
+            for (int i = 0; i < values.length; i++) {
+                sum += values[i];
+            }
+            return sum;
+        }
+
+        @Override
+        public int min(int[] values) {
+            int min = values[requireElements(values.length)];
+            for (int i = 1; i < values.length; i++) {
+                min = Math.min(min, values[i]);
+            }
+            return min;
+        }
+
+        @Override
+        public int max(int[] values) {
+            int max = values[requireElements(values.length)];
+            for (int i = 1; i < values.length; i++) {
+                max = Math.max(max, values[i]);
+            }
+            return max;
+        }
+
+        @Override
+        public double min(double[] values) {
+            double min = values[requireElements(values.length)];
+            for (int i = 1; i < values.length; i++) {
+                min = Math.min(min, values[i]);
+            }
+            return min;
+        }
+
+        @Override
+        public double max(double[] values) {
+            double max = values[requireElements(values.length)];
+            for (int i = 1; i < values.length; i++) {
+                max = Math.max(max, values[i]);
+            }
+            return max;
+        }
+
+        @Override
+        public void scale(int[] values, int factor) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] *= factor;
+            }
+        }
+
+        @Override
+        public void scale(double[] values, double factor) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] *= factor;
+            }
+        }
+
+        @Override
+        public void fill(int[] values, int value) {
+            Arrays.fill(values, value);
+        }
+
+        @Override
+        public void fill(double[] values, double value) {
+            Arrays.fill(values, value);
+        }
+
+        @Override
+        public void prefixSum(int[] values) {
+            for (int i = 1; i < values.length; i++) {
+                values[i] += values[i - 1];
+            }
+        }
+
+        @Override
+        public void prefixSum(double[] values) {
+            for (int i = 1; i < values.length; i++) {
+                values[i] += values[i - 1];
+            }
+        }
+
+        @Override
+        public int indexOf(int[] values, int key) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int indexOf(double[] values, double key) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // Index of the first element, after checking there is one
+    private static int requireElements(int length) {
+        if (length == 0) {
+            throw new IllegalArgumentException("Array must not be empty");
+        }
+        return 0;
+    }
+
+    // Demo: the steps of arrays.java, done with the kernels
+    static void main(String[] args) {
+        ArrayKernels kernels = ArrayKernels.get();
+        System.out.println("Using: " + kernels.name());
+
+        // Declare and initialize an array
+        int[] numbers = {10, 20, 30, 40, 50};
+        System.out.println("Numbers: " + Arrays.toString(numbers));
+
+        // Sum, smallest and largest element
+        System.out.println("Sum: " + kernels.sum(numbers));
+        System.out.println("Min: " + kernels.min(numbers) + ", max: " + kernels.max(numbers));
+
+        // Search for an element
+        System.out.println("Index of 40: " + kernels.indexOf(numbers, 40));
+
+        // Modify every element at once
+        kernels.scale(numbers, 2);
+        System.out.println("Scaled by 2: " + Arrays.toString(numbers));
+
+        // Running totals
+        kernels.prefixSum(numbers);
+        System.out.println("Prefix sums: " + Arrays.toString(numbers));
+
+        // Fill the whole array
+        kernels.fill(numbers, 7);
+        System.out.println("Filled with 7: " + Arrays.toString(numbers));
+
+        // The same on a double[]
+        double[] prices = {1.5, 2.25, 3.0, 4.75};
+        kernels.scale(prices, 2.0);
+        System.out.println("Prices doubled: " + Arrays.toString(prices) + ", total " + kernels.sum(prices));
+    }
+}
@@ -0,0 +1,335 @@
+// Streaming split for files of any size
+// strings.java splits one String in memory with message.split(", "). This class does the same
+// kind of splitting on a whole file while it is being read: bytes come from a channel into one
+// reused direct ByteBuffer, and every token is handed to a callback as a range of that buffer.
+// No lines, Strings or arrays are created for the tokens.
+//
+// A new line always ends a token too, so "a, b\nc, d" gives a, b (end of line), c, d (end of line).
+// Tokens that are cut in two by the end of the buffer are moved to the front of the buffer and
+// finished after the next read; the buffer grows if a single token does not fit.
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+public final class ChannelTokenizer {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private static final long ONES = 0x0101_0101_0101_0101L;
+    private static final long HIGH_BITS = 0x8080_8080_8080_8080L;
+
+    // Receives each token as buffer[from, to). The bytes are only valid during the call.
+    @FunctionalInterface
+    public interface TokenHandler {
+        void token(ByteBuffer buffer, int from, int to, boolean endOfLine);
+    }
+
+    private final byte[] delimiter;
+    private ByteBuffer buffer;
+
+    public ChannelTokenizer(String delimiter) {
+        this(delimiter, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ChannelTokenizer(String delimiter, int bufferSize) {
+        this.delimiter = delimiter.getBytes(StandardCharsets.UTF_8);
+        if (this.delimiter.length == 0 || delimiter.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Delimiter must be non-empty and must not contain a new line");
+        }
+        this.buffer = allocate(Math.max(bufferSize, this.delimiter.length + 1));
+    }
+
+    // Read the channel to the end; returns the number of tokens
+    public long tokenize(ReadableByteChannel channel, TokenHandler handler) throws IOException {
+        byte first = delimiter[0];
+        int delimiterLength = delimiter.length;
+        long newLines = ONES * '\n';
+        long firsts = ONES * (first & 0xFF);
+        long tokens = 0;
+        int scanFrom = 0; // Bytes before this position have already been looked at
+        boolean endOfInput = false;
+        boolean lineOpen = false; // A delimiter was seen since the last new line
+        buffer.clear();
+
+        while (!endOfInput) {
+            if (!buffer.hasRemaining()) {
+                grow();
+            }
+            endOfInput = channel.read(buffer) < 0;
+            int limit = buffer.position();
+            int tokenStart = 0;
+            int i = scanFrom;
+            while (i < limit) {
+                if (i + Long.BYTES <= limit) {
+                    // Look at 8 bytes at once and jump straight to the first new line or delimiter start
+                    long word = buffer.getLong(i);
+                    long found = zeroBytes(word ^ newLines) | zeroBytes(word ^ firsts);
+                    if (found == 0) {
+                        i += Long.BYTES;
+                        continue;
+                    }
+                    i += Long.numberOfTrailingZeros(found) >>> 3;
+                }
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    int end = i > tokenStart && buffer.get(i - 1) == '\r' ? i - 1 : i;
+                    handler.token(buffer, tokenStart, end, true);
+                    tokens++;
+                    tokenStart = ++i;
+                    lineOpen = false;
+                } else if (b == first) {
+                    if (i + delimiterLength > limit) {
+                        if (!endOfInput) {
+                            break; // Could be a delimiter cut in two - look again after the next read
+                        }
+                        i++;
+                    } else if (matchesDelimiter(i)) {
+                        handler.token(buffer, tokenStart, i, false);
+                        tokens++;
+                        i += delimiterLength;
+                        tokenStart = i;
+                        lineOpen = true;
+                    } else {
+                        i++;
+                    }
+                } else {
+                    i++;
+                }
+            }
+
+            if (endOfInput) {
+                if (tokenStart < limit || lineOpen) {
+                    handler.token(buffer, tokenStart, limit, true); // Last line without a new line
+                    tokens++;
+                }
+            } else {
+                // Keep the unfinished token, moved to the front of the buffer
+                buffer.limit(limit).position(tokenStart);
+                buffer.compact();
+                scanFrom = i - tokenStart;
+            }
+        }
+        return tokens;
+    }
+
+    // High bit set in each byte that is 0. Bits above the lowest match can be wrong,
+    // but the lowest one is always right, and that is the only one used.
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGH_BITS;
+    }
+
+    private boolean matchesDelimiter(int at) {
+        for (int k = 1; k < delimiter.length; k++) {
+            if (buffer.get(at + k) != delimiter[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Only needed when one token is longer than the whole buffer
+    private void grow() {
+        ByteBuffer bigger = allocate(buffer.capacity() * 2);
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+
+    // Little-endian, so the first byte in the file is the lowest byte of getLong
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // ========================== PARALLEL ==========================
+    // Split the file into one segment per thread, moving each cut to just after a new line,
+    // and tokenize the segments at the same time. Each segment gets its own handler.
+    public static long tokenizeParallel(Path file, String delimiter, int threads,
+                                        Supplier<? extends TokenHandler> handlers) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] cuts = new long[threads + 1];
+            cuts[threads] = size;
+            for (int t = 1; t < threads; t++) {
+                cuts[t] = Math.max(cuts[t - 1], nextLineStart(channel, size * t / threads));
+            }
+
+            List<Future<Long>> results = new ArrayList<>();
+            try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+                for (int t = 0; t < threads; t++) {
+                    long from = cuts[t];
+                    long to = cuts[t + 1];
+                    TokenHandler handler = handlers.get();
+                    results.add(pool.submit(() ->
+                            new ChannelTokenizer(delimiter).tokenize(new SegmentChannel(channel, from, to), handler)));
+                }
+                long tokens = 0;
+                for (Future<Long> result : results) {
+                    tokens += result.get();
+                }
+                return tokens;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while tokenizing " + file, e);
+            } catch (ExecutionException e) {
+                throw new IOException("Tokenizing " + file + " failed", e.getCause());
+            }
+        }
+    }
+
+    // Position just after the first new line at or after position (or the end of the file)
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long at = position - 1;
+        while (at < channel.size()) {
+            probe.clear();
+            int read = channel.read(probe, at);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return at + i + 1;
+                }
+            }
+            at += read;
+        }
+        return channel.size();
+    }
+
+    // Reads the bytes [position, end) of a shared FileChannel without moving its position
+    private static final class SegmentChannel implements ReadableByteChannel {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        SegmentChannel(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read(ByteBuffer target) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int oldLimit = target.limit();
+            target.limit((int) Math.min(oldLimit, target.position() + (end - position)));
+            try {
+                int read = channel.read(target, position);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            } finally {
+                target.limit(oldLimit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // The shared channel is closed by tokenizeParallel
+        }
+    }
+
+    // Counts tokens and their bytes (used by the demo)
+    private static final class CountingHandler implements TokenHandler {
+        long bytes;
+
+        @Override
+        public void token(ByteBuffer buffer, int from, int to, boolean endOfLine) {
+            bytes += to - from;
+        }
+    }
+
+    // Demo: split lines like strings.java does, then compare speed with readLine().split(...)
+    public static void main(String[] args) throws IOException {
+        long megabytes = args.length > 0 ? Long.parseLong(args[0]) : 256;
+        Path file = Files.createTempFile("tokenizer", ".txt");
+        try {
+            Files.writeString(file, "Hello, Alice!\nHello, Bob!\n");
+            ChannelTokenizer tokenizer = new ChannelTokenizer(", ");
+            try (FileChannel channel = FileChannel.open(file)) {
+                tokenizer.tokenize(channel, (buffer, from, to, endOfLine) -> {
+                    byte[] bytes = new byte[to - from];
+                    buffer.get(from, bytes);
+                    System.out.println("Token: " + new String(bytes, StandardCharsets.UTF_8) + (endOfLine ? " (end of line)" : ""));
+                });
+            }
+
+            System.out.println("\nWriting a " + megabytes + " MB test file...");
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                long written = 0;
+                for (long line = 0; written < megabytes * 1024 * 1024; line++) {
+                    String text = "2024-05-01 12:00:00, INFO, shelter, animal " + line + " says hello, energy=" + (line % 100);
+                    writer.write(text);
+                    writer.newLine();
+                    written += text.length() + 1;
+                }
+            }
+            long size = Files.size(file);
+
+            // Warm-up pass over the file for both methods
+            splitWithReader(file);
+            try (FileChannel channel = FileChannel.open(file)) {
+                new ChannelTokenizer(", ").tokenize(channel, new CountingHandler());
+            }
+
+            long start = System.nanoTime();
+            long readerTokens = splitWithReader(file);
+            double readerSeconds = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            long channelTokens;
+            try (FileChannel channel = FileChannel.open(file)) {
+                channelTokens = new ChannelTokenizer(", ").tokenize(channel, new CountingHandler());
+            }
+            double channelSeconds = (System.nanoTime() - start) / 1e9;
+
+            int threads = Runtime.getRuntime().availableProcessors();
+            start = System.nanoTime();
+            long parallelTokens = tokenizeParallel(file, ", ", threads, CountingHandler::new);
+            double parallelSeconds = (System.nanoTime() - start) / 1e9;
+
+            double gigabytes = size / 1e9;
+            System.out.printf("readLine().split(\", \"):  %,d tokens, %.2f GB/s%n", readerTokens, gigabytes / readerSeconds);
+            System.out.printf("ChannelTokenizer:         %,d tokens, %.2f GB/s%n", channelTokens, gigabytes / channelSeconds);
+            System.out.printf("ChannelTokenizer x %d:     %,d tokens, %.2f GB/s%n", threads, parallelTokens, gigabytes / parallelSeconds);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static long splitWithReader(Path file) throws IOException {
+        long tokens = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                tokens += line.split(", ").length;
+            }
+        }
+        return tokens;
+    }
+}
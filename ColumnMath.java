@@ -0,0 +1,576 @@
+// Arithmetic on whole columns of numbers
+// operators.java applies + - * / % ++ -- and the comparisons to two ints, one at a time, and
+// an overflow silently wraps around (Integer.MAX_VALUE + 1 == Integer.MIN_VALUE) while a
+// division by zero throws. ColumnMath applies the same operators to whole int[] / long[]
+// columns, with a choice of what happens when a result does not fit:
+//   WRAP      - like Java: the result wraps around
+//   CHECKED   - like Math.addExact and friends, but instead of throwing, the position is
+//               marked in a "problems" bitmap (and the wrapped result is written)
+//   SATURATE  - the result sticks at MIN_VALUE / MAX_VALUE, and the position is marked
+// Division or remainder by zero never throws: the result is 0 and the position is marked,
+// whatever the mode.
+//
+// A bitmap is a long[] with one bit per element: element i is bit (i % 64) of word i / 64.
+// Comparisons (== != > < >= <=) also produce bitmaps, and and/or/not combine them the way
+// && || ! combine booleans. Columns of PARALLEL_THRESHOLD elements or more are split into
+// chunks that are processed on the common ForkJoinPool; chunks start at multiples of 64, so
+// no two threads ever write the same bitmap word.
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public final class ColumnMath {
+    public enum Overflow { WRAP, CHECKED, SATURATE }
+
+    public enum Operator { ADD, SUBTRACT, MULTIPLY, DIVIDE, REMAINDER }
+
+    public enum Comparison { EQUAL, NOT_EQUAL, GREATER, LESS, GREATER_OR_EQUAL, LESS_OR_EQUAL }
+
+    static final int PARALLEL_THRESHOLD = 1 << 18;
+    static final int CHUNK_SIZE = 1 << 15; // A multiple of 64
+
+    private ColumnMath() {
+    }
+
+    // ========================== BITMAPS ==========================
+    public static long[] newBitmap(int size) {
+        return new long[words(size)];
+    }
+
+    public static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & 1L << index) != 0;
+    }
+
+    public static long cardinality(long[] bits) {
+        long count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // out = x && y, element by element
+    public static void and(long[] x, long[] y, long[] out) {
+        for (int w = 0; w < out.length; w++) {
+            out[w] = x[w] & y[w];
+        }
+    }
+
+    // out = x || y
+    public static void or(long[] x, long[] y, long[] out) {
+        for (int w = 0; w < out.length; w++) {
+            out[w] = x[w] | y[w];
+        }
+    }
+
+    // out = !x for the first size elements (bits past the end stay 0)
+    public static void not(long[] x, int size, long[] out) {
+        int words = words(size);
+        for (int w = 0; w < words; w++) {
+            out[w] = ~x[w];
+        }
+        if ((size & 63) != 0) {
+            out[words - 1] &= -1L >>> (64 - (size & 63));
+        }
+    }
+
+    private static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    // ========================== ARITHMETIC ==========================
+    // out[i] = a[i] op b[i]; returns how many positions were marked in problems
+    public static long apply(Operator op, Overflow mode, int[] a, int[] b, int[] out, long[] problems) {
+        checkSizes(a.length, b.length, out.length, problems.length);
+        return forEachChunk(a.length, (from, to) -> applyChunk(op, mode, a, b, out, problems, from, to));
+    }
+
+    public static long apply(Operator op, Overflow mode, long[] a, long[] b, long[] out, long[] problems) {
+        checkSizes(a.length, b.length, out.length, problems.length);
+        return forEachChunk(a.length, (from, to) -> applyChunk(op, mode, a, b, out, problems, from, to));
+    }
+
+    // ++ on every element (in place); only Integer.MAX_VALUE can overflow
+    public static long increment(int[] values, Overflow mode, long[] problems) {
+        return step(values, 1, mode, problems);
+    }
+
+    // -- on every element (in place); only Integer.MIN_VALUE can overflow
+    public static long decrement(int[] values, Overflow mode, long[] problems) {
+        return step(values, -1, mode, problems);
+    }
+
+    private static long step(int[] values, int delta, Overflow mode, long[] problems) {
+        checkSizes(values.length, values.length, values.length, problems.length);
+        boolean saturate = mode == Overflow.SATURATE;
+        long keep = mode == Overflow.WRAP ? 0 : -1L;
+        return forEachChunk(values.length, (from, to) -> {
+            long marked = 0;
+            for (int base = from; base < to; base += 64) {
+                int end = Math.min(base + 64, to);
+                long word = 0;
+                for (int i = base; i < end; i++) {
+                    word |= store(values, i, (long) values[i] + delta, saturate) << (i - base);
+                }
+                word &= keep;
+                problems[base >>> 6] = word;
+                marked += Long.bitCount(word);
+            }
+            return marked;
+        });
+    }
+
+    // WRAP add/subtract/multiply are plain loops. CHECKED and SATURATE find overflows with
+    // arithmetic instead of if/else: add and subtract from the signs (as in the long version
+    // below), multiply from the exact product in a long. Add and subtract first run a plain
+    // loop over 64 elements that only checks whether anything overflows, without writing; if
+    // nothing does, a second plain loop writes the results, otherwise one that also builds the
+    // bitmap word and clamps. Either way each out[i] is written after a[i] and b[i] are read,
+    // so out may be the same array as a or b. Division is slow anyway and shares one loop for
+    // every mode.
+    private static long applyChunk(Operator op, Overflow mode, int[] a, int[] b, int[] out, long[] problems,
+                                   int from, int to) {
+        if (op == Operator.DIVIDE || op == Operator.REMAINDER) {
+            return divideChunk(op, mode, a, b, out, problems, from, to);
+        }
+        if (mode == Overflow.WRAP) {
+            wrapChunk(op, a, b, out, from, to);
+            Arrays.fill(problems, from >>> 6, words(to), 0L);
+            return 0;
+        }
+        boolean saturate = mode == Overflow.SATURATE;
+        // A sum or difference can only overflow in x's direction, so SATURATE clamps towards its sign
+        int clamp = saturate ? -1 : 0;
+        long marked = 0;
+        for (int base = from; base < to; base += 64) {
+            int end = Math.min(base + 64, to);
+            long word = 0;
+            switch (op) {
+                case ADD -> {
+                    int any = 0;
+                    for (int i = base; i < end; i++) {
+                        int x = a[i];
+                        int y = b[i];
+                        int result = x + y;
+                        any |= (x ^ result) & (y ^ result);
+                    }
+                    if (any >= 0) {
+                        for (int i = base; i < end; i++) {
+                            out[i] = a[i] + b[i];
+                        }
+                    } else {
+                        for (int i = base; i < end; i++) {
+                            int x = a[i];
+                            int y = b[i];
+                            int result = x + y;
+                            int overflow = ((x ^ result) & (y ^ result)) >> 31; // All ones on overflow
+                            word |= (long) (overflow & 1) << (i - base);
+                            out[i] = result ^ ((result ^ (Integer.MAX_VALUE ^ (x >> 31))) & overflow & clamp);
+                        }
+                    }
+                }
+                case SUBTRACT -> {
+                    int any = 0;
+                    for (int i = base; i < end; i++) {
+                        int x = a[i];
+                        int y = b[i];
+                        int result = x - y;
+                        any |= (x ^ y) & (x ^ result);
+                    }
+                    if (any >= 0) {
+                        for (int i = base; i < end; i++) {
+                            out[i] = a[i] - b[i];
+                        }
+                    } else {
+                        for (int i = base; i < end; i++) {
+                            int x = a[i];
+                            int y = b[i];
+                            int result = x - y;
+                            int overflow = ((x ^ y) & (x ^ result)) >> 31;
+                            word |= (long) (overflow & 1) << (i - base);
+                            out[i] = result ^ ((result ^ (Integer.MAX_VALUE ^ (x >> 31))) & overflow & clamp);
+                        }
+                    }
+                }
+                default -> {
+                    for (int i = base; i < end; i++) {
+                        word |= store(out, i, (long) a[i] * b[i], saturate) << (i - base);
+                    }
+                }
+            }
+            problems[base >>> 6] = word;
+            marked += Long.bitCount(word);
+        }
+        return marked;
+    }
+
+    // exact is the result computed in a long, so "does it fit in an int" is one comparison.
+    // Stores the wrapped or clamped value and returns 1 on overflow, 0 otherwise.
+    private static long store(int[] out, int i, long exact, boolean saturate) {
+        int wrapped = (int) exact;
+        long difference = exact ^ wrapped;
+        long overflow = (difference | -difference) >>> 63;
+        int limit = Integer.MAX_VALUE ^ (int) (exact >> 63); // MAX_VALUE, or MIN_VALUE if negative
+        int select = saturate ? -(int) overflow : 0;
+        out[i] = wrapped ^ ((wrapped ^ limit) & select);
+        return overflow;
+    }
+
+    private static long divideChunk(Operator op, Overflow mode, int[] a, int[] b, int[] out, long[] problems,
+                                    int from, int to) {
+        long marked = 0;
+        for (int base = from; base < to; base += 64) {
+            int end = Math.min(base + 64, to);
+            long word = 0;
+            for (int i = base; i < end; i++) {
+                int x = a[i];
+                int y = b[i];
+                boolean undefined = y == 0;
+                long exact = undefined ? 0 : op == Operator.DIVIDE ? (long) x / y : (long) x % y;
+                long overflow = mode == Overflow.WRAP ? 0 : store(out, i, exact, mode == Overflow.SATURATE);
+                if (mode == Overflow.WRAP) {
+                    out[i] = (int) exact;
+                }
+                word |= (undefined ? 1L : overflow) << (i - base);
+            }
+            problems[base >>> 6] = word;
+            marked += Long.bitCount(word);
+        }
+        return marked;
+    }
+
+    // Plain loops the JIT can vectorize
+    private static void wrapChunk(Operator op, int[] a, int[] b, int[] out, int from, int to) {
+        switch (op) {
+            case ADD -> {
+                for (int i = from; i < to; i++) {
+                    out[i] = a[i] + b[i];
+                }
+            }
+            case SUBTRACT -> {
+                for (int i = from; i < to; i++) {
+                    out[i] = a[i] - b[i];
+                }
+            }
+            case MULTIPLY -> {
+                for (int i = from; i < to; i++) {
+                    out[i] = a[i] * b[i];
+                }
+            }
+            default -> throw new IllegalArgumentException("Not a wrapping loop: " + op);
+        }
+    }
+
+    // long has no wider type, so overflow is read from the signs, as Math.addExact does:
+    //   x + y overflows when the result's sign differs from both x's and y's
+    //   x - y overflows when x and y differ in sign and the result's sign differs from x's
+    //   x * y overflows when the high 64 bits of the 128-bit product are not just the sign
+    private static long applyChunk(Operator op, Overflow mode, long[] a, long[] b, long[] out, long[] problems,
+                                   int from, int to) {
+        if (op == Operator.DIVIDE || op == Operator.REMAINDER) {
+            return divideChunk(op, mode, a, b, out, problems, from, to);
+        }
+        if (mode == Overflow.WRAP) {
+            wrapChunk(op, a, b, out, from, to);
+            Arrays.fill(problems, from >>> 6, words(to), 0L);
+            return 0;
+        }
+        boolean saturate = mode == Overflow.SATURATE;
+        long clamp = saturate ? -1L : 0L;
+        long marked = 0;
+        for (int base = from; base < to; base += 64) {
+            int end = Math.min(base + 64, to);
+            long word = 0;
+            switch (op) {
+                case ADD -> {
+                    long any = 0;
+                    for (int i = base; i < end; i++) {
+                        long x = a[i];
+                        long y = b[i];
+                        long result = x + y;
+                        any |= (x ^ result) & (y ^ result);
+                    }
+                    if (any >= 0) {
+                        for (int i = base; i < end; i++) {
+                            out[i] = a[i] + b[i];
+                        }
+                    } else {
+                        for (int i = base; i < end; i++) {
+                            long x = a[i];
+                            long y = b[i];
+                            long result = x + y;
+                            long overflow = ((x ^ result) & (y ^ result)) >> 63; // All ones on overflow
+                            word |= (overflow & 1) << (i - base);
+                            out[i] = result ^ ((result ^ (Long.MAX_VALUE ^ (x >> 63))) & overflow & clamp);
+                        }
+                    }
+                }
+                case SUBTRACT -> {
+                    long any = 0;
+                    for (int i = base; i < end; i++) {
+                        long x = a[i];
+                        long y = b[i];
+                        long result = x - y;
+                        any |= (x ^ y) & (x ^ result);
+                    }
+                    if (any >= 0) {
+                        for (int i = base; i < end; i++) {
+                            out[i] = a[i] - b[i];
+                        }
+                    } else {
+                        for (int i = base; i < end; i++) {
+                            long x = a[i];
+                            long y = b[i];
+                            long result = x - y;
+                            long overflow = ((x ^ y) & (x ^ result)) >> 63;
+                            word |= (overflow & 1) << (i - base);
+                            out[i] = result ^ ((result ^ (Long.MAX_VALUE ^ (x >> 63))) & overflow & clamp);
+                        }
+                    }
+                }
+                default -> {
+                    for (int i = base; i < end; i++) {
+                        long x = a[i];
+                        long y = b[i];
+                        long result = x * y;
+                        long difference = Math.multiplyHigh(x, y) ^ (result >> 63);
+                        long overflow = (difference | -difference) >>> 63;
+                        word |= store(out, i, result, overflow, x ^ y, saturate) << (i - base);
+                    }
+                }
+            }
+            problems[base >>> 6] = word;
+            marked += Long.bitCount(word);
+        }
+        return marked;
+    }
+
+    // The sign of direction tells which way an overflow went (negative: below MIN_VALUE)
+    private static long store(long[] out, int i, long result, long overflow, long direction, boolean saturate) {
+        long limit = Long.MAX_VALUE ^ (direction >> 63);
+        long select = saturate ? -overflow : 0;
+        out[i] = result ^ ((result ^ limit) & select);
+        return overflow;
+    }
+
+    // Long.MIN_VALUE / -1 is the only quotient that does not fit
+    private static long divideChunk(Operator op, Overflow mode, long[] a, long[] b, long[] out, long[] problems,
+                                    int from, int to) {
+        long marked = 0;
+        for (int base = from; base < to; base += 64) {
+            int end = Math.min(base + 64, to);
+            long word = 0;
+            for (int i = base; i < end; i++) {
+                long x = a[i];
+                long y = b[i];
+                boolean undefined = y == 0;
+                long result = undefined ? 0 : op == Operator.DIVIDE ? x / y : x % y;
+                boolean overflow = op == Operator.DIVIDE && x == Long.MIN_VALUE && y == -1 && mode != Overflow.WRAP;
+                out[i] = overflow && mode == Overflow.SATURATE ? Long.MAX_VALUE : result;
+                word |= (undefined || overflow ? 1L : 0L) << (i - base);
+            }
+            problems[base >>> 6] = word;
+            marked += Long.bitCount(word);
+        }
+        return marked;
+    }
+
+    private static void wrapChunk(Operator op, long[] a, long[] b, long[] out, int from, int to) {
+        switch (op) {
+            case ADD -> {
+                for (int i = from; i < to; i++) {
+                    out[i] = a[i] + b[i];
+                }
+            }
+            case SUBTRACT -> {
+                for (int i = from; i < to; i++) {
+                    out[i] = a[i] - b[i];
+                }
+            }
+            case MULTIPLY -> {
+                for (int i = from; i < to; i++) {
+                    out[i] = a[i] * b[i];
+                }
+            }
+            default -> throw new IllegalArgumentException("Not a wrapping loop: " + op);
+        }
+    }
+
+    // ========================== COMPARISONS ==========================
+    // bits[i] = a[i] cmp b[i]. Every comparison is "less than" or "equal", possibly with the
+    // columns swapped and/or the result inverted: a > b is b < a, a >= b is !(a < b), and so on.
+    public static void compare(Comparison comparison, int[] a, int[] b, long[] bits) {
+        checkSizes(a.length, b.length, a.length, bits.length);
+        boolean swap = comparison == Comparison.GREATER || comparison == Comparison.LESS_OR_EQUAL;
+        int[] left = swap ? b : a;
+        int[] right = swap ? a : b;
+        boolean equality = comparison == Comparison.EQUAL || comparison == Comparison.NOT_EQUAL;
+        long invert = comparison == Comparison.NOT_EQUAL || comparison == Comparison.GREATER_OR_EQUAL
+                || comparison == Comparison.LESS_OR_EQUAL ? -1L : 0L;
+        forEachChunk(a.length, (from, to) -> {
+            for (int base = from; base < to; base += 64) {
+                int end = Math.min(base + 64, to);
+                long word = 0;
+                if (equality) {
+                    for (int i = base; i < end; i++) {
+                        word |= (left[i] == right[i] ? 1L : 0L) << (i - base);
+                    }
+                } else {
+                    for (int i = base; i < end; i++) {
+                        word |= (left[i] < right[i] ? 1L : 0L) << (i - base);
+                    }
+                }
+                bits[base >>> 6] = (word ^ invert) & -1L >>> (64 - (end - base));
+            }
+            return 0;
+        });
+    }
+
+    public static void compare(Comparison comparison, long[] a, long[] b, long[] bits) {
+        checkSizes(a.length, b.length, a.length, bits.length);
+        boolean swap = comparison == Comparison.GREATER || comparison == Comparison.LESS_OR_EQUAL;
+        long[] left = swap ? b : a;
+        long[] right = swap ? a : b;
+        boolean equality = comparison == Comparison.EQUAL || comparison == Comparison.NOT_EQUAL;
+        long invert = comparison == Comparison.NOT_EQUAL || comparison == Comparison.GREATER_OR_EQUAL
+                || comparison == Comparison.LESS_OR_EQUAL ? -1L : 0L;
+        forEachChunk(a.length, (from, to) -> {
+            for (int base = from; base < to; base += 64) {
+                int end = Math.min(base + 64, to);
+                long word = 0;
+                if (equality) {
+                    for (int i = base; i < end; i++) {
+                        word |= (left[i] == right[i] ? 1L : 0L) << (i - base);
+                    }
+                } else {
+                    for (int i = base; i < end; i++) {
+                        word |= (left[i] < right[i] ? 1L : 0L) << (i - base);
+                    }
+                }
+                bits[base >>> 6] = (word ^ invert) & -1L >>> (64 - (end - base));
+            }
+            return 0;
+        });
+    }
+
+    private static void checkSizes(int a, int b, int out, int bitmapWords) {
+        if (b != a || out != a) {
+            throw new IllegalArgumentException("Columns differ in size: " + a + ", " + b + ", " + out);
+        }
+        if (bitmapWords < words(a)) {
+            throw new IllegalArgumentException("Bitmap has " + bitmapWords + " words, " + words(a) + " needed");
+        }
+    }
+
+    // ========================== PARALLEL CHUNKS ==========================
+    @FunctionalInterface
+    private interface ChunkBody {
+        long run(int from, int to);
+    }
+
+    // Small columns run on the calling thread; the results of all chunks are added up
+    private static long forEachChunk(int size, ChunkBody body) {
+        if (size < PARALLEL_THRESHOLD) {
+            return body.run(0, size);
+        }
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return ForkJoinPool.commonPool().invoke(new ChunkTask(body, size, 0, chunks));
+    }
+
+    // (RecursiveTask is Serializable, but tasks are never serialized)
+    private static final class ChunkTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ChunkBody body;
+        private final int size;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkTask(ChunkBody body, int size, int fromChunk, int toChunk) {
+            this.body = body;
+            this.size = size;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected Long compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                ChunkTask left = new ChunkTask(body, size, fromChunk, middle);
+                left.fork();
+                long right = new ChunkTask(body, size, middle, toChunk).compute();
+                return left.join() + right;
+            }
+            int from = fromChunk * CHUNK_SIZE;
+            return body.run(from, Math.min(size, from + CHUNK_SIZE));
+        }
+    }
+
+    // Demo: the operations of operators.java on columns, including the cases that go wrong
+    public static void main(String[] args) {
+        int[] number1 = {12, Integer.MAX_VALUE, 7, Integer.MIN_VALUE};
+        int[] number2 = {6, 1, 0, -1};
+        int[] result = new int[number1.length];
+        long[] problems = newBitmap(number1.length);
+        System.out.println("number1: " + Arrays.toString(number1));
+        System.out.println("number2: " + Arrays.toString(number2));
+
+        for (Operator op : Operator.values()) {
+            for (Overflow mode : Overflow.values()) {
+                long marked = apply(op, mode, number1, number2, result, problems);
+                System.out.printf("%-9s %-8s -> %-50s problems at %s (%d)%n",
+                        op, mode, Arrays.toString(result), positions(problems, number1.length), marked);
+            }
+        }
+
+        // Increment and decrement
+        int[] counters = {13, Integer.MAX_VALUE};
+        increment(counters, Overflow.SATURATE, problems);
+        System.out.println("\n++ (saturating): " + Arrays.toString(counters) + ", problems at " + positions(problems, counters.length));
+
+        // The result may go into one of the operands: x = x + y, in place
+        int[] x = {Integer.MAX_VALUE, 5};
+        int[] y = {1, 1};
+        long clamped = apply(Operator.ADD, Overflow.SATURATE, x, y, x, problems);
+        System.out.println("x += y (saturating, in place): " + Arrays.toString(x) + ", problems at "
+                + positions(problems, x.length) + " (" + clamped + ")");
+
+        // Comparisons give bitmaps, which combine like && || !
+        int[] left = {14, 3, 5, 9};
+        int[] right = {4, 3, 8, 9};
+        long[] greater = newBitmap(left.length);
+        long[] notEqual = newBitmap(left.length);
+        long[] combined = newBitmap(left.length);
+        compare(Comparison.GREATER, left, right, greater);
+        compare(Comparison.NOT_EQUAL, left, right, notEqual);
+        System.out.println("\nleft:  " + Arrays.toString(left) + "\nright: " + Arrays.toString(right));
+        System.out.println("left > right:                      " + positions(greater, left.length));
+        and(greater, notEqual, combined);
+        System.out.println("(left > right) && (left != right): " + positions(combined, left.length));
+        not(greater, left.length, combined);
+        System.out.println("!(left > right):                   " + positions(combined, left.length));
+
+        // A large column is split over all cores
+        int size = 10_000_000;
+        int[] big = new int[size];
+        Arrays.fill(big, 1 << 20);
+        int[] product = new int[size];
+        long[] overflowed = newBitmap(size);
+        long start = System.nanoTime();
+        long marked = apply(Operator.MULTIPLY, Overflow.CHECKED, big, big, product, overflowed);
+        System.out.printf("%nChecked multiply of %,d elements: %d overflows, %.1f ms on %d threads%n",
+                size, marked, (System.nanoTime() - start) / 1e6, ForkJoinPool.commonPool().getParallelism());
+    }
+
+    private static String positions(long[] bits, int size) {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (isSet(bits, i)) {
+                text.append(text.length() > 1 ? ", " : "").append(i);
+            }
+        }
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,182 @@
+// Day lookup in both directions without a switch
+// switch_case.java turns a day number into a name with a case 1..7 ladder. This enum does
+// the same with a table, and also goes the other way (name -> number):
+//   number -> name   NAMES[day], one array read
+//   name -> number   a minimal perfect hash: a small formula that sends each of the seven day
+//                    names to its own slot 0..6, so a lookup is one hash and one comparison
+// Names are matched ignoring ASCII case ("monday", "MONDAY", "Monday"), without creating
+// lower-case copies of the input. Anything that is not a day gives "Invalid day" / NO_DAY.
+
+import java.util.Arrays;
+import java.util.Locale;
+
+public enum Day {
+    MONDAY("Monday"),
+    TUESDAY("Tuesday"),
+    WEDNESDAY("Wednesday"),
+    THURSDAY("Thursday"),
+    FRIDAY("Friday"),
+    SATURDAY("Saturday"),
+    SUNDAY("Sunday");
+
+    public static final String INVALID_NAME = "Invalid day";
+    public static final int NO_DAY = 0; // Day numbers are 1..7
+
+    private static final Day[] DAYS = values();
+    private static final int DAY_COUNT = 7;
+    // Index = day number; slot 0 is never a valid day
+    private static final String[] NAMES = new String[DAY_COUNT + 1];
+
+    // Perfect hash tables: slot -> day number and lower-case name
+    private static final int[] SLOT_NUMBERS = new int[DAY_COUNT];
+    private static final String[] SLOT_DISPLAY_NAMES = new String[DAY_COUNT];
+    private static final char[][] SLOT_NAMES = new char[DAY_COUNT][];
+    private static final int MULTIPLIER;
+
+    static {
+        NAMES[NO_DAY] = INVALID_NAME;
+        for (Day day : DAYS) {
+            NAMES[day.number()] = day.displayName;
+        }
+        MULTIPLIER = findMultiplier();
+        for (Day day : DAYS) {
+            String name = day.displayName;
+            int slot = slot(name.charAt(0) | 0x20, name.charAt(1) | 0x20, MULTIPLIER);
+            SLOT_NUMBERS[slot] = day.number();
+            SLOT_DISPLAY_NAMES[slot] = name;
+            SLOT_NAMES[slot] = name.toLowerCase(Locale.ROOT).toCharArray();
+        }
+    }
+
+    private final String displayName;
+
+    Day(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public int number() {
+        return ordinal() + 1;
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+
+    // ========================== NUMBER -> NAME ==========================
+    public static String nameOf(int day) {
+        return day >= 1 && day <= DAY_COUNT ? NAMES[day] : INVALID_NAME;
+    }
+
+    public static Day of(int day) {
+        if (day < 1 || day > DAY_COUNT) {
+            throw new IllegalArgumentException(INVALID_NAME + ": " + day);
+        }
+        return DAYS[day - 1];
+    }
+
+    // ========================== NAME -> NUMBER ==========================
+    // The first two letters already tell all seven days apart (mo, tu, we, th, fr, sa, su),
+    // so only those are hashed; the full name is compared afterwards.
+    public static int numberOf(CharSequence name) {
+        int length = name.length();
+        if (length < 2) {
+            return NO_DAY;
+        }
+        int slot = slot(name.charAt(0) | 0x20, name.charAt(1) | 0x20, MULTIPLIER);
+        // Most input is spelled like the display name, and String.equals compares that in one go
+        if (name instanceof String text && text.equals(SLOT_DISPLAY_NAMES[slot])) {
+            return SLOT_NUMBERS[slot];
+        }
+        return equalsIgnoringAsciiCase(name, SLOT_NAMES[slot]) ? SLOT_NUMBERS[slot] : NO_DAY;
+    }
+
+    // c | 0x20 turns 'A'..'Z' into 'a'..'z'; it can only give a letter when c already was one
+    private static boolean equalsIgnoringAsciiCase(CharSequence name, char[] lowerCase) {
+        if (name.length() != lowerCase.length) {
+            return false;
+        }
+        for (int i = 0; i < lowerCase.length; i++) {
+            if ((name.charAt(i) | 0x20) != lowerCase[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ========================== BATCH ==========================
+    // names[i] = nameOf(days[i]) for every element of days
+    public static void namesOf(int[] days, String[] names) {
+        checkLengths(days.length, names.length);
+        for (int i = 0; i < days.length; i++) {
+            names[i] = nameOf(days[i]);
+        }
+    }
+
+    // days[i] = numberOf(names[i]) for every element of names
+    public static void numbersOf(CharSequence[] names, int[] days) {
+        checkLengths(names.length, days.length);
+        for (int i = 0; i < names.length; i++) {
+            days[i] = numberOf(names[i]);
+        }
+    }
+
+    private static void checkLengths(int inputLength, int outputLength) {
+        if (outputLength < inputLength) {
+            throw new IllegalArgumentException("Output has " + outputLength + " elements, input " + inputLength);
+        }
+    }
+
+    // ========================== PERFECT HASH ==========================
+    // Multiplicative hash of the first two (lower-case) letters. Bits 16..31 of the product,
+    // as a fraction of 65536, are scaled to 0..6 with a multiply and a shift instead of a % 7.
+    private static int slot(int first, int second, int multiplier) {
+        return (((first << 8 | second) * multiplier) >>> 16) * DAY_COUNT >>> 16;
+    }
+
+    // Try well-spread odd multipliers (multiples of the golden-ratio constant) until every day
+    // lands in a different slot. Takes about a hundred tries, once, when the class is loaded.
+    private static int findMultiplier() {
+        for (int attempt = 1; ; attempt++) {
+            int multiplier = attempt * 0x9E3779B9 | 1;
+            boolean[] used = new boolean[DAY_COUNT];
+            boolean perfect = true;
+            for (Day day : DAYS) {
+                String name = day.displayName;
+                int slot = slot(name.charAt(0) | 0x20, name.charAt(1) | 0x20, multiplier);
+                if (used[slot]) {
+                    perfect = false;
+                    break;
+                }
+                used[slot] = true;
+            }
+            if (perfect) {
+                return multiplier;
+            }
+        }
+    }
+
+    // Demo: the example from switch_case.java, then the reverse lookup and the batch versions
+    public static void main(String[] args) {
+        int day = 3;
+        String dayName = Day.nameOf(day);
+        System.out.println("The day is: " + dayName);
+        System.out.println("Day 9 is: " + Day.nameOf(9));
+
+        // Name -> number, ignoring case
+        System.out.println("\"Wednesday\" is day " + Day.numberOf("Wednesday"));
+        System.out.println("\"SUNDAY\" is day " + Day.numberOf("SUNDAY"));
+        System.out.println("\"Someday\" is day " + Day.numberOf("Someday") + " (NO_DAY)");
+
+        // Whole columns at once
+        int[] numbers = {1, 5, 7, 0};
+        String[] names = new String[numbers.length];
+        Day.namesOf(numbers, names);
+        System.out.println("Names: " + String.join(", ", names));
+
+        String[] input = {"monday", "Friday", "SATURDAY", "Funday"};
+        int[] days = new int[input.length];
+        Day.numbersOf(input, days);
+        System.out.println("Numbers: " + Arrays.toString(days));
+        System.out.println("Perfect hash multiplier: " + MULTIPLIER);
+    }
+}
@@ -0,0 +1,388 @@
+// A list of Strings stored in memory-mapped files instead of on the Java heap
+// Same operations as ArrayList.java (add, get, remove by index, size), but the elements live
+// in two files that the operating system pages in and out as needed:
+//   <name>      - the data file: records of [int header][UTF-8 bytes], appended one after another
+//   <name>.idx  - the index file: a small header plus one long offset per element
+// Because the index is kept on disk too, reopening a list does not have to scan the data.
+//
+// Removing an element marks its record as dead (a "tombstone") and closes the gap in the
+// index; once dead records take up more space than live ones, the data file is compacted,
+// and both files are cut back to what is still in use.
+// Each file is mapped only as far as it is used, and the mapping grows by doubling, so a
+// list of three fruits takes a few KiB of address space and disk rather than 64 MiB.
+// Like java.util.ArrayList, this class is not thread-safe.
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+public class MappedStringList extends AbstractList<String> implements RandomAccess, Closeable {
+    // Records never cross a segment boundary, so one record is at most one segment long
+    static final int SEGMENT_SIZE = 1 << 26; // 64 MiB
+    private static final int RECORD_HEADER = Integer.BYTES;
+    private static final int TOMBSTONE = 0x8000_0000; // High bit of the record header
+    private static final long MIN_DEAD_BYTES_TO_COMPACT = 1 << 20;
+
+    // Index file header
+    private static final int MAGIC = 0x4D534C31; // "MSL1"
+    private static final int VERSION = 1;
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int HEAD_AT = 8;
+    private static final int TAIL_AT = 16;
+    private static final int DATA_END_AT = 24;
+    private static final int DEAD_BYTES_AT = 32;
+    private static final int INDEX_HEADER = 64;
+
+    private final MappedFile data;
+    private final MappedFile index;
+
+    // Elements are index slots [head, tail); removing from the front just moves head
+    private long head;
+    private long tail;
+    private long dataEnd;
+    private long deadBytes;
+    private byte[] copyBuffer = new byte[0];
+
+    private MappedStringList(MappedFile data, MappedFile index) {
+        this.data = data;
+        this.index = index;
+    }
+
+    // Open the list stored at path, creating it if the files do not exist yet
+    public static MappedStringList open(Path path) throws IOException {
+        Path indexPath = path.resolveSibling(path.getFileName() + ".idx");
+        boolean exists = Files.exists(indexPath) && Files.size(indexPath) >= INDEX_HEADER;
+        MappedStringList list = new MappedStringList(new MappedFile(path), new MappedFile(indexPath));
+        if (exists) {
+            list.readHeader();
+        } else {
+            list.index.ensureCapacity(INDEX_HEADER);
+            list.index.putInt(MAGIC_AT, MAGIC);
+            list.index.putInt(VERSION_AT, VERSION);
+            list.writeHeader();
+        }
+        return list;
+    }
+
+    @Override
+    public int size() {
+        return (int) (tail - head);
+    }
+
+    @Override
+    public boolean add(String element) {
+        byte[] bytes = element.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > SEGMENT_SIZE - RECORD_HEADER) {
+            throw new IllegalArgumentException("Element too large: " + bytes.length + " bytes");
+        }
+        long offset = placeRecord(dataEnd, bytes.length);
+        data.ensureCapacity(offset + RECORD_HEADER + bytes.length);
+        data.putInt(offset, bytes.length);
+        data.put(offset + RECORD_HEADER, bytes, 0, bytes.length);
+
+        index.ensureCapacity(slotPosition(tail + 1));
+        index.putLong(slotPosition(tail), offset);
+        tail++;
+        dataEnd = offset + RECORD_HEADER + bytes.length;
+        modCount++;
+        writeHeader();
+        return true;
+    }
+
+    @Override
+    public String get(int i) {
+        long offset = offsetOf(i);
+        int length = data.getInt(offset);
+        byte[] bytes = buffer(length);
+        data.get(offset + RECORD_HEADER, bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String remove(int i) {
+        String removed = get(i);
+        long offset = offsetOf(i);
+        int length = data.getInt(offset);
+        data.putInt(offset, length | TOMBSTONE);
+        deadBytes += RECORD_HEADER + length;
+
+        // Close the gap in the index by moving whichever side is shorter
+        long slot = head + i;
+        if (i < size() / 2) {
+            for (long s = slot; s > head; s--) {
+                index.putLong(slotPosition(s), index.getLong(slotPosition(s - 1)));
+            }
+            head++;
+        } else {
+            for (long s = slot; s < tail - 1; s++) {
+                index.putLong(slotPosition(s), index.getLong(slotPosition(s + 1)));
+            }
+            tail--;
+        }
+        modCount++;
+
+        if (deadBytes >= MIN_DEAD_BYTES_TO_COMPACT && deadBytes > dataEnd - deadBytes) {
+            compact();
+        }
+        writeHeader();
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        head = 0;
+        tail = 0;
+        dataEnd = 0;
+        deadBytes = 0;
+        modCount++;
+        writeHeader();
+        data.truncate(0);
+        index.truncate(INDEX_HEADER);
+    }
+
+    // Bytes used by removed elements that compaction has not reclaimed yet
+    public long deadBytes() {
+        return deadBytes;
+    }
+
+    // Slide all live records to the start of the data file and the index back to slot 0.
+    // Records keep their order, and each one only ever moves towards the start of the file.
+    public void compact() {
+        long writeAt = 0;
+        for (long s = head; s < tail; s++) {
+            long offset = index.getLong(slotPosition(s));
+            int length = data.getInt(offset);
+            long target = placeRecord(writeAt, length);
+            if (target != offset) {
+                byte[] bytes = buffer(length);
+                data.get(offset + RECORD_HEADER, bytes, 0, length);
+                data.putInt(target, length);
+                data.put(target + RECORD_HEADER, bytes, 0, length);
+            }
+            index.putLong(slotPosition(s - head), target);
+            writeAt = target + RECORD_HEADER + length;
+        }
+        tail -= head;
+        head = 0;
+        dataEnd = writeAt;
+        deadBytes = 0;
+        writeHeader();
+        data.truncate(dataEnd);
+        index.truncate(slotPosition(tail));
+    }
+
+    // Write changes through to the files
+    public void flush() {
+        writeHeader();
+        data.force();
+        index.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        data.close();
+        index.close();
+    }
+
+    private long offsetOf(int i) {
+        if (i < 0 || i >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+        }
+        return index.getLong(slotPosition(head + i));
+    }
+
+    // Start of a record at or after position, moved to the next segment if it would not fit
+    private static long placeRecord(long position, int length) {
+        long segmentEnd = (position / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+        return position + RECORD_HEADER + length <= segmentEnd ? position : segmentEnd;
+    }
+
+    private static long slotPosition(long slot) {
+        return INDEX_HEADER + slot * Long.BYTES;
+    }
+
+    private byte[] buffer(int length) {
+        if (copyBuffer.length < length) {
+            copyBuffer = new byte[Math.max(length, copyBuffer.length * 2)];
+        }
+        return copyBuffer;
+    }
+
+    private void readHeader() throws IOException {
+        if (index.getInt(MAGIC_AT) != MAGIC) {
+            throw new IOException("Not a MappedStringList index file");
+        }
+        if (index.getInt(VERSION_AT) != VERSION) {
+            throw new IOException("Unsupported MappedStringList version: " + index.getInt(VERSION_AT));
+        }
+        head = index.getLong(HEAD_AT);
+        tail = index.getLong(TAIL_AT);
+        dataEnd = index.getLong(DATA_END_AT);
+        deadBytes = index.getLong(DEAD_BYTES_AT);
+    }
+
+    private void writeHeader() {
+        index.putLong(HEAD_AT, head);
+        index.putLong(TAIL_AT, tail);
+        index.putLong(DATA_END_AT, dataEnd);
+        index.putLong(DEAD_BYTES_AT, deadBytes);
+    }
+
+    // ========================== MAPPED FILE ==========================
+    // A file mapped in segments of at most SEGMENT_SIZE (one MappedByteBuffer can cover at
+    // most 2 GB). Every segment but the last is full size; the last one only covers what is
+    // in use, in whole pages, and is mapped again (larger or smaller) as the file changes.
+    // Mapping past the end of a file makes it longer, so the file is as long as the mapping.
+    // Ints and longs are aligned, so they never cross a segment boundary either.
+    // A mapping that is replaced is released once its buffer is garbage collected
+    // (Java 21 has no supported way to unmap a MappedByteBuffer right away).
+    private static final class MappedFile implements Closeable {
+        private static final int PAGE = 4096;
+
+        private final FileChannel channel;
+        private final List<MappedByteBuffer> segments = new ArrayList<>();
+        private long mapped;
+
+        MappedFile(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            map(channel.size());
+        }
+
+        // Grows the mapping to at least bytes: to double its size, but by at most one segment
+        void ensureCapacity(long bytes) {
+            if (bytes > mapped) {
+                map(Math.max(bytes, Math.min(2 * mapped, mapped + SEGMENT_SIZE)));
+            }
+        }
+
+        // Maps only the first bytes of the file and cuts off the rest
+        void truncate(long bytes) {
+            map(bytes);
+            try {
+                channel.truncate(mapped);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void map(long bytes) {
+            int count = (int) ((bytes + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            while (segments.size() > count) {
+                segments.remove(segments.size() - 1);
+            }
+            try {
+                for (int i = 0; i < count; i++) {
+                    long start = (long) i * SEGMENT_SIZE;
+                    int size = (int) Math.min(SEGMENT_SIZE, (bytes - start + PAGE - 1) / PAGE * PAGE);
+                    if (i == segments.size()) {
+                        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, size));
+                    } else if (segments.get(i).capacity() != size) {
+                        segments.set(i, channel.map(FileChannel.MapMode.READ_WRITE, start, size));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            mapped = count == 0 ? 0 : (long) (count - 1) * SEGMENT_SIZE + segments.get(count - 1).capacity();
+        }
+
+        int getInt(long position) {
+            return segments.get((int) (position / SEGMENT_SIZE)).getInt((int) (position % SEGMENT_SIZE));
+        }
+
+        void putInt(long position, int value) {
+            segments.get((int) (position / SEGMENT_SIZE)).putInt((int) (position % SEGMENT_SIZE), value);
+        }
+
+        long getLong(long position) {
+            return segments.get((int) (position / SEGMENT_SIZE)).getLong((int) (position % SEGMENT_SIZE));
+        }
+
+        void putLong(long position, long value) {
+            segments.get((int) (position / SEGMENT_SIZE)).putLong((int) (position % SEGMENT_SIZE), value);
+        }
+
+        // Callers make sure the range stays inside one segment
+        void get(long position, byte[] bytes, int from, int length) {
+            segments.get((int) (position / SEGMENT_SIZE)).get((int) (position % SEGMENT_SIZE), bytes, from, length);
+        }
+
+        void put(long position, byte[] bytes, int from, int length) {
+            segments.get((int) (position / SEGMENT_SIZE)).put((int) (position % SEGMENT_SIZE), bytes, from, length);
+        }
+
+        void force() {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            segments.clear();
+            mapped = 0;
+            channel.close();
+        }
+    }
+
+    // Demo: the same steps as ArrayList.java, then reopening the list from disk
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Files.createTempDirectory("mapped-list");
+        Path path = directory.resolve("fruits");
+
+        try (MappedStringList list = MappedStringList.open(path)) {
+            // Add elements
+            list.add("Apple");
+            list.add("Banana");
+            list.add("Cherry");
+            System.out.println("MappedStringList: " + list);
+
+            // Access an element by index
+            System.out.println("Element at index 1: " + list.get(1));
+
+            // Remove an element by index - no shifting of the other elements
+            list.remove(0);
+            System.out.println("MappedStringList after removal: " + list);
+
+            // Get the size
+            System.out.println("Size of MappedStringList: " + list.size());
+        }
+
+        // Reopening reads the index header only
+        try (MappedStringList list = MappedStringList.open(path)) {
+            System.out.println("After reopening: " + list);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                list.add("Fruit number " + i);
+            }
+            long appended = System.nanoTime();
+            while (list.size() > 2) {
+                list.remove(0);
+            }
+            long removed = System.nanoTime();
+            System.out.println("\n" + count + " appends:          " + (appended - start) / 1_000_000 + " ms");
+            System.out.println(count + " remove(0) calls:  " + (removed - appended) / 1_000_000 + " ms");
+            System.out.println("Left after compaction: " + list + " (" + list.deadBytes() + " dead bytes)");
+        }
+        System.out.println("Files: " + Files.size(path) + " bytes of data, "
+                + Files.size(path.resolveSibling(path.getFileName() + ".idx")) + " bytes of index");
+
+        Files.delete(path);
+        Files.delete(path.resolveSibling(path.getFileName() + ".idx"));
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,301 @@
+// Narrowing whole columns of doubles to int / short / byte
+// data_types.java casts one double to an int: (int) 5.8 is 5. A cast always truncates (drops
+// the fraction), quietly turns NaN into 0, clamps values that are too large for an int, and
+// for short and byte ((short) (int) d) keeps only the low bits, so 40000.0 becomes -25536.
+// Narrowing converts whole columns and lets the caller choose each of those behaviours:
+//   Rounding    TRUNCATE (like the cast), FLOOR (towards minus infinity), HALF_EVEN (to the
+//               nearest whole number, ties to the even one: 2.5 -> 2, 3.5 -> 4)
+//   Overflow    what happens to values outside the target's range (see ColumnMath.Overflow):
+//               WRAP stores what the cast stores, CHECKED does the same and marks the position
+//               in a bitmap, SATURATE stores MIN_VALUE / MAX_VALUE and marks the position
+//   NanPolicy   NaN becomes 0 in every case; ZERO stops there, REPORT also marks it, FAIL
+//               throws (out is then only partly written)
+// Bitmaps are the ones from ColumnMath (one bit per element). Nothing is allocated per call.
+//
+// The conversion loops are plain loops that the JIT turns into vector instructions (Math.floor,
+// Math.rint and the casts all have vector forms). Each block of BLOCK values is converted with
+// the cast, while keeping the smallest and largest value; only if those do not fit (or are
+// NaN) is the block looked at value by value.
+
+import java.util.Arrays;
+
+public final class Narrowing {
+    public enum Rounding { TRUNCATE, FLOOR, HALF_EVEN }
+
+    public enum NanPolicy { ZERO, REPORT, FAIL }
+
+    static final int BLOCK = 1024; // A multiple of 64
+
+    private Narrowing() {
+    }
+
+    public static double round(double value, Rounding rounding) {
+        return switch (rounding) {
+            case TRUNCATE -> value; // The cast drops the fraction
+            case FLOOR -> Math.floor(value);
+            case HALF_EVEN -> Math.rint(value);
+        };
+    }
+
+    // A value fits the target range [min, max] after rounding when lowest <= value < limit.
+    // Checking the value itself rather than the rounded one saves rounding twice.
+    // Half-even ties go to the even neighbour, and MIN_VALUE is even while MAX_VALUE is odd:
+    // min - 0.5 rounds to min (fits), max + 0.5 rounds to max + 1 (does not).
+    private static double lowest(Rounding rounding, int min) {
+        return switch (rounding) {
+            case TRUNCATE -> Math.nextUp(min - 1.0);
+            case FLOOR -> min;
+            case HALF_EVEN -> min - 0.5;
+        };
+    }
+
+    private static double limit(Rounding rounding, int max) {
+        return rounding == Rounding.HALF_EVEN ? max + 0.5 : max + 1.0;
+    }
+
+    // ========================== COLUMNS ==========================
+    // out[i] = values[i] rounded and narrowed; returns how many positions were marked in problems
+    public static long toInts(double[] values, int[] out, Rounding rounding, ColumnMath.Overflow overflow,
+                              NanPolicy nan, long[] problems) {
+        checkSizes(values.length, out.length, problems.length);
+        double lowest = lowest(rounding, Integer.MIN_VALUE);
+        double limit = limit(rounding, Integer.MAX_VALUE);
+        long marked = 0;
+        for (int from = 0; from < values.length; from += BLOCK) {
+            int to = Math.min(from + BLOCK, values.length);
+            if (convert(values, out, from, to, rounding, lowest, limit)) {
+                Arrays.fill(problems, from >>> 6, words(to), 0L);
+            } else {
+                // The cast to int already saturates, so SATURATE needs no second pass
+                marked += check(values, from, to, lowest, limit, overflow, nan, problems);
+            }
+        }
+        return marked;
+    }
+
+    public static long toShorts(double[] values, short[] out, Rounding rounding, ColumnMath.Overflow overflow,
+                                NanPolicy nan, long[] problems) {
+        checkSizes(values.length, out.length, problems.length);
+        double lowest = lowest(rounding, Short.MIN_VALUE);
+        double limit = limit(rounding, Short.MAX_VALUE);
+        long marked = 0;
+        for (int from = 0; from < values.length; from += BLOCK) {
+            int to = Math.min(from + BLOCK, values.length);
+            if (convert(values, out, from, to, rounding, lowest, limit)) {
+                Arrays.fill(problems, from >>> 6, words(to), 0L);
+                continue;
+            }
+            marked += check(values, from, to, lowest, limit, overflow, nan, problems);
+            if (overflow == ColumnMath.Overflow.SATURATE) {
+                for (int w = from >>> 6; w < words(to); w++) {
+                    for (long rest = problems[w]; rest != 0; rest &= rest - 1) {
+                        int i = w << 6 | Long.numberOfTrailingZeros(rest);
+                        if (!Double.isNaN(values[i])) {
+                            out[i] = values[i] < 0 ? Short.MIN_VALUE : Short.MAX_VALUE;
+                        }
+                    }
+                }
+            }
+        }
+        return marked;
+    }
+
+    public static long toBytes(double[] values, byte[] out, Rounding rounding, ColumnMath.Overflow overflow,
+                               NanPolicy nan, long[] problems) {
+        checkSizes(values.length, out.length, problems.length);
+        double lowest = lowest(rounding, Byte.MIN_VALUE);
+        double limit = limit(rounding, Byte.MAX_VALUE);
+        long marked = 0;
+        for (int from = 0; from < values.length; from += BLOCK) {
+            int to = Math.min(from + BLOCK, values.length);
+            if (convert(values, out, from, to, rounding, lowest, limit)) {
+                Arrays.fill(problems, from >>> 6, words(to), 0L);
+                continue;
+            }
+            marked += check(values, from, to, lowest, limit, overflow, nan, problems);
+            if (overflow == ColumnMath.Overflow.SATURATE) {
+                for (int w = from >>> 6; w < words(to); w++) {
+                    for (long rest = problems[w]; rest != 0; rest &= rest - 1) {
+                        int i = w << 6 | Long.numberOfTrailingZeros(rest);
+                        if (!Double.isNaN(values[i])) {
+                            out[i] = values[i] < 0 ? Byte.MIN_VALUE : Byte.MAX_VALUE;
+                        }
+                    }
+                }
+            }
+        }
+        return marked;
+    }
+
+    // ========================== FAST PASS ==========================
+    // Cast every value of the block and report whether all of them fit. Math.min / Math.max
+    // pass NaN on, and a NaN bound fails both comparisons.
+    private static boolean convert(double[] values, int[] out, int from, int to, Rounding rounding,
+                                   double lowest, double limit) {
+        double low = Double.POSITIVE_INFINITY;
+        double high = Double.NEGATIVE_INFINITY;
+        switch (rounding) {
+            case TRUNCATE -> {
+                for (int i = from; i < to; i++) {
+                    double value = values[i];
+                    out[i] = (int) value;
+                    low = Math.min(low, value);
+                    high = Math.max(high, value);
+                }
+            }
+            case FLOOR -> {
+                for (int i = from; i < to; i++) {
+                    double value = values[i];
+                    out[i] = (int) Math.floor(value);
+                    low = Math.min(low, value);
+                    high = Math.max(high, value);
+                }
+            }
+            case HALF_EVEN -> {
+                for (int i = from; i < to; i++) {
+                    double value = values[i];
+                    out[i] = (int) Math.rint(value);
+                    low = Math.min(low, value);
+                    high = Math.max(high, value);
+                }
+            }
+        }
+        return low >= lowest && high < limit;
+    }
+
+    private static boolean convert(double[] values, short[] out, int from, int to, Rounding rounding,
+                                   double lowest, double limit) {
+        double low = Double.POSITIVE_INFINITY;
+        double high = Double.NEGATIVE_INFINITY;
+        switch (rounding) {
+            case TRUNCATE -> {
+                for (int i = from; i < to; i++) {
+                    double value = values[i];
+                    out[i] = (short) (int) value;
+                    low = Math.min(low, value);
+                    high = Math.max(high, value);
+                }
+            }
+            case FLOOR -> {
+                for (int i = from; i < to; i++) {
+                    double value = values[i];
+                    out[i] = (short) (int) Math.floor(value);
+                    low = Math.min(low, value);
+                    high = Math.max(high, value);
+                }
+            }
+            case HALF_EVEN -> {
+                for (int i = from; i < to; i++) {
+                    double value = values[i];
+                    out[i] = (short) (int) Math.rint(value);
+                    low = Math.min(low, value);
+                    high = Math.max(high, value);
+                }
+            }
+        }
+        return low >= lowest && high < limit;
+    }
+
+    private static boolean convert(double[] values, byte[] out, int from, int to, Rounding rounding,
+                                   double lowest, double limit) {
+        double low = Double.POSITIVE_INFINITY;
+        double high = Double.NEGATIVE_INFINITY;
+        switch (rounding) {
+            case TRUNCATE -> {
+                for (int i = from; i < to; i++) {
+                    double value = values[i];
+                    out[i] = (byte) (int) value;
+                    low = Math.min(low, value);
+                    high = Math.max(high, value);
+                }
+            }
+            case FLOOR -> {
+                for (int i = from; i < to; i++) {
+                    double value = values[i];
+                    out[i] = (byte) (int) Math.floor(value);
+                    low = Math.min(low, value);
+                    high = Math.max(high, value);
+                }
+            }
+            case HALF_EVEN -> {
+                for (int i = from; i < to; i++) {
+                    double value = values[i];
+                    out[i] = (byte) (int) Math.rint(value);
+                    low = Math.min(low, value);
+                    high = Math.max(high, value);
+                }
+            }
+        }
+        return low >= lowest && high < limit;
+    }
+
+    // ========================== SLOW PASS ==========================
+    // Value by value: write the block's bitmap words and apply the NaN policy. The values
+    // written by the fast pass are already right for NaN (0) and for WRAP / CHECKED. Even in
+    // such a block most values fit, so the branch below is rarely taken and cheap to predict.
+    private static long check(double[] values, int from, int to, double lowest, double limit,
+                              ColumnMath.Overflow overflow, NanPolicy nan, long[] problems) {
+        long rangeBit = overflow == ColumnMath.Overflow.WRAP ? 0 : 1L;
+        long nanBit = nan == NanPolicy.ZERO ? 0 : 1L;
+        long marked = 0;
+        for (int base = from; base < to; base += 64) {
+            int end = Math.min(base + 64, to);
+            long word = 0;
+            for (int i = base; i < end; i++) {
+                double value = values[i];
+                if (!(value >= lowest && value < limit)) {
+                    boolean isNan = Double.isNaN(value);
+                    if (isNan && nan == NanPolicy.FAIL) {
+                        throw new IllegalArgumentException("NaN at index " + i);
+                    }
+                    word |= (isNan ? nanBit : rangeBit) << i; // Shifts use the low 6 bits of i
+                }
+            }
+            problems[base >>> 6] = word;
+            marked += Long.bitCount(word);
+        }
+        return marked;
+    }
+
+    private static void checkSizes(int values, int out, int bitmapWords) {
+        if (out < values) {
+            throw new IllegalArgumentException("out has " + out + " elements, values " + values);
+        }
+        if (bitmapWords < words(values)) {
+            throw new IllegalArgumentException("Bitmap has " + bitmapWords + " words, " + words(values) + " needed");
+        }
+    }
+
+    private static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    // Demo: the cast from data_types.java, then the same column in each mode
+    public static void main(String[] args) {
+        double number1 = 5.8;
+        int number2 = (int) number1; // Casting double to int
+        System.out.println("The integer value is: " + number2);
+        for (Rounding rounding : Rounding.values()) {
+            System.out.println(rounding + ": " + (int) round(number1, rounding));
+        }
+
+        double[] values = {5.8, -5.8, 2.5, 3.5, 40000.0, -1e10, Double.NaN, Double.POSITIVE_INFINITY};
+        int[] ints = new int[values.length];
+        short[] shorts = new short[values.length];
+        long[] problems = ColumnMath.newBitmap(values.length);
+        System.out.println("\nValues: " + Arrays.toString(values));
+        for (Rounding rounding : Rounding.values()) {
+            toInts(values, ints, rounding, ColumnMath.Overflow.WRAP, NanPolicy.ZERO, problems);
+            System.out.printf("%-9s int:   %s%n", rounding, Arrays.toString(ints));
+        }
+        for (ColumnMath.Overflow overflow : ColumnMath.Overflow.values()) {
+            long marked = toShorts(values, shorts, Rounding.HALF_EVEN, overflow, NanPolicy.REPORT, problems);
+            System.out.printf("%-9s short: %s, %d problem(s)%n", overflow, Arrays.toString(shorts), marked);
+        }
+        try {
+            toInts(values, ints, Rounding.TRUNCATE, ColumnMath.Overflow.CHECKED, NanPolicy.FAIL, problems);
+        } catch (IllegalArgumentException e) {
+            System.out.println("FAIL: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+// Classifying many numbers without if/else
+// conditional_statements.java decides "positive / negative / zero" and "even / odd" for one
+// number with if-else ladders. On millions of random numbers the CPU keeps guessing those
+// branches wrong, and every wrong guess costs about as much as classifying a dozen numbers.
+// Here the answer is computed with bit arithmetic instead, so there is nothing to guess:
+//   negative = number >>> 31                  (the sign bit)
+//   positive = (-number & ~number) >>> 31     (sign bit of -number, except for Integer.MIN_VALUE)
+//   odd      = number & 1
+//   code     = positive << 1 | negative << 2 | odd
+//
+// NumberClassifier.batch() uses the Vector API version (VectorNumberClassifier) under the same
+// conditions as ArrayKernels.get(), and the scalar one otherwise.
+
+import java.util.Arrays;
+
+public final class NumberClassifier {
+    // Class codes (bit 0 = odd, bit 1 = positive, bit 2 = negative); zero is even
+    public static final byte ZERO = 0;
+    public static final byte POSITIVE_EVEN = 2;
+    public static final byte POSITIVE_ODD = 3;
+    public static final byte NEGATIVE_EVEN = 4;
+    public static final byte NEGATIVE_ODD = 5;
+    public static final int CODE_COUNT = 6; // Histogram size (code 1 is never used)
+
+    public static final Batch SCALAR = new ScalarBatch();
+
+    private NumberClassifier() {
+    }
+
+    // Classify whole columns at once
+    public interface Batch {
+        String name();
+
+        // codes[i] = classify(numbers[i])
+        void classify(int[] numbers, byte[] codes);
+
+        // counts[code] = how many numbers have that class
+        long[] histogram(int[] numbers);
+    }
+
+    public static Batch batch() {
+        return Selected.BATCH;
+    }
+
+    public static byte classify(int number) {
+        int negative = number >>> 31;
+        int positive = (-number & ~number) >>> 31;
+        return (byte) (positive << 1 | negative << 2 | number & 1);
+    }
+
+    public static boolean isPositive(byte code) {
+        return (code & 2) != 0;
+    }
+
+    public static boolean isNegative(byte code) {
+        return (code & 4) != 0;
+    }
+
+    public static boolean isOdd(byte code) {
+        return (code & 1) != 0;
+    }
+
+    public static String describe(byte code) {
+        String sign = isPositive(code) ? "positive" : isNegative(code) ? "negative" : "zero";
+        return sign + ", " + (isOdd(code) ? "odd" : "even");
+    }
+
+    static void checkLengths(int[] numbers, byte[] codes) {
+        if (codes.length < numbers.length) {
+            throw new IllegalArgumentException("codes has " + codes.length + " elements, numbers " + numbers.length);
+        }
+    }
+
+    // The histogram is built from four sums instead of counts[code]++, which would make each
+    // step wait for the previous increment of the same counter
+    static long[] histogram(long total, long negative, long negativeOdd, long positive, long positiveOdd) {
+        long[] counts = new long[CODE_COUNT];
+        counts[NEGATIVE_ODD] = negativeOdd;
+        counts[NEGATIVE_EVEN] = negative - negativeOdd;
+        counts[POSITIVE_ODD] = positiveOdd;
+        counts[POSITIVE_EVEN] = positive - positiveOdd;
+        counts[ZERO] = total - negative - positive;
+        return counts;
+    }
+
+    // ========================== SELECTION ==========================
+    private static final class Selected {
+        static final Batch BATCH = select();
+
+        private static Batch select() {
+            if (!ArrayKernels.vectorApiAvailable()) {
+                return SCALAR;
+            }
+            try {
+                return (Batch) Class.forName("VectorNumberClassifier").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return SCALAR;
+            }
+        }
+    }
+
+    // ========================== SCALAR ==========================
+    private static final class ScalarBatch implements Batch {
+        @Override
+        public String name() {
+            return "scalar";
+        }
+
+        @Override
+        public void classify(int[] numbers, byte[] codes) {
+            checkLengths(numbers, codes);
+            for (int i = 0; i < numbers.length; i++) {
+                codes[i] = NumberClassifier.classify(numbers[i]);
+            }
+        }
+
+        // int counters are enough (a count can never exceed numbers.length), and unlike long
+        // ones the JIT can add them up in vector registers
+        @Override
+        public long[] histogram(int[] numbers) {
+            int negative = 0;
+            int negativeOdd = 0;
+            int positive = 0;
+            int positiveOdd = 0;
+            for (int number : numbers) {
+                int isNegative = number >>> 31;
+                int isPositive = (-number & ~number) >>> 31;
+                int isOdd = number & 1;
+                negative += isNegative;
+                negativeOdd += isNegative & isOdd;
+                positive += isPositive;
+                positiveOdd += isPositive & isOdd;
+            }
+            return NumberClassifier.histogram(numbers.length, negative, negativeOdd, positive, positiveOdd);
+        }
+    }
+
+    // Demo: the number from conditional_statements.java, then a whole column
+    public static void main(String[] args) {
+        int number = 10;
+        byte code = classify(number);
+        System.out.println(number + " is " + describe(code));
+
+        for (int other : new int[] {-7, 0, Integer.MIN_VALUE}) {
+            System.out.println(other + " is " + describe(classify(other)));
+        }
+
+        Batch batch = batch();
+        int[] numbers = {10, -3, 0, 7, -8, 12, 5};
+        byte[] codes = new byte[numbers.length];
+        batch.classify(numbers, codes);
+        System.out.println("\nUsing: " + batch.name());
+        System.out.println("Numbers: " + Arrays.toString(numbers));
+        System.out.println("Codes:   " + Arrays.toString(codes));
+
+        long[] counts = batch.histogram(numbers);
+        System.out.println("Positive even: " + counts[POSITIVE_EVEN] + ", positive odd: " + counts[POSITIVE_ODD]
+                + ", negative even: " + counts[NEGATIVE_EVEN] + ", negative odd: " + counts[NEGATIVE_ODD]
+                + ", zero: " + counts[ZERO]);
+    }
+}
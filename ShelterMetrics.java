@@ -0,0 +1,304 @@
+// Shelter Metrics: counters and latency histograms for the animals of oops.java
+// What the animals do, per species and behavior: how often, how long it takes, and how it
+// turns out - a refused play() or a failed fly() is counted as its event (DOG_TOO_TIRED_TO_PLAY,
+// BIRD_CANNOT_FLY...). Off unless the JVM is started with -Dshelter.metrics=true: ENABLED is a
+// static final constant, so when it is false the JIT drops the recording code altogether.
+//
+// Every behavior reports exactly one event, so Animal.emit is the only place that records:
+// the event says which behavior was called (AnimalBehavior.of), and the time measured is
+// the time it took to report it - the energy bookkeeping around it is left out.
+// Each thread records into a buffer of its own, without locks or shared counters; reading
+// adds all buffers up, so a report may miss the calls being recorded at that very moment.
+// Calls are all counted, but only a random one in SAMPLE_EVERY is timed: System.nanoTime()
+// costs about 30 ns, more than most behaviors themselves.
+// shelter_metrics.java publishes the numbers over JMX and as a periodic text dump.
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class ShelterMetrics {
+    static final boolean ENABLED = Boolean.getBoolean("shelter.metrics");
+
+    // Latency buckets like HdrHistogram's: exact below 8 ns, then 8 buckets per power of two
+    // up to 2^41 ns, so a value is off by at most 12.5%. One more bucket after those takes
+    // everything from 2^41 ns (37 min) up
+    private static final int SUB_BUCKETS = 8;
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKETS = (MAX_EXPONENT - 1) * SUB_BUCKETS + 1;
+    // After the buckets of each histogram: the total of the timed nanoseconds, and all calls
+    private static final int TOTAL_NANOS = BUCKETS;
+    private static final int CALLS = BUCKETS + 1;
+    static final int SAMPLE_EVERY = Integer.highestOneBit(Math.max(1, Integer.getInteger("shelter.metrics.sampleEvery", 16)));
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final int BEHAVIORS = AnimalBehavior.values().length;
+
+    // Species are numbered in the order they are first seen
+    private static final CopyOnWriteArrayList<Class<?>> species = new CopyOnWriteArrayList<>();
+    private static final ClassValue<Integer> speciesIndex = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            synchronized (species) {
+                int index = species.indexOf(type);
+                if (index < 0) {
+                    species.add(type);
+                    index = species.size() - 1;
+                }
+                return index;
+            }
+        }
+    };
+
+    // One buffer per thread. Buffers of threads that have ended are folded into retired, by
+    // snapshot() and whenever the number of buffers has doubled since the last time, so with
+    // a new (virtual) thread per task and nobody reading, there are never more than about
+    // twice as many buffers as live threads
+    private static final int MIN_RETIRE_AT = 64;
+    private static final ConcurrentLinkedQueue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger bufferCount = new AtomicInteger();
+    private static volatile int retireAt = MIN_RETIRE_AT;
+    private static final ThreadLocal<Buffer> buffer = ThreadLocal.withInitial(() -> {
+        Buffer created = new Buffer(Thread.currentThread());
+        buffers.add(created);
+        if (bufferCount.incrementAndGet() >= retireAt) {
+            retireEnded();
+        }
+        return created;
+    });
+    // The buffers of threads that have ended, added up
+    private static final Buffer retired = new Buffer(null);
+
+    private ShelterMetrics() {
+    }
+
+    // Animal.emit calls start() before reporting the event and record() after it; both do
+    // nothing while metrics are off
+    static long start() {
+        if (!ENABLED) {
+            return 0;
+        }
+        Buffer current = buffer.get();
+        long random = current.random;
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        current.random = random;
+        return (random & (SAMPLE_EVERY - 1)) == 0 ? System.nanoTime() : NOT_TIMED;
+    }
+
+    // Counts the event and a call of the behavior that reported it
+    static void record(Object animal, AnimalEvent event, long start) {
+        if (ENABLED) {
+            long nanos = start == NOT_TIMED ? -1 : System.nanoTime() - start;
+            Buffer current = buffer.get();
+            current.events[event.ordinal()]++;
+            current.record(speciesIndex.get(animal.getClass()) * BEHAVIORS + AnimalBehavior.of(event).ordinal(), nanos);
+        }
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(0, nanos);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        return (exponent - 2) * SUB_BUCKETS + (int) ((nanos >>> (exponent - 3)) & (SUB_BUCKETS - 1));
+    }
+
+    // The largest value that lands in the bucket
+    static long highestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 2;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - 3);
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowest + (1L << (exponent - 3)) - 1;
+    }
+
+    // Adds up every thread's buffer
+    static synchronized Snapshot snapshot() {
+        retireEnded();
+        Buffer total = new Buffer(null);
+        for (Buffer next : buffers) {
+            total.add(next);
+        }
+        total.add(retired);
+        return new Snapshot(List.copyOf(species), total.events, total.latencies);
+    }
+
+    // Fold the buffers of threads that have ended into retired (isAlive() returning false
+    // also makes everything the thread wrote visible here)
+    private static synchronized void retireEnded() {
+        int live = 0;
+        for (Iterator<Buffer> it = buffers.iterator(); it.hasNext(); ) {
+            Buffer next = it.next();
+            if (!next.owner.isAlive()) {
+                retired.add(next);
+                it.remove();
+                bufferCount.decrementAndGet();
+            } else {
+                live++;
+            }
+        }
+        retireAt = Math.max(MIN_RETIRE_AT, 2 * live);
+    }
+
+    private static final class Buffer {
+        final Thread owner;
+        final long[] events = new long[AnimalEvent.values().length];
+        // [species * BEHAVIORS + behavior]: BUCKETS counts, TOTAL_NANOS and CALLS
+        long[][] latencies = new long[4 * BEHAVIORS][];
+        long random = System.nanoTime() | 1; // xorshift state for picking the calls to time
+
+        Buffer(Thread owner) {
+            this.owner = owner;
+        }
+
+        // nanos is -1 for a call that was not timed
+        void record(int slot, long nanos) {
+            long[] histogram = histogram(slot);
+            histogram[CALLS]++;
+            if (nanos >= 0) {
+                histogram[bucket(nanos)]++;
+                histogram[TOTAL_NANOS] += nanos;
+            }
+        }
+
+        long[] histogram(int slot) {
+            if (slot >= latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(slot + 1, latencies.length * 2));
+            }
+            long[] histogram = latencies[slot];
+            if (histogram == null) {
+                histogram = latencies[slot] = new long[CALLS + 1];
+            }
+            return histogram;
+        }
+
+        void add(Buffer other) {
+            for (int i = 0; i < events.length; i++) {
+                events[i] += other.events[i];
+            }
+            long[][] theirs = other.latencies;
+            if (theirs.length > latencies.length) {
+                latencies = Arrays.copyOf(latencies, theirs.length);
+            }
+            for (int slot = 0; slot < theirs.length; slot++) {
+                long[] histogram = theirs[slot];
+                if (histogram != null) {
+                    if (latencies[slot] == null) {
+                        latencies[slot] = new long[CALLS + 1];
+                    }
+                    for (int b = 0; b <= CALLS; b++) {
+                        latencies[slot][b] += histogram[b];
+                    }
+                }
+            }
+        }
+    }
+
+    // All metrics at one moment
+    static final class Snapshot {
+        private final List<Class<?>> species;
+        private final long[] events;
+        private final long[][] latencies;
+
+        private Snapshot(List<Class<?>> species, long[] events, long[][] latencies) {
+            this.species = species;
+            this.events = events;
+            this.latencies = latencies;
+        }
+
+        public List<Class<?>> species() {
+            return species;
+        }
+
+        public long events(AnimalEvent event) {
+            return events[event.ordinal()];
+        }
+
+        public long calls(Class<?> type, AnimalBehavior behavior) {
+            return histogram(type, behavior)[CALLS];
+        }
+
+        // How many of the calls were timed
+        public long timed(Class<?> type, AnimalBehavior behavior) {
+            long[] histogram = histogram(type, behavior);
+            long timed = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                timed += histogram[b];
+            }
+            return timed;
+        }
+
+        public double meanNanos(Class<?> type, AnimalBehavior behavior) {
+            long timed = timed(type, behavior);
+            return timed == 0 ? 0 : (double) histogram(type, behavior)[TOTAL_NANOS] / timed;
+        }
+
+        // E.g. percentileNanos(Dog.class, AnimalBehavior.PLAY, 99); within 12.5% of the value
+        // among the timed calls
+        public long percentileNanos(Class<?> type, AnimalBehavior behavior, double percentile) {
+            long[] histogram = histogram(type, behavior);
+            long timed = timed(type, behavior);
+            long rank = Math.max(1, (long) Math.ceil(timed * percentile / 100));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += histogram[b];
+                if (seen >= rank) {
+                    return highestIn(b);
+                }
+            }
+            return 0;
+        }
+
+        private long[] histogram(Class<?> type, AnimalBehavior behavior) {
+            int index = species.indexOf(type);
+            int slot = index * BEHAVIORS + behavior.ordinal();
+            long[] histogram = index < 0 || slot >= latencies.length ? null : latencies[slot];
+            return histogram == null ? new long[CALLS + 1] : histogram;
+        }
+
+        // One line per species and behavior that was used, then every event that happened
+        public String report() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("%-10s %-12s %12s %10s %10s %10s %10s%n",
+                    "Species", "Behavior", "Calls", "Mean", "p50", "p99", "Max"));
+            for (Class<?> type : species) {
+                for (AnimalBehavior behavior : AnimalBehavior.values()) {
+                    long calls = calls(type, behavior);
+                    if (calls > 0) {
+                        out.append(String.format("%-10s %-12s %,12d %10s %10s %10s %10s%n",
+                                type.getSimpleName(), behavior.method, calls,
+                                duration((long) meanNanos(type, behavior)),
+                                duration(percentileNanos(type, behavior, 50)),
+                                duration(percentileNanos(type, behavior, 99)),
+                                duration(percentileNanos(type, behavior, 100))));
+                    }
+                }
+            }
+            out.append("Events:");
+            for (AnimalEvent event : AnimalEvent.values()) {
+                if (events(event) > 0) {
+                    out.append(String.format(" %s=%,d", event, events(event)));
+                }
+            }
+            return out.append(System.lineSeparator()).toString();
+        }
+
+        private static String duration(long nanos) {
+            if (nanos < 10_000) {
+                return nanos + " ns";
+            }
+            if (nanos < 10_000_000) {
+                return nanos / 1_000 + " us";
+            }
+            return nanos / 1_000_000 + " ms";
+        }
+    }
+}
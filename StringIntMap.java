@@ -0,0 +1,279 @@
+// A String -> int map without boxing, built on open addressing
+// Same operations as Hashmaps.java (put, get, remove, size), but instead of one Node object
+// and one Integer object per entry, everything lives in two arrays:
+//   keys[]    - the String key of each slot
+//   entries[] - the cached hash code and the int value of each slot, side by side
+//               (hash 0 marks an empty slot, so probing never has to touch keys[])
+// A key that collides just moves on to the next slot (linear probing).
+
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+public class StringIntMap {
+    public static final int DEFAULT_MISSING_VALUE = 0;
+    private static final int MIN_CAPACITY = 16;
+    private static final float MAX_LOAD = 0.5f; // Grow when half full, so probe runs stay short
+    // entries[] holds two ints per slot and no Java array reaches 2^31 elements
+    private static final int MAX_CAPACITY = 1 << 29;
+    public static final int MAX_SIZE = (int) (MAX_CAPACITY * MAX_LOAD);
+
+    private static final int EMPTY = 0;
+
+    private String[] keys;
+    private int[] entries; // entries[2 * slot] = hash, entries[2 * slot + 1] = value
+    private int size;
+    private int resizeAt;
+    private final int missingValue;
+
+    public StringIntMap() {
+        this(MIN_CAPACITY, DEFAULT_MISSING_VALUE);
+    }
+
+    // missingValue is what get() and remove() return for keys that are not in the map
+    public StringIntMap(int missingValue) {
+        this(MIN_CAPACITY, missingValue);
+    }
+
+    public StringIntMap(int expectedSize, int missingValue) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must not be negative: " + expectedSize);
+        }
+        this.missingValue = missingValue;
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int missingValue() {
+        return missingValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Returns the previous value, or missingValue if the key was not present
+    public int put(String key, int value) {
+        int hash = hash(key);
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        int slotHash;
+        while ((slotHash = entries[2 * slot]) != EMPTY) {
+            if (slotHash == hash && keys[slot].equals(key)) {
+                int previous = entries[2 * slot + 1];
+                entries[2 * slot + 1] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == MAX_SIZE) {
+            throw new IllegalStateException("StringIntMap is full: it holds at most " + MAX_SIZE + " entries");
+        }
+        keys[slot] = key;
+        entries[2 * slot] = hash;
+        entries[2 * slot + 1] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return missingValue;
+    }
+
+    // Unlike Integer-valued HashMap.get, a missing key cannot cause a NullPointerException
+    public int get(String key) {
+        int slot = find(key);
+        return slot < 0 ? missingValue : entries[2 * slot + 1];
+    }
+
+    public int getOrDefault(String key, int defaultValue) {
+        int slot = find(key);
+        return slot < 0 ? defaultValue : entries[2 * slot + 1];
+    }
+
+    public boolean containsKey(String key) {
+        return find(key) >= 0;
+    }
+
+    // Returns the removed value, or missingValue if the key was not present
+    public int remove(String key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return missingValue;
+        }
+        int removed = entries[2 * slot + 1];
+        deleteSlot(slot);
+        size--;
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(entries, EMPTY);
+        size = 0;
+    }
+
+    public void forEach(ObjIntConsumer<String> action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (entries[2 * slot] != EMPTY) {
+                action.accept(keys[slot], entries[2 * slot + 1]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (text.length() > 1) {
+                text.append(", ");
+            }
+            text.append(key).append('=').append(value);
+        });
+        return text.append('}').toString();
+    }
+
+    // Slot holding the key, or -1
+    private int find(String key) {
+        int hash = hash(key);
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        int slotHash;
+        while ((slotHash = entries[2 * slot]) != EMPTY) {
+            if (slotHash == hash && keys[slot].equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Backward-shift deletion: pull later entries of the same probe run into the gap,
+    // so no "deleted" markers are needed and lookups stay short
+    private void deleteSlot(int gap) {
+        int mask = keys.length - 1;
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int slotHash = entries[2 * slot];
+            if (slotHash == EMPTY) {
+                break;
+            }
+            int home = slotHash & mask;
+            // Move the entry only if its home slot is not between the gap and its current slot
+            boolean canMove = gap <= slot ? (home <= gap || home > slot) : (home <= gap && home > slot);
+            if (canMove) {
+                keys[gap] = keys[slot];
+                entries[2 * gap] = slotHash;
+                entries[2 * gap + 1] = entries[2 * slot + 1];
+                gap = slot;
+            }
+        }
+        keys[gap] = null;
+        entries[2 * gap] = EMPTY;
+    }
+
+    private void rehash(int newCapacity) {
+        String[] oldKeys = keys;
+        int[] oldEntries = entries;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int hash = oldEntries[2 * i];
+            if (hash != EMPTY) {
+                int slot = hash & mask;
+                while (entries[2 * slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                entries[2 * slot] = hash;
+                entries[2 * slot + 1] = oldEntries[2 * i + 1];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        entries = new int[2 * capacity];
+        resizeAt = (int) (capacity * MAX_LOAD);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        if (expectedSize > MAX_SIZE) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize + " (at most " + MAX_SIZE + ")");
+        }
+        int needed = (int) Math.ceil(expectedSize / (double) MAX_LOAD) + 1;
+        return Math.min(MAX_CAPACITY, Integer.highestOneBit(Math.max(MIN_CAPACITY, needed) - 1) << 1);
+    }
+
+    // String caches its own hashCode; mixing spreads similar keys ("Key1", "Key2") over the table.
+    // A hash of 0 would look like an empty slot, so it is replaced by 1.
+    private static int hash(String key) {
+        int h = Objects.requireNonNull(key, "key").hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        return h == EMPTY ? 1 : h;
+    }
+
+    // Demo: the same steps as Hashmaps.java, then a memory comparison with java.util.HashMap
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        // Create a map from String keys to int values (-1 means "not found")
+        StringIntMap map = new StringIntMap(-1);
+
+        // Add key-value pairs
+        map.put("One", 1);
+        map.put("Two", 2);
+        map.put("Three", 3);
+        System.out.println("StringIntMap: " + map);
+
+        // Access a value by key - no unboxing, no NullPointerException on a miss
+        int value = map.get("Two");
+        System.out.println("Value for key 'Two': " + value);
+        System.out.println("Value for key 'Four': " + map.get("Four"));
+
+        // Remove a key-value pair by key
+        map.remove("One");
+        System.out.println("StringIntMap after removal: " + map);
+
+        // Get the size
+        System.out.println("Size of StringIntMap: " + map.size());
+
+        // Memory per entry (the keys themselves are shared and not counted)
+        System.out.println("\nMemory for " + count + " entries:");
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = "Key" + i;
+        }
+
+        long baseline = usedMemory();
+        java.util.HashMap<String, Integer> boxed = new java.util.HashMap<>();
+        for (int i = 0; i < count; i++) {
+            boxed.put(keys[i], i);
+        }
+        long boxedBytes = usedMemory() - baseline;
+        Reference.reachabilityFence(boxed);
+        boxed = null;
+
+        baseline = usedMemory();
+        StringIntMap primitive = new StringIntMap();
+        for (int i = 0; i < count; i++) {
+            primitive.put(keys[i], i);
+        }
+        long primitiveBytes = usedMemory() - baseline;
+        Reference.reachabilityFence(primitive);
+
+        System.out.println("HashMap<String, Integer>: " + boxedBytes / count + " bytes/entry");
+        System.out.println("StringIntMap:             " + primitiveBytes / count + " bytes/entry");
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
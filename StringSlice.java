@@ -0,0 +1,377 @@
+// Zero-copy String operations with slices
+// A StringSlice is a window (start + length) onto a shared char[] buffer. Taking a substring,
+// trimming or splitting a slice only creates a new window - the characters are never copied.
+// Only toString() and the case-folding / replace methods, which must produce new characters,
+// write anything, and those write into a StringBuilder that the caller can reuse.
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class StringSlice implements CharSequence {
+    private final char[] buffer;
+    private final int start;
+    private final int length;
+    // True for slices of a String's copy, which nothing else can write to; a caller's buffer
+    // can change under the slice, so its hash is computed again every time
+    private final boolean fixed;
+    private int hash; // Cached like String.hashCode (0 = not computed yet), only when fixed
+
+    private StringSlice(char[] buffer, int start, int length, boolean fixed) {
+        this.buffer = buffer;
+        this.start = start;
+        this.length = length;
+        this.fixed = fixed;
+    }
+
+    // The one copy: the text is copied into a new buffer that all later slices share
+    public static StringSlice of(String text) {
+        char[] chars = text.toCharArray();
+        return new StringSlice(chars, 0, chars.length, true);
+    }
+
+    // A slice over an existing buffer (for example one a reader keeps refilling)
+    public static StringSlice of(char[] buffer, int start, int length) {
+        if (start < 0 || length < 0 || start + length > buffer.length) {
+            throw new IndexOutOfBoundsException("start " + start + ", length " + length + ", buffer " + buffer.length);
+        }
+        return new StringSlice(buffer, start, length, false);
+    }
+
+    // ========================== CharSequence ==========================
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return buffer[start + index];
+    }
+
+    @Override
+    public StringSlice subSequence(int from, int to) {
+        return substring(from, to);
+    }
+
+    // Copies the characters into a new String
+    @Override
+    public String toString() {
+        return new String(buffer, start, length);
+    }
+
+    // ========================== VIEWS (no copying) ==========================
+    public StringSlice substring(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new StringIndexOutOfBoundsException("begin " + from + ", end " + to + ", length " + length);
+        }
+        return new StringSlice(buffer, start + from, to - from, fixed);
+    }
+
+    public StringSlice substring(int from) {
+        return substring(from, length);
+    }
+
+    // Same rule as String.trim(): drop characters <= ' ' at both ends
+    public StringSlice trim() {
+        int from = start;
+        int to = start + length;
+        while (from < to && buffer[from] <= ' ') {
+            from++;
+        }
+        while (to > from && buffer[to - 1] <= ' ') {
+            to--;
+        }
+        return from == start && to == start + length ? this : new StringSlice(buffer, from, to - from, fixed);
+    }
+
+    public int indexOf(char c) {
+        for (int i = start, end = start + length; i < end; i++) {
+            if (buffer[i] == c) {
+                return i - start;
+            }
+        }
+        return -1;
+    }
+
+    public int indexOf(CharSequence target, int fromIndex) {
+        int targetLength = target.length();
+        if (targetLength == 0) {
+            return Math.min(Math.max(fromIndex, 0), length);
+        }
+        char first = target.charAt(0);
+        for (int i = Math.max(fromIndex, 0), last = length - targetLength; i <= last; i++) {
+            if (buffer[start + i] == first && regionMatches(i, target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int indexOf(CharSequence target) {
+        return indexOf(target, 0);
+    }
+
+    // Like String.split, but the delimiter is plain text (never a regular expression)
+    // and the parts are slices of this slice. Trailing empty parts are dropped, as String.split
+    // does, by both overloads: they always agree on the number of parts.
+    public StringSlice[] split(CharSequence delimiter) {
+        List<StringSlice> parts = new ArrayList<>();
+        int from = 0;
+        int at;
+        while ((at = indexOf(delimiter, from)) >= 0 && delimiter.length() > 0) {
+            parts.add(substring(from, at));
+            from = at + delimiter.length();
+        }
+        parts.add(substring(from));
+        // With no delimiter found the result is the whole slice, even when it is empty
+        int keep = parts.size() == 1 ? 1 : 0;
+        int count = parts.size();
+        while (count > keep && parts.get(count - 1).length == 0) {
+            count--;
+        }
+        return parts.subList(0, count).toArray(new StringSlice[0]);
+    }
+
+    // Allocation-free split: writes the start and end of part k to bounds[2k] and bounds[2k + 1]
+    // and returns how many parts there are (parts that do not fit in bounds are counted, not stored)
+    public int split(CharSequence delimiter, int[] bounds) {
+        int count = 0;
+        int kept = 0; // Parts up to the last one that is not empty
+        int from = 0;
+        int at;
+        while ((at = indexOf(delimiter, from)) >= 0 && delimiter.length() > 0) {
+            count = storeBounds(bounds, count, from, at);
+            kept = at > from ? count : kept;
+            from = at + delimiter.length();
+        }
+        count = storeBounds(bounds, count, from, length);
+        kept = length > from ? count : kept;
+        // With no delimiter found the result is the whole slice, even when it is empty
+        return count == 1 ? 1 : kept;
+    }
+
+    private static int storeBounds(int[] bounds, int count, int from, int to) {
+        if (2 * count + 1 < bounds.length) {
+            bounds[2 * count] = from;
+            bounds[2 * count + 1] = to;
+        }
+        return count + 1;
+    }
+
+    // ========================== COMPARING ==========================
+    public boolean contentEquals(CharSequence other) {
+        return other.length() == length && regionMatches(0, other);
+    }
+
+    // Fast path for ASCII; other characters follow the same rules as String.equalsIgnoreCase
+    public boolean equalsIgnoreCase(CharSequence other) {
+        if (other.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char a = buffer[start + i];
+            char b = other.charAt(i);
+            if (a == b) {
+                continue;
+            }
+            if (a < 128 && b < 128) {
+                if (foldAscii(a) != foldAscii(b)) {
+                    return false;
+                }
+                continue;
+            }
+            char upperA = Character.toUpperCase(a);
+            char upperB = Character.toUpperCase(b);
+            if (upperA != upperB && Character.toLowerCase(upperA) != Character.toLowerCase(upperB)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionMatches(int offset, CharSequence other) {
+        for (int i = 0, n = other.length(); i < n; i++) {
+            if (buffer[start + offset + i] != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof StringSlice slice && contentEquals(slice);
+    }
+
+    // Same value String.hashCode would give for the same characters
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && length > 0) {
+            for (int i = start, end = start + length; i < end; i++) {
+                h = 31 * h + buffer[i];
+            }
+            if (fixed) {
+                hash = h;
+            }
+        }
+        return h;
+    }
+
+    // ========================== WRITING ==========================
+    // Concatenation without creating intermediate Strings
+    public StringBuilder appendTo(StringBuilder out) {
+        return out.append(buffer, start, length);
+    }
+
+    // ASCII text is copied in one block and only the letters are changed in place afterwards
+    public StringBuilder toUpperCase(StringBuilder out) {
+        if (!isAscii()) {
+            return out.append(toString().toUpperCase());
+        }
+        int base = out.length();
+        out.append(buffer, start, length);
+        for (int i = 0; i < length; i++) {
+            char c = buffer[start + i];
+            if (c >= 'a' && c <= 'z') {
+                out.setCharAt(base + i, (char) (c - 32));
+            }
+        }
+        return out;
+    }
+
+    public StringBuilder toLowerCase(StringBuilder out) {
+        if (!isAscii()) {
+            return out.append(toString().toLowerCase());
+        }
+        int base = out.length();
+        out.append(buffer, start, length);
+        for (int i = 0; i < length; i++) {
+            char c = buffer[start + i];
+            if (c >= 'A' && c <= 'Z') {
+                out.setCharAt(base + i, (char) (c + 32));
+            }
+        }
+        return out;
+    }
+
+    public boolean isAscii() {
+        for (int i = start, end = start + length; i < end; i++) {
+            if (buffer[i] >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char foldAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+
+    // ========================== MULTI-REPLACE ==========================
+    // Replaces several targets in a single left-to-right pass. At each position the first
+    // matching target (in the order given) wins, and replaced text is never searched again.
+    public static final class Replacer {
+        private final String[] targets;
+        private final String[] replacements;
+        private final boolean[] firstChars = new boolean[128]; // Quick "could a target start here?" check
+        private boolean nonAsciiFirstChar;
+
+        public Replacer(String[] targets, String[] replacements) {
+            if (targets.length != replacements.length) {
+                throw new IllegalArgumentException(targets.length + " targets but " + replacements.length + " replacements");
+            }
+            this.targets = targets.clone();
+            this.replacements = replacements.clone();
+            for (String target : this.targets) {
+                if (target.isEmpty()) {
+                    throw new IllegalArgumentException("Targets must not be empty");
+                }
+                char first = target.charAt(0);
+                if (first < 128) {
+                    firstChars[first] = true;
+                } else {
+                    nonAsciiFirstChar = true;
+                }
+            }
+        }
+
+        // Appends the replaced text to out and returns how many replacements were made
+        public int replace(StringSlice in, StringBuilder out) {
+            int replaced = 0;
+            int copyFrom = 0;
+            int i = 0;
+            while (i < in.length) {
+                char c = in.buffer[in.start + i];
+                int match = c < 128 ? (firstChars[c] ? findTarget(in, i) : -1) : (nonAsciiFirstChar ? findTarget(in, i) : -1);
+                if (match >= 0) {
+                    out.append(in.buffer, in.start + copyFrom, i - copyFrom).append(replacements[match]);
+                    i += targets[match].length();
+                    copyFrom = i;
+                    replaced++;
+                } else {
+                    i++;
+                }
+            }
+            out.append(in.buffer, in.start + copyFrom, in.length - copyFrom);
+            return replaced;
+        }
+
+        private int findTarget(StringSlice in, int at) {
+            for (int t = 0; t < targets.length; t++) {
+                String target = targets[t];
+                if (target.length() <= in.length - at && in.regionMatches(at, target)) {
+                    return t;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // Demo: the same steps as strings.java, done with slices
+    public static void main(String[] args) {
+        StringBuilder out = new StringBuilder(); // Reused for everything that needs new characters
+
+        // Concatenation into one reusable builder
+        out.append("Hello").append(", ").append("Alice").append('!');
+        StringSlice message = StringSlice.of(out.toString());
+        System.out.println(message);
+
+        // Length and character at index
+        System.out.println("Length of message: " + message.length());
+        System.out.println("Character at index 7: " + message.charAt(7));
+
+        // Substring - a view, nothing is copied
+        System.out.println("Substring from index 7 to 12: " + message.substring(7, 12));
+
+        // Replace several words in one pass
+        Replacer replacer = new Replacer(new String[] {"Alice", "Hello"}, new String[] {"Bob", "Hi"});
+        out.setLength(0);
+        int replaced = replacer.replace(message, out);
+        System.out.println(out + " (" + replaced + " replacements)");
+
+        // Upper and lower case with the ASCII fast path
+        out.setLength(0);
+        System.out.println("Upper case: " + message.toUpperCase(out));
+        out.setLength(0);
+        System.out.println("Lower case: " + message.toLowerCase(out));
+        System.out.println("Equals \"HELLO, ALICE!\" ignoring case: " + message.equalsIgnoreCase("HELLO, ALICE!"));
+
+        // Trim - another view
+        StringSlice spaced = StringSlice.of("   Hello World!   ");
+        System.out.println("Trimmed string: '" + spaced.trim() + "'");
+
+        // Split into slices (no regular expression, no copied characters)
+        StringSlice[] words = message.split(", ");
+        System.out.println("First word: " + words[0]);
+        System.out.println("Second word: " + words[1]);
+
+        // Or without allocating at all: just the bounds of each part
+        int[] bounds = new int[8];
+        int parts = message.split(", ", bounds);
+        System.out.println(parts + " parts, second one spans [" + bounds[2] + ", " + bounds[3] + ")");
+    }
+}
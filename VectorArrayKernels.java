@@ -0,0 +1,294 @@
+// SIMD version of ArrayKernels, using the jdk.incubator.vector API
+// Each loop works on a whole vector of elements at a time (for example 8 ints with AVX2 or 16
+// with AVX-512, whatever SPECIES_PREFERRED is on this CPU). The few elements left at the end
+// that do not fill a vector are handled by a plain loop ("tail").
+//
+// Needs --add-modules jdk.incubator.vector to compile and run; see ArrayKernels.java.
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+public final class VectorArrayKernels implements ArrayKernels {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    public VectorArrayKernels() {
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + INTS.length() + " int lanes)";
+    }
+
+    // Exact like the scalar long sum, without widening every int to a long: each int is split into
+    // its low 16 bits (0..65535) and its high 16 bits (-32768..32767), and both halves are summed in
+    // int lanes. A block of BLOCK vectors cannot overflow those lane sums, or their total over all
+    // lanes (at most 32767 * 65535), so they are only turned into a long once per block.
+    private static final int BLOCK = Short.MAX_VALUE / INTS.length();
+
+    @Override
+    public long sum(int[] values) {
+        int lanes = INTS.length();
+        int bound = INTS.loopBound(values.length);
+        long sum = 0;
+        int i = 0;
+        while (i < bound) {
+            int blockEnd = (int) Math.min(bound, i + (long) BLOCK * lanes);
+            IntVector low = IntVector.zero(INTS);
+            IntVector high = IntVector.zero(INTS);
+            for (; i < blockEnd; i += lanes) {
+                IntVector v = IntVector.fromArray(INTS, values, i);
+                low = low.add(v.and(0xFFFF));
+                high = high.add(v.lanewise(VectorOperators.ASHR, 16));
+            }
+            sum += ((long) high.reduceLanes(VectorOperators.ADD) << 16) + low.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < values.length; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double sum(double[] values) {
+        DoubleVector sums = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(values.length); i < bound; i += DOUBLES.length()) {
+            sums = sums.add(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < values.length; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int min(int[] values) {
+        requireElements(values.length);
+        IntVector min = IntVector.broadcast(INTS, values[0]);
+        int i = 0;
+        for (int bound = INTS.loopBound(values.length); i < bound; i += INTS.length()) {
+            min = min.min(IntVector.fromArray(INTS, values, i));
+        }
+        int result = min.reduceLanes(VectorOperators.MIN);
+        for (; i < values.length; i++) {
+            result = Math.min(result, values[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public int max(int[] values) {
+        requireElements(values.length);
+        IntVector max = IntVector.broadcast(INTS, values[0]);
+        int i = 0;
+        for (int bound = INTS.loopBound(values.length); i < bound; i += INTS.length()) {
+            max = max.max(IntVector.fromArray(INTS, values, i));
+        }
+        int result = max.reduceLanes(VectorOperators.MAX);
+        for (; i < values.length; i++) {
+            result = Math.max(result, values[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public double min(double[] values) {
+        requireElements(values.length);
+        DoubleVector min = DoubleVector.broadcast(DOUBLES, values[0]);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(values.length); i < bound; i += DOUBLES.length()) {
+            min = min.min(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double result = min.reduceLanes(VectorOperators.MIN);
+        for (; i < values.length; i++) {
+            result = Math.min(result, values[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public double max(double[] values) {
+        requireElements(values.length);
+        DoubleVector max = DoubleVector.broadcast(DOUBLES, values[0]);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(values.length); i < bound; i += DOUBLES.length()) {
+            max = max.max(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double result = max.reduceLanes(VectorOperators.MAX);
+        for (; i < values.length; i++) {
+            result = Math.max(result, values[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public void scale(int[] values, int factor) {
+        int i = 0;
+        for (int bound = INTS.loopBound(values.length); i < bound; i += INTS.length()) {
+            IntVector.fromArray(INTS, values, i).mul(factor).intoArray(values, i);
+        }
+        for (; i < values.length; i++) {
+            values[i] *= factor;
+        }
+    }
+
+    @Override
+    public void scale(double[] values, double factor) {
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(values.length); i < bound; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, values, i).mul(factor).intoArray(values, i);
+        }
+        for (; i < values.length; i++) {
+            values[i] *= factor;
+        }
+    }
+
+    // Arrays.fill is already compiled to wide vector stores, and measured faster than a Vector API loop
+    @Override
+    public void fill(int[] values, int value) {
+        Arrays.fill(values, value);
+    }
+
+    @Override
+    public void fill(double[] values, double value) {
+        Arrays.fill(values, value);
+    }
+
+    // Prefix sums inside one vector: add the vector shifted up by 1, 2, 4 and 8 lanes (zeros shifted
+    // in), then add the running total carried over from the previous vector to every lane.
+    // The shifts are fixed shuffles in constants, which the JIT turns into single permute instructions.
+    // CPUs with more than 16 lanes per vector (not x86) use the scalar loop instead.
+    private static final VectorShuffle<Integer> INT_SHIFT_1 = VectorShuffle.fromOp(INTS, lane -> lane - 1);
+    private static final VectorShuffle<Integer> INT_SHIFT_2 = VectorShuffle.fromOp(INTS, lane -> lane - 2);
+    private static final VectorShuffle<Integer> INT_SHIFT_4 = VectorShuffle.fromOp(INTS, lane -> lane - 4);
+    private static final VectorShuffle<Integer> INT_SHIFT_8 = VectorShuffle.fromOp(INTS, lane -> lane - 8);
+    private static final VectorShuffle<Integer> INT_LAST = VectorShuffle.fromOp(INTS, lane -> INTS.length() - 1);
+    private static final VectorMask<Integer> INT_FROM_1 = VectorMask.fromLong(INTS, -1L << 1);
+    private static final VectorMask<Integer> INT_FROM_2 = VectorMask.fromLong(INTS, -1L << 2);
+    private static final VectorMask<Integer> INT_FROM_4 = VectorMask.fromLong(INTS, -1L << 4);
+    private static final VectorMask<Integer> INT_FROM_8 = VectorMask.fromLong(INTS, -1L << 8);
+
+    private static final VectorShuffle<Double> DOUBLE_SHIFT_1 = VectorShuffle.fromOp(DOUBLES, lane -> lane - 1);
+    private static final VectorShuffle<Double> DOUBLE_SHIFT_2 = VectorShuffle.fromOp(DOUBLES, lane -> lane - 2);
+    private static final VectorShuffle<Double> DOUBLE_SHIFT_4 = VectorShuffle.fromOp(DOUBLES, lane -> lane - 4);
+    private static final VectorShuffle<Double> DOUBLE_SHIFT_8 = VectorShuffle.fromOp(DOUBLES, lane -> lane - 8);
+    private static final VectorShuffle<Double> DOUBLE_LAST = VectorShuffle.fromOp(DOUBLES, lane -> DOUBLES.length() - 1);
+    private static final VectorMask<Double> DOUBLE_FROM_1 = VectorMask.fromLong(DOUBLES, -1L << 1);
+    private static final VectorMask<Double> DOUBLE_FROM_2 = VectorMask.fromLong(DOUBLES, -1L << 2);
+    private static final VectorMask<Double> DOUBLE_FROM_4 = VectorMask.fromLong(DOUBLES, -1L << 4);
+    private static final VectorMask<Double> DOUBLE_FROM_8 = VectorMask.fromLong(DOUBLES, -1L << 8);
+
+    // int additions wrap exactly like the scalar loop, so the results are identical
+    @Override
+    public void prefixSum(int[] values) {
+        int lanes = INTS.length();
+        if (lanes > 16) {
+            SCALAR.prefixSum(values);
+            return;
+        }
+        IntVector carry = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = INTS.loopBound(values.length); i < bound; i += lanes) {
+            IntVector v = IntVector.fromArray(INTS, values, i);
+            v = v.add(v.rearrange(INT_SHIFT_1, INT_FROM_1));
+            if (lanes > 2) {
+                v = v.add(v.rearrange(INT_SHIFT_2, INT_FROM_2));
+            }
+            if (lanes > 4) {
+                v = v.add(v.rearrange(INT_SHIFT_4, INT_FROM_4));
+            }
+            if (lanes > 8) {
+                v = v.add(v.rearrange(INT_SHIFT_8, INT_FROM_8));
+            }
+            v = v.add(carry);
+            v.intoArray(values, i);
+            carry = v.rearrange(INT_LAST);
+        }
+        int total = i > 0 ? values[i - 1] : 0;
+        for (; i < values.length; i++) {
+            total += values[i];
+            values[i] = total;
+        }
+    }
+
+    // Adds in a different order than the scalar loop, so the last bits can differ
+    @Override
+    public void prefixSum(double[] values) {
+        int lanes = DOUBLES.length();
+        if (lanes > 16) {
+            SCALAR.prefixSum(values);
+            return;
+        }
+        DoubleVector carry = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(values.length); i < bound; i += lanes) {
+            DoubleVector v = DoubleVector.fromArray(DOUBLES, values, i);
+            v = v.add(v.rearrange(DOUBLE_SHIFT_1, DOUBLE_FROM_1));
+            if (lanes > 2) {
+                v = v.add(v.rearrange(DOUBLE_SHIFT_2, DOUBLE_FROM_2));
+            }
+            if (lanes > 4) {
+                v = v.add(v.rearrange(DOUBLE_SHIFT_4, DOUBLE_FROM_4));
+            }
+            if (lanes > 8) {
+                v = v.add(v.rearrange(DOUBLE_SHIFT_8, DOUBLE_FROM_8));
+            }
+            v = v.add(carry);
+            v.intoArray(values, i);
+            carry = v.rearrange(DOUBLE_LAST);
+        }
+        double total = i > 0 ? values[i - 1] : 0;
+        for (; i < values.length; i++) {
+            total += values[i];
+            values[i] = total;
+        }
+    }
+
+    @Override
+    public int indexOf(int[] values, int key) {
+        int i = 0;
+        for (int bound = INTS.loopBound(values.length); i < bound; i += INTS.length()) {
+            VectorMask<Integer> found = IntVector.fromArray(INTS, values, i).eq(key);
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        for (; i < values.length; i++) {
+            if (values[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int indexOf(double[] values, double key) {
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(values.length); i < bound; i += DOUBLES.length()) {
+            VectorMask<Double> found = DoubleVector.fromArray(DOUBLES, values, i).eq(key);
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        for (; i < values.length; i++) {
+            if (values[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void requireElements(int length) {
+        if (length == 0) {
+            throw new IllegalArgumentException("Array must not be empty");
+        }
+    }
+}
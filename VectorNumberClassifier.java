@@ -0,0 +1,85 @@
+// Vector API version of NumberClassifier.Batch
+// The same bit arithmetic as NumberClassifier.classify, on a whole vector of ints at a time.
+// The int codes are narrowed to bytes in one step (I2B) and stored as one block.
+//
+// Needs --add-modules jdk.incubator.vector to compile and run; see ArrayKernels.java.
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+public final class VectorNumberClassifier implements NumberClassifier.Batch {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // As many byte lanes as int lanes (needs at least 8 lanes: there is no 32-bit shape)
+    private static final boolean NARROW_SUPPORTED = INTS.length() >= 8;
+    private static final VectorSpecies<Byte> BYTES = NARROW_SUPPORTED
+            ? ByteVector.SPECIES_PREFERRED.withShape(VectorShape.forBitSize(INTS.length() * Byte.SIZE))
+            : ByteVector.SPECIES_64;
+
+    public VectorNumberClassifier() {
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + INTS.length() + " int lanes)";
+    }
+
+    @Override
+    public void classify(int[] numbers, byte[] codes) {
+        if (!NARROW_SUPPORTED) {
+            NumberClassifier.SCALAR.classify(numbers, codes);
+            return;
+        }
+        NumberClassifier.checkLengths(numbers, codes);
+        int i = 0;
+        for (int bound = INTS.loopBound(numbers.length); i < bound; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, numbers, i);
+            IntVector negative = v.lanewise(VectorOperators.LSHR, 31);
+            IntVector positive = v.neg().and(v.not()).lanewise(VectorOperators.LSHR, 31);
+            IntVector code = positive.lanewise(VectorOperators.LSHL, 1)
+                    .or(negative.lanewise(VectorOperators.LSHL, 2))
+                    .or(v.and(1));
+            ((ByteVector) code.convertShape(VectorOperators.I2B, BYTES, 0)).intoArray(codes, i);
+        }
+        for (; i < numbers.length; i++) {
+            codes[i] = NumberClassifier.classify(numbers[i]);
+        }
+    }
+
+    // Lane counters are ints: each lane sees at most numbers.length / lanes values, so they cannot overflow
+    @Override
+    public long[] histogram(int[] numbers) {
+        IntVector negative = IntVector.zero(INTS);
+        IntVector negativeOdd = IntVector.zero(INTS);
+        IntVector positive = IntVector.zero(INTS);
+        IntVector positiveOdd = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = INTS.loopBound(numbers.length); i < bound; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, numbers, i);
+            IntVector isNegative = v.lanewise(VectorOperators.LSHR, 31);
+            IntVector isPositive = v.neg().and(v.not()).lanewise(VectorOperators.LSHR, 31);
+            IntVector isOdd = v.and(1);
+            negative = negative.add(isNegative);
+            negativeOdd = negativeOdd.add(isNegative.and(isOdd));
+            positive = positive.add(isPositive);
+            positiveOdd = positiveOdd.add(isPositive.and(isOdd));
+        }
+        long negativeCount = negative.reduceLanesToLong(VectorOperators.ADD);
+        long negativeOddCount = negativeOdd.reduceLanesToLong(VectorOperators.ADD);
+        long positiveCount = positive.reduceLanesToLong(VectorOperators.ADD);
+        long positiveOddCount = positiveOdd.reduceLanesToLong(VectorOperators.ADD);
+        for (; i < numbers.length; i++) {
+            int number = numbers[i];
+            int isNegative = number >>> 31;
+            int isPositive = (-number & ~number) >>> 31;
+            int isOdd = number & 1;
+            negativeCount += isNegative;
+            negativeOddCount += isNegative & isOdd;
+            positiveCount += isPositive;
+            positiveOddCount += isPositive & isOdd;
+        }
+        return NumberClassifier.histogram(numbers.length, negativeCount, negativeOddCount, positiveCount, positiveOddCount);
+    }
+}
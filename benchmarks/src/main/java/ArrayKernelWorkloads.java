@@ -0,0 +1,37 @@
+import java.util.function.LongSupplier;
+
+// ArrayKernels workloads for the JMH benchmarks (see benchmarks.Workloads).
+// Uses whichever implementation ArrayKernels.get() selected at startup.
+public class ArrayKernelWorkloads {
+    public static String selected() {
+        return ArrayKernels.get().name();
+    }
+
+    public static LongSupplier kernel(String operation, int[] ints, double[] doubles) {
+        ArrayKernels kernels = ArrayKernels.get();
+        return switch (operation) {
+            case "sumInt" -> () -> kernels.sum(ints);
+            case "sumDouble" -> () -> (long) kernels.sum(doubles);
+            case "maxInt" -> () -> kernels.max(ints);
+            case "minDouble" -> () -> (long) kernels.min(doubles);
+            case "scaleInt" -> () -> {
+                kernels.scale(ints, -1);
+                return ints[0];
+            };
+            case "scaleDouble" -> () -> {
+                kernels.scale(doubles, -1.0);
+                return (long) doubles[0];
+            };
+            case "fillInt" -> () -> {
+                kernels.fill(ints, 7);
+                return ints[ints.length - 1];
+            };
+            case "prefixSumInt" -> () -> {
+                kernels.prefixSum(ints);
+                return ints[ints.length - 1];
+            };
+            case "indexOfInt" -> () -> kernels.indexOf(ints, -1);
+            default -> throw new IllegalArgumentException("Unknown kernel: " + operation);
+        };
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.Random;
+
+// Batch call workloads for the JMH benchmarks (see benchmarks.Workloads). The populations
+// are shuffled mixes of 3 species (Dog, Cat, Bird) or more: the extra species below are
+// only here to make the hierarchy wider, the way new Animal subclasses would.
+public class BatchWorkloads {
+    // call is "sound" or "play"; mode is "plain" (one loop over the Animal[]), "grouped"
+    // or "inOrder" (AnimalBatch)
+    public static Runnable calls(int count, int species, String call, String mode) {
+        Animal.setEventSink(AnimalEventSink.NONE);
+        Animal[] animals = population(count, species);
+        AnimalBatch batch = AnimalBatch.of(animals);
+        boolean sound = call.equals("sound");
+        return switch (mode) {
+            case "plain" -> sound ? () -> {
+                for (Animal animal : animals) {
+                    animal.makeSound();
+                }
+            } : () -> {
+                for (Animal animal : animals) {
+                    if (animal instanceof Playable playable) {
+                        playable.play();
+                    }
+                }
+            };
+            case "grouped" -> sound ? batch::makeAllSound : batch::playAll;
+            case "inOrder" -> sound ? batch::makeAllSoundInOrder : batch::playAllInOrder;
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        };
+    }
+
+    static Animal[] population(int count, int species) {
+        Random random = new Random(42);
+        Animal[] animals = new Animal[count];
+        for (int i = 0; i < count; i++) {
+            animals[i] = switch (random.nextInt(species)) {
+                case 0 -> new Dog("Dog" + i, i % 15, "Beagle");
+                case 1 -> new Cat("Cat" + i, i % 15, i % 2 == 0);
+                case 2 -> new Bird("Bird" + i, i % 15, i % 5 != 0);
+                case 3 -> new Rabbit("Rabbit" + i, i % 15);
+                case 4 -> new Hamster("Hamster" + i, i % 15);
+                case 5 -> new Ferret("Ferret" + i, i % 15);
+                case 6 -> new Parrot("Parrot" + i, i % 15);
+                case 7 -> new Turtle("Turtle" + i, i % 15);
+                case 8 -> new Goat("Goat" + i, i % 15);
+                default -> new Pony("Pony" + i, i % 15);
+            };
+        }
+        return animals;
+    }
+}
+
+// ========================== EXTRA SPECIES ==========================
+// Small playable pets. They count their sounds instead of sending events, and play until
+// they are tired, then start over with full energy.
+abstract class SmallPet extends Animal implements Playable {
+    protected double energy = MAX_ENERGY;
+    protected int sounds;
+
+    SmallPet(String name, int age) {
+        super(name, age);
+    }
+
+    protected void play(double effort) {
+        energy = energy > effort ? energy - effort : MAX_ENERGY;
+        changed();
+    }
+
+    @Override
+    public void move() {
+        play(2);
+    }
+
+    @Override
+    public void rest() {
+        energy = MAX_ENERGY;
+        changed();
+    }
+}
+
+class Rabbit extends SmallPet {
+    Rabbit(String name, int age) { super(name, age); }
+    @Override public void makeSound() { sounds += 1; }
+    @Override public void play() { play(6); }
+}
+
+class Hamster extends SmallPet {
+    Hamster(String name, int age) { super(name, age); }
+    @Override public void makeSound() { sounds += 2; }
+    @Override public void play() { play(4); }
+}
+
+class Ferret extends SmallPet {
+    Ferret(String name, int age) { super(name, age); }
+    @Override public void makeSound() { sounds += 3; }
+    @Override public void play() { play(9); }
+}
+
+class Parrot extends SmallPet {
+    Parrot(String name, int age) { super(name, age); }
+    @Override public void makeSound() { sounds += 4; }
+    @Override public void play() { play(5); }
+}
+
+class Turtle extends SmallPet {
+    Turtle(String name, int age) { super(name, age); }
+    @Override public void makeSound() { sounds += 5; }
+    @Override public void play() { play(1); }
+}
+
+class Goat extends SmallPet {
+    Goat(String name, int age) { super(name, age); }
+    @Override public void makeSound() { sounds += 6; }
+    @Override public void play() { play(11); }
+}
+
+class Pony extends SmallPet {
+    Pony(String name, int age) { super(name, age); }
+    @Override public void makeSound() { sounds += 7; }
+    @Override public void play() { play(8); }
+}
@@ -0,0 +1,54 @@
+// Bulk Playable workloads for the JMH benchmarks (see benchmarks.Workloads)
+public class BulkWorkloads {
+    // A ward of dogs or cats played with and then rested, one pass each: through play() and
+    // rest() on every animal, or through playAll() and restAll() on a ShelterStore's columns
+    public static Runnable ward(int count, String species, boolean bulk) {
+        Animal.setEventSink(AnimalEventSink.NONE);
+        if (bulk) {
+            ShelterStore store = new ShelterStore();
+            for (int i = 0; i < count; i++) {
+                if (species.equals("dog")) {
+                    store.addDog("Dog" + i, i % 15, "Beagle");
+                } else {
+                    store.addCat("Cat" + i, i % 15, i % 2 == 0);
+                }
+            }
+            if (species.equals("dog")) {
+                return () -> {
+                    store.dogs.playAll();
+                    store.dogs.restAll();
+                };
+            }
+            return () -> {
+                store.cats.playAll();
+                store.cats.restAll();
+            };
+        }
+        if (species.equals("dog")) {
+            Dog[] dogs = new Dog[count];
+            for (int i = 0; i < count; i++) {
+                dogs[i] = new Dog("Dog" + i, i % 15, "Beagle");
+            }
+            return () -> {
+                for (Dog dog : dogs) {
+                    dog.play();
+                }
+                for (Dog dog : dogs) {
+                    dog.rest();
+                }
+            };
+        }
+        Cat[] cats = new Cat[count];
+        for (int i = 0; i < count; i++) {
+            cats[i] = new Cat("Cat" + i, i % 15, i % 2 == 0);
+        }
+        return () -> {
+            for (Cat cat : cats) {
+                cat.play();
+            }
+            for (Cat cat : cats) {
+                cat.rest();
+            }
+        };
+    }
+}
@@ -0,0 +1,26 @@
+import java.util.function.Supplier;
+
+// NumberClassifier workloads for the JMH benchmarks (see benchmarks.Workloads).
+// implementation is "scalar" or "selected" (the Vector API version when it is available).
+public class ClassifierWorkloads {
+    public static String selected() {
+        return NumberClassifier.batch().name();
+    }
+
+    public static Supplier<Object> classify(String implementation, int[] numbers, byte[] codes) {
+        NumberClassifier.Batch batch = batch(implementation);
+        return () -> {
+            batch.classify(numbers, codes);
+            return codes;
+        };
+    }
+
+    public static Supplier<Object> histogram(String implementation, int[] numbers) {
+        NumberClassifier.Batch batch = batch(implementation);
+        return () -> batch.histogram(numbers);
+    }
+
+    private static NumberClassifier.Batch batch(String implementation) {
+        return implementation.equals("scalar") ? NumberClassifier.SCALAR : NumberClassifier.batch();
+    }
+}
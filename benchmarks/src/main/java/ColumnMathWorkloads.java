@@ -0,0 +1,30 @@
+import java.util.function.LongSupplier;
+
+// ColumnMath workloads for the JMH benchmarks (see benchmarks.Workloads).
+// mode is an Overflow name (WRAP, CHECKED, SATURATE); comparison a Comparison name.
+public class ColumnMathWorkloads {
+    public static LongSupplier add(String mode, int[] a, int[] b, int[] out) {
+        ColumnMath.Overflow overflow = ColumnMath.Overflow.valueOf(mode);
+        long[] problems = ColumnMath.newBitmap(a.length);
+        return () -> ColumnMath.apply(ColumnMath.Operator.ADD, overflow, a, b, out, problems);
+    }
+
+    public static LongSupplier multiply(String mode, long[] a, long[] b, long[] out) {
+        ColumnMath.Overflow overflow = ColumnMath.Overflow.valueOf(mode);
+        long[] problems = ColumnMath.newBitmap(a.length);
+        return () -> ColumnMath.apply(ColumnMath.Operator.MULTIPLY, overflow, a, b, out, problems);
+    }
+
+    // (a > b) && !(a == 0), as one bitmap; returns how many elements match
+    public static LongSupplier filter(int[] a, int[] b, int[] zeros) {
+        long[] greater = ColumnMath.newBitmap(a.length);
+        long[] zero = ColumnMath.newBitmap(a.length);
+        return () -> {
+            ColumnMath.compare(ColumnMath.Comparison.GREATER, a, b, greater);
+            ColumnMath.compare(ColumnMath.Comparison.EQUAL, a, zeros, zero);
+            ColumnMath.not(zero, a.length, zero);
+            ColumnMath.and(greater, zero, greater);
+            return ColumnMath.cardinality(greater);
+        };
+    }
+}
@@ -0,0 +1,25 @@
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Day lookup workloads for the JMH benchmarks (see benchmarks.Workloads)
+public class DayWorkloads {
+    public static Supplier<Object> namesOf(int[] days) {
+        String[] names = new String[days.length];
+        return () -> {
+            Day.namesOf(days, names);
+            return names;
+        };
+    }
+
+    public static LongSupplier numbersOf(String[] names) {
+        int[] days = new int[names.length];
+        return () -> {
+            Day.numbersOf(names, days);
+            long sum = 0;
+            for (int day : days) {
+                sum += day;
+            }
+            return sum;
+        };
+    }
+}
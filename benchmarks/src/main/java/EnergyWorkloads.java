@@ -0,0 +1,14 @@
+// Energy accounting workloads for the JMH benchmarks (see benchmarks.Workloads)
+public class EnergyWorkloads {
+    // One keeper's turn with a dog: throw the ball, then let it rest. Every call makes a new
+    // dog; share the Runnable between threads to have them all fight over the same dog
+    public static Runnable playAndRest(boolean concurrent) {
+        Animal.setEventSink(AnimalEventSink.NONE);
+        Animal.setConcurrent(concurrent);
+        Dog dog = new Dog("Buddy", 3, "Golden Retriever");
+        return () -> {
+            dog.play();
+            dog.rest();
+        };
+    }
+}
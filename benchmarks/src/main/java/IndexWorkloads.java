@@ -0,0 +1,51 @@
+import java.util.function.LongSupplier;
+
+// Index workloads for the JMH benchmarks (see benchmarks.Workloads). The population is the
+// usual mix of dogs, cats and birds after a simulated day, so energy and hunger vary.
+// All workloads of one size share the population and its index (an animal can only be in one).
+public class IndexWorkloads {
+    private static Animal[] animals;
+    private static ShelterIndex index;
+
+    // Hungry dogs with less than 30 energy: from the index, or by asking every animal
+    public static LongSupplier hungryTiredDogs(int count, boolean indexed) {
+        prepare(count);
+        Animal[] population = animals;
+        if (!indexed) {
+            return () -> {
+                long matches = 0;
+                for (Animal animal : population) {
+                    if (animal instanceof Dog dog && dog.isHungry() && dog.getEnergy() < 30) {
+                        matches++;
+                    }
+                }
+                return matches;
+            };
+        }
+        return query(index.query().hungry(true).species(Dog.class).energyBelow(30));
+    }
+
+    // Young cats with at least 50 energy: two ranges
+    public static LongSupplier youngLivelyCats(int count) {
+        prepare(count);
+        return query(index.query().species(Cat.class).ageBetween(0, 2).energyAtLeast(50));
+    }
+
+    private static LongSupplier query(ShelterQuery query) {
+        long[] bits = ColumnMath.newBitmap(index.slots());
+        return () -> query.evaluate(bits);
+    }
+
+    private static void prepare(int count) {
+        if (animals != null && animals.length == count) {
+            return;
+        }
+        Animal.setEventSink(AnimalEventSink.NONE);
+        animals = null;
+        index = null;
+        Animal[] population = ShelterWorkloads.population(count, true);
+        new ShelterSimulation(population, 42).runUntil(ShelterSimulation.MINUTES_PER_DAY);
+        animals = population;
+        index = new ShelterIndex(population);
+    }
+}
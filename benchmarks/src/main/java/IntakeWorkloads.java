@@ -0,0 +1,49 @@
+// Intake churn workloads for the JMH benchmarks (see benchmarks.Workloads): each run admits
+// one animal and discharges the one admitted `live` runs earlier, like shelter_intake.java
+public class IntakeWorkloads {
+    private static final String[] NAMES = new String[500];
+    private static final String[] BREEDS = new String[300];
+
+    static {
+        for (int i = 0; i < NAMES.length; i++) {
+            NAMES[i] = "Pet" + Integer.toString(i * 7919, 36);
+        }
+        for (int i = 0; i < BREEDS.length; i++) {
+            BREEDS[i] = "Breed " + Integer.toString(i * 104729, 36);
+        }
+    }
+
+    // pooled: through AnimalIntake; otherwise new Dog(...) with fresh Strings
+    public static Runnable churn(int live, boolean pooled) {
+        Animal.setEventSink(AnimalEventSink.NONE);
+        AnimalIntake intake = pooled ? new AnimalIntake() : null;
+        Animal[] animals = new Animal[live];
+        StringBuilder name = new StringBuilder();
+        StringBuilder breed = new StringBuilder();
+        long[] next = {0};
+        return () -> {
+            long n = next[0]++;
+            int slot = (int) (n % live);
+            if (animals[slot] != null) {
+                if (pooled) {
+                    intake.discharge(animals[slot]);
+                } else {
+                    animals[slot].leave();
+                }
+            }
+            int pick = (int) (n * 2654435761L >>> 7) & 0x7fffffff;
+            name.setLength(0);
+            name.append(NAMES[pick % NAMES.length]);
+            int age = (int) (n % 15);
+            animals[slot] = switch ((int) (n % 3)) {
+                case 0 -> {
+                    breed.setLength(0);
+                    breed.append(BREEDS[(pick >>> 9) % BREEDS.length]);
+                    yield pooled ? intake.admitDog(name, age, breed) : new Dog(name.toString(), age, breed.toString());
+                }
+                case 1 -> pooled ? intake.admitCat(name, age, n % 2 == 0) : new Cat(name.toString(), age, n % 2 == 0);
+                default -> pooled ? intake.admitBird(name, age, n % 5 != 0) : new Bird(name.toString(), age, n % 5 != 0);
+            };
+        };
+    }
+}
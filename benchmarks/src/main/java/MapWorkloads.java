@@ -0,0 +1,44 @@
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// StringIntMap workloads for the JMH benchmarks (see benchmarks.Workloads)
+public class MapWorkloads {
+    public static Supplier<Object> put(String[] keys) {
+        return () -> {
+            StringIntMap map = new StringIntMap();
+            for (int i = 0; i < keys.length; i++) {
+                map.put(keys[i], i);
+            }
+            return map;
+        };
+    }
+
+    public static LongSupplier get(String[] keys) {
+        StringIntMap map = filled(keys);
+        return () -> {
+            long sum = 0;
+            for (String key : keys) {
+                sum += map.get(key);
+            }
+            return sum;
+        };
+    }
+
+    public static Supplier<Object> remove(String[] keys) {
+        return () -> {
+            StringIntMap map = filled(keys);
+            for (String key : keys) {
+                map.remove(key);
+            }
+            return map;
+        };
+    }
+
+    private static StringIntMap filled(String[] keys) {
+        StringIntMap map = new StringIntMap(keys.length, StringIntMap.DEFAULT_MISSING_VALUE);
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,17 @@
+import java.util.function.LongSupplier;
+
+// Narrowing workloads for the JMH benchmarks (see benchmarks.Workloads): round half-even,
+// saturate and report NaN, the way an ingestion pipeline would use it
+public class NarrowingWorkloads {
+    public static LongSupplier toInts(double[] values, int[] out) {
+        long[] problems = ColumnMath.newBitmap(values.length);
+        return () -> Narrowing.toInts(values, out, Narrowing.Rounding.HALF_EVEN, ColumnMath.Overflow.SATURATE,
+                Narrowing.NanPolicy.REPORT, problems);
+    }
+
+    public static LongSupplier toShorts(double[] values, short[] out) {
+        long[] problems = ColumnMath.newBitmap(values.length);
+        return () -> Narrowing.toShorts(values, out, Narrowing.Rounding.HALF_EVEN, ColumnMath.Overflow.SATURATE,
+                Narrowing.NanPolicy.REPORT, problems);
+    }
+}
@@ -0,0 +1,23 @@
+// Shelter workloads for the JMH benchmarks (see benchmarks.Workloads).
+// This class is in the unnamed package, next to the classes from oops.java.
+public class ShelterWorkloads {
+    // Every animal of the population calls makeSound() once per run
+    public static Runnable makeAllAnimalsSound(int count, boolean mixed) {
+        Animal.setEventSink(AnimalEventSink.NONE);
+        Animal[] animals = population(count, mixed);
+        return () -> AnimalShelter.makeAllAnimalsSound(animals);
+    }
+
+    // Dogs only, or dogs, cats and birds taking turns
+    static Animal[] population(int count, boolean mixed) {
+        Animal[] animals = new Animal[count];
+        for (int i = 0; i < count; i++) {
+            switch (mixed ? i % 3 : 0) {
+                case 0 -> animals[i] = new Dog("Dog" + i, i % 15, "Beagle");
+                case 1 -> animals[i] = new Cat("Cat" + i, i % 15, i % 2 == 0);
+                default -> animals[i] = new Bird("Bird" + i, i % 15, i % 5 != 0);
+            }
+        }
+        return animals;
+    }
+}
@@ -0,0 +1,11 @@
+// Discrete-event simulation workloads for the JMH benchmarks (see benchmarks.Workloads).
+// The population is the usual mix of dogs, cats and birds, simulated for a day first so
+// the queue holds its steady-state number of events.
+public class SimulationWorkloads {
+    public static Runnable run(int count, int events) {
+        Animal.setEventSink(AnimalEventSink.NONE);
+        ShelterSimulation simulation = new ShelterSimulation(ShelterWorkloads.population(count, true), 42);
+        simulation.runUntil(ShelterSimulation.MINUTES_PER_DAY);
+        return () -> simulation.run(events);
+    }
+}
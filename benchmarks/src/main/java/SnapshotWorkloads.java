@@ -0,0 +1,64 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Snapshot workloads for the JMH benchmarks (see benchmarks.Workloads): saving and loading the
+// usual mix of dogs, cats and birds with ShelterSnapshot and with Java serialization.
+// Each workload has its own temporary file, deleted when the JVM exits.
+public class SnapshotWorkloads {
+    interface FileTask {
+        void run(Path file) throws IOException;
+    }
+
+    public static Runnable write(int count) throws IOException {
+        Animal[] animals = population(count);
+        return task(file -> ShelterSnapshot.write(file, animals), null);
+    }
+
+    public static Runnable read(int count) throws IOException {
+        Animal[] animals = population(count);
+        return task(file -> ShelterSnapshot.read(file), file -> ShelterSnapshot.write(file, animals));
+    }
+
+    // One animal in a hundred moves between two deltas
+    public static Runnable writeDelta(int count) throws IOException {
+        Animal[] animals = population(count);
+        return task(file -> {
+            for (int i = 0; i < animals.length; i += 100) {
+                animals[i].move();
+            }
+            ShelterSnapshot.writeDelta(file, animals);
+        }, file -> ShelterSnapshot.write(file, animals));
+    }
+
+    public static Runnable serialize(int count) throws IOException {
+        Animal[] animals = population(count);
+        return task(file -> SerializedAnimal.write(file, animals), null);
+    }
+
+    public static Runnable deserialize(int count) throws IOException {
+        Animal[] animals = population(count);
+        return task(file -> SerializedAnimal.read(file), file -> SerializedAnimal.write(file, animals));
+    }
+
+    private static Animal[] population(int count) {
+        Animal.setEventSink(AnimalEventSink.NONE);
+        return ShelterWorkloads.population(count, true);
+    }
+
+    private static Runnable task(FileTask task, FileTask prepare) throws IOException {
+        Path file = Files.createTempFile("shelter", ".snapshot");
+        file.toFile().deleteOnExit();
+        if (prepare != null) {
+            prepare.run(file);
+        }
+        return () -> {
+            try {
+                task.run(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+// StringSlice workloads for the JMH benchmarks (see benchmarks.Workloads)
+public class StringSliceWorkloads {
+    public static Supplier<Object> split(String line) {
+        StringSlice slice = StringSlice.of(line);
+        return () -> slice.split(", ");
+    }
+
+    public static IntSupplier splitBounds(String line) {
+        StringSlice slice = StringSlice.of(line);
+        int[] bounds = new int[64];
+        return () -> slice.split(", ", bounds);
+    }
+
+    public static Supplier<Object> substringTrim(String line) {
+        StringSlice slice = StringSlice.of(line);
+        return () -> slice.substring(20, 45).trim();
+    }
+
+    public static Supplier<Object> toUpperCase(String line) {
+        StringSlice slice = StringSlice.of(line);
+        StringBuilder out = new StringBuilder();
+        return () -> {
+            out.setLength(0);
+            return slice.toUpperCase(out);
+        };
+    }
+
+    public static IntSupplier replace(String line, String[] targets, String[] replacements) {
+        StringSlice slice = StringSlice.of(line);
+        StringSlice.Replacer replacer = new StringSlice.Replacer(targets, replacements);
+        StringBuilder out = new StringBuilder();
+        return () -> {
+            out.setLength(0);
+            return replacer.replace(slice, out);
+        };
+    }
+
+    public static Supplier<Object> concatenate(String line) {
+        StringSlice[] parts = StringSlice.of(line).split(", ");
+        StringBuilder out = new StringBuilder();
+        return () -> {
+            out.setLength(0);
+            return parts[0].appendTo(out).append(", ").append(parts[3]).append('!');
+        };
+    }
+}
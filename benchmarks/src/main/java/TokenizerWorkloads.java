@@ -0,0 +1,43 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.function.LongSupplier;
+
+// ChannelTokenizer workloads for the JMH benchmarks (see benchmarks.Workloads)
+public class TokenizerWorkloads {
+    // Sum of the token lengths, so the tokens cannot be optimized away
+    public static LongSupplier tokenize(Path file) {
+        ChannelTokenizer tokenizer = new ChannelTokenizer(", ");
+        TokenLengths lengths = new TokenLengths();
+        return () -> {
+            lengths.total = 0;
+            try (FileChannel channel = FileChannel.open(file)) {
+                tokenizer.tokenize(channel, lengths);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return lengths.total;
+        };
+    }
+
+    public static LongSupplier tokenizeParallel(Path file, Integer threads) {
+        return () -> {
+            try {
+                return ChannelTokenizer.tokenizeParallel(file, ", ", threads, TokenLengths::new);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static final class TokenLengths implements ChannelTokenizer.TokenHandler {
+        long total;
+
+        @Override
+        public void token(ByteBuffer buffer, int from, int to, boolean endOfLine) {
+            total += to - from;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// makeSound() and play() on a shuffled Animal[] of 3, 6 or 10 species (shelter_batch.java):
+// one plain loop, the type-partitioned AnimalBatch species by species, or AnimalBatch in the
+// original order. 10 species is more than AnimalBatch.CALL_SITES, so the last 2 share a site.
+// Results (us/op, 1 CPU): grouped 400-820 vs plain 1770-3500; in order 1450-3730.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimalBatchBenchmark {
+    @Param({"100000"})
+    int count;
+
+    @Param({"3", "6", "10"})
+    int species;
+
+    private Runnable plainSound;
+    private Runnable groupedSound;
+    private Runnable inOrderSound;
+    private Runnable plainPlay;
+    private Runnable groupedPlay;
+    private Runnable inOrderPlay;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Workloads.silenceConsole();
+        plainSound = calls("sound", "plain");
+        groupedSound = calls("sound", "grouped");
+        inOrderSound = calls("sound", "inOrder");
+        plainPlay = calls("play", "plain");
+        groupedPlay = calls("play", "grouped");
+        inOrderPlay = calls("play", "inOrder");
+    }
+
+    private Runnable calls(String call, String mode) {
+        return Workloads.create("BatchWorkloads", "calls", Runnable.class, count, species, call, mode);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Workloads.restoreConsole();
+    }
+
+    @Benchmark
+    public void soundPlain() {
+        plainSound.run();
+    }
+
+    @Benchmark
+    public void soundGrouped() {
+        groupedSound.run();
+    }
+
+    @Benchmark
+    public void soundInOrder() {
+        inOrderSound.run();
+    }
+
+    @Benchmark
+    public void playPlain() {
+        plainPlay.run();
+    }
+
+    @Benchmark
+    public void playGrouped() {
+        groupedPlay.run();
+    }
+
+    @Benchmark
+    public void playInOrder() {
+        inOrderPlay.run();
+    }
+}
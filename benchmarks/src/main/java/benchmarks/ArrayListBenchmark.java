@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// The list operations from ArrayList.java: add, get by index and remove by index
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayListBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    private String[] fruits;
+    private List<String> filled;
+
+    @Setup
+    public void setUp() {
+        fruits = new String[size];
+        for (int i = 0; i < size; i++) {
+            fruits[i] = "Fruit" + i;
+        }
+        filled = new ArrayList<>(List.of(fruits));
+    }
+
+    @Benchmark
+    public List<String> add() {
+        List<String> list = new ArrayList<>();
+        for (String fruit : fruits) {
+            list.add(fruit);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(filled.get(i));
+        }
+    }
+
+    // list.remove(0) shifts every remaining element, like in ArrayList.java
+    @Benchmark
+    public List<String> removeFirst() {
+        List<String> list = new ArrayList<>(filled);
+        while (!list.isEmpty()) {
+            list.remove(0);
+        }
+        return list;
+    }
+
+    // Removing from the end needs no shifting - for comparison with removeFirst
+    @Benchmark
+    public List<String> removeLast() {
+        List<String> list = new ArrayList<>(filled);
+        while (!list.isEmpty()) {
+            list.remove(list.size() - 1);
+        }
+        return list;
+    }
+}
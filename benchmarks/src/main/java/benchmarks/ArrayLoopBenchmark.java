@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The loops from arrays.java and loops.java: for, enhanced for, while and do-while over an int[]
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayLoopBenchmark {
+    @Param({"1000", "1000000"})
+    int size;
+
+    private int[] numbers;
+
+    @Setup
+    public void setUp() {
+        numbers = new int[size];
+        for (int i = 0; i < size; i++) {
+            numbers[i] = (i + 1) * 10;
+        }
+    }
+
+    @Benchmark
+    public long forLoop() {
+        long sum = 0;
+        for (int i = 0; i < numbers.length; i++) {
+            sum += numbers[i];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long enhancedForLoop() {
+        long sum = 0;
+        for (int number : numbers) {
+            sum += number;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long whileLoop() {
+        long sum = 0;
+        int i = 0;
+        while (i < numbers.length) {
+            sum += numbers[i];
+            i++;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long doWhileLoop() {
+        long sum = 0;
+        int i = 0;
+        do {
+            sum += numbers[i];
+            i++;
+        } while (i < numbers.length);
+        return sum;
+    }
+
+    // arrays.java also writes into the array
+    @Benchmark
+    public int[] modifyEach() {
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = numbers[i] + 1;
+        }
+        return numbers;
+    }
+}
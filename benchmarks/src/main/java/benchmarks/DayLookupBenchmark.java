@@ -0,0 +1,158 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Day number <-> name for a column of random days: the switch from switch_case.java and a
+// HashMap against the Day enum (array for number -> name, perfect hash for name -> number).
+// With names=exact every name is spelled "Monday", so the switch and the HashMap can match it
+// as it is; with names=mixed some are "MONDAY" or "monday", and they have to lower-case the
+// name first (Day ignores case either way). About 1 in 16 inputs is not a day.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DayLookupBenchmark {
+    private static final String[] NAMES = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+    private static final int COUNT = 4096;
+
+    @Param({"exact", "mixed"})
+    String names;
+
+    private int[] dayColumn;
+    private String[] nameColumn;
+    private String[] nameOutput;
+    private int[] dayOutput;
+    private Map<String, Integer> byName;
+
+    private Supplier<Object> dayNamesOf;
+    private LongSupplier dayNumbersOf;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        dayColumn = new int[COUNT];
+        nameColumn = new String[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            dayColumn[i] = random.nextInt(16) == 0 ? 0 : 1 + random.nextInt(7);
+            String name = dayColumn[i] == 0 ? "Someday" : NAMES[dayColumn[i] - 1];
+            if (names.equals("mixed")) {
+                switch (random.nextInt(3)) {
+                    case 0 -> name = name.toUpperCase(Locale.ROOT);
+                    case 1 -> name = name.toLowerCase(Locale.ROOT);
+                    default -> { }
+                }
+            }
+            nameColumn[i] = name;
+        }
+        nameOutput = new String[COUNT];
+        dayOutput = new int[COUNT];
+        byName = new HashMap<>();
+        for (int day = 1; day <= NAMES.length; day++) {
+            byName.put(names.equals("mixed") ? NAMES[day - 1].toLowerCase(Locale.ROOT) : NAMES[day - 1], day);
+        }
+        dayNamesOf = Workloads.supplier("DayWorkloads", "namesOf", (Object) dayColumn);
+        dayNumbersOf = Workloads.create("DayWorkloads", "numbersOf", LongSupplier.class, (Object) nameColumn);
+    }
+
+    // ========================== NUMBER -> NAME ==========================
+    @Benchmark
+    public String[] switchNamesOf() {
+        for (int i = 0; i < COUNT; i++) {
+            String dayName;
+            switch (dayColumn[i]) {
+                case 1:
+                    dayName = "Monday";
+                    break;
+                case 2:
+                    dayName = "Tuesday";
+                    break;
+                case 3:
+                    dayName = "Wednesday";
+                    break;
+                case 4:
+                    dayName = "Thursday";
+                    break;
+                case 5:
+                    dayName = "Friday";
+                    break;
+                case 6:
+                    dayName = "Saturday";
+                    break;
+                case 7:
+                    dayName = "Sunday";
+                    break;
+                default:
+                    dayName = "Invalid day";
+                    break;
+            }
+            nameOutput[i] = dayName;
+        }
+        return nameOutput;
+    }
+
+    @Benchmark
+    public Object dayNamesOf() {
+        return dayNamesOf.get();
+    }
+
+    // ========================== NAME -> NUMBER ==========================
+    @Benchmark
+    public long switchNumbersOf() {
+        boolean mixed = names.equals("mixed");
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            String name = mixed ? nameColumn[i].toLowerCase(Locale.ROOT) : nameColumn[i];
+            int day = switch (name) {
+                case "Monday", "monday" -> 1;
+                case "Tuesday", "tuesday" -> 2;
+                case "Wednesday", "wednesday" -> 3;
+                case "Thursday", "thursday" -> 4;
+                case "Friday", "friday" -> 5;
+                case "Saturday", "saturday" -> 6;
+                case "Sunday", "sunday" -> 7;
+                default -> 0;
+            };
+            dayOutput[i] = day;
+            sum += day;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long hashMapNumbersOf() {
+        boolean mixed = names.equals("mixed");
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            String name = mixed ? nameColumn[i].toLowerCase(Locale.ROOT) : nameColumn[i];
+            int day = byName.getOrDefault(name, 0);
+            dayOutput[i] = day;
+            sum += day;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long dayNumbersOf() {
+        return dayNumbersOf.getAsLong();
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The map operations from Hashmaps.java: put, get and remove with String keys and Integer values
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashMapBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    private String[] keys;
+    private Map<String, Integer> filled;
+
+    @Setup
+    public void setUp() {
+        keys = new String[size];
+        filled = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = "Key" + i;
+            filled.put(keys[i], i);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Integer> put() {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public long get() {
+        long sum = 0;
+        for (String key : keys) {
+            sum += filled.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Map<String, Integer> remove() {
+        Map<String, Integer> map = new HashMap<>(filled);
+        for (String key : keys) {
+            map.remove(key);
+        }
+        return map;
+    }
+}
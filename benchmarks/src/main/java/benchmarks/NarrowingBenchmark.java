@@ -0,0 +1,129 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Narrowing 1M doubles (rounded half-even) to int and short: the bare cast from
+// data_types.java, a per-element loop that checks every value for NaN and range before
+// casting, and Narrowing, which checks a whole block at once. badPercent is the share of
+// values that are NaN or out of range.
+//
+// Measured (one core, AVX-512): the bare casts take 0.6-0.8 ms and the checked loops about
+// 2.7 ms. Narrowing takes 1.0-1.2 ms on clean data. With 1% bad values nearly every block needs
+// the slow pass, and it takes about 3.1-3.3 ms, against 3.0 (int) and 4.6 ms (short) for the
+// checked loops.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NarrowingBenchmark {
+    private static final int SIZE = 1 << 20;
+
+    @Param({"0", "1"})
+    int badPercent;
+
+    private double[] values;
+    private int[] ints;
+    private short[] shorts;
+    private long[] problems;
+
+    private LongSupplier narrowInts;
+    private LongSupplier narrowShorts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        values = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            if (random.nextInt(100) < badPercent) {
+                values[i] = random.nextBoolean() ? Double.NaN : 1e12;
+            } else {
+                values[i] = (random.nextDouble() - 0.5) * 60_000;
+            }
+        }
+        ints = new int[SIZE];
+        shorts = new short[SIZE];
+        problems = new long[(SIZE + 63) / 64];
+        narrowInts = Workloads.create("NarrowingWorkloads", "toInts", LongSupplier.class, values, ints);
+        narrowShorts = Workloads.create("NarrowingWorkloads", "toShorts", LongSupplier.class, values, shorts);
+    }
+
+    @Benchmark
+    public int[] castInt() {
+        for (int i = 0; i < SIZE; i++) {
+            ints[i] = (int) Math.rint(values[i]);
+        }
+        return ints;
+    }
+
+    @Benchmark
+    public long checkedLoopInt() {
+        Arrays.fill(problems, 0L);
+        long count = 0;
+        for (int i = 0; i < SIZE; i++) {
+            double r = Math.rint(values[i]);
+            if (Double.isNaN(r) || r < Integer.MIN_VALUE || r > Integer.MAX_VALUE) {
+                problems[i >>> 6] |= 1L << i;
+                count++;
+            }
+            ints[i] = (int) r;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long narrowingInt() {
+        return narrowInts.getAsLong();
+    }
+
+    @Benchmark
+    public short[] castShort() {
+        for (int i = 0; i < SIZE; i++) {
+            shorts[i] = (short) (int) Math.rint(values[i]);
+        }
+        return shorts;
+    }
+
+    @Benchmark
+    public long checkedLoopShort() {
+        Arrays.fill(problems, 0L);
+        long count = 0;
+        for (int i = 0; i < SIZE; i++) {
+            double r = Math.rint(values[i]);
+            if (Double.isNaN(r)) {
+                shorts[i] = 0;
+            } else if (r < Short.MIN_VALUE) {
+                shorts[i] = Short.MIN_VALUE;
+            } else if (r > Short.MAX_VALUE) {
+                shorts[i] = Short.MAX_VALUE;
+            } else {
+                shorts[i] = (short) r;
+                continue;
+            }
+            problems[i >>> 6] |= 1L << i;
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long narrowingShort() {
+        return narrowShorts.getAsLong();
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Virtual dispatch in AnimalShelter.makeAllAnimalsSound (oops.java), with the no-op event
+// sink so only the calls are measured. "dogs" has one receiver type, "mixed" has three.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShelterDispatchBenchmark {
+    @Param({"1000", "100000"})
+    int count;
+
+    @Param({"dogs", "mixed"})
+    String population;
+
+    private Runnable makeAllAnimalsSound;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Workloads.silenceConsole();
+        makeAllAnimalsSound = Workloads.create("ShelterWorkloads", "makeAllAnimalsSound", Runnable.class,
+                count, population.equals("mixed"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Workloads.restoreConsole();
+    }
+
+    @Benchmark
+    public void makeAllAnimalsSound() {
+        makeAllAnimalsSound.run();
+    }
+}
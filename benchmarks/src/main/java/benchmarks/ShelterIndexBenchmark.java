@@ -0,0 +1,61 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Queries on ShelterIndex (shelter_index.java) against walking the Animal[] and asking every
+// animal, after a simulated day. Setting up larger populations takes minutes (the simulated
+// day), so 10M animals are measured by running shelter_index 10000000 with -Xmx4500m instead.
+//
+// Measured (one core), 1M animals: hungry dogs below 30 energy in about 15 us from the
+// index against 6.7 ms by walking the array; young cats with at least 50 energy (two ranges)
+// in about 27 us. With 10M animals the same queries take 0.38 and 0.44 ms (walking: 70 ms).
+// Keeping the index up to date costs about 100-150 ns per change to an animal.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShelterIndexBenchmark {
+    @Param({"1000000"})
+    int animals;
+
+    private LongSupplier indexedQuery;
+    private LongSupplier scan;
+    private LongSupplier twoRanges;
+
+    @Setup
+    public void setUp() {
+        indexedQuery = Workloads.create("IndexWorkloads", "hungryTiredDogs", LongSupplier.class, animals, true);
+        scan = Workloads.create("IndexWorkloads", "hungryTiredDogs", LongSupplier.class, animals, false);
+        twoRanges = Workloads.create("IndexWorkloads", "youngLivelyCats", LongSupplier.class, animals);
+    }
+
+    @Benchmark
+    public long hungryTiredDogsIndexed() {
+        return indexedQuery.getAsLong();
+    }
+
+    @Benchmark
+    public long hungryTiredDogsScan() {
+        return scan.getAsLong();
+    }
+
+    @Benchmark
+    public long youngLivelyCatsIndexed() {
+        return twoRanges.getAsLong();
+    }
+}
@@ -0,0 +1,47 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Dog.play() + Dog.rest() with ShelterMetrics off and on. The switch is a startup
+// property read into a static final, so each setting needs its own JVM (fork).
+//
+// Measured on one core: 23 ns off (the same as before the metrics existed, see
+// ConcurrentEnergyBenchmark.oneThread plain), 38 ns on with the default 1-in-16 timing.
+// Timing every call (-Dshelter.metrics.sampleEvery=1) took about 205 ns: System.nanoTime()
+// costs about 30 ns on this machine and each call reads it twice.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ShelterMetricsBenchmark {
+    private Runnable keeper;
+
+    @Setup
+    public void setUp() {
+        keeper = Workloads.create("EnergyWorkloads", "playAndRest", Runnable.class, false);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void metricsOff() {
+        keeper.run();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dshelter.metrics=true")
+    public void metricsOn() {
+        keeper.run();
+    }
+}
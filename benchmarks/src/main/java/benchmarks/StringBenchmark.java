@@ -0,0 +1,42 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The String operations from strings.java: concatenation, split and replace
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringBenchmark {
+    // Non-final fields, so the JIT cannot fold the results into constants
+    private String greeting = "Hello";
+    private String name = "Alice";
+    private String message = "Hello, Alice!";
+
+    @Benchmark
+    public String concatenate() {
+        return greeting + ", " + name + "!";
+    }
+
+    @Benchmark
+    public String[] split() {
+        return message.split(", ");
+    }
+
+    @Benchmark
+    public String replace() {
+        return message.replace("Alice", "Bob");
+    }
+}
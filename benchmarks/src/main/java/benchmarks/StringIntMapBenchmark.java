@@ -0,0 +1,103 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// StringIntMap against HashMap<String, Integer> for the put/get/remove steps of Hashmaps.java.
+// Keys are looked up in shuffled order, so neither map profits from "Key0", "Key1", ...
+// landing next to each other in memory. Both remove benchmarks include building the map,
+// the same way for both: presized, keys put in shuffled order.
+// The memory comparison is printed by StringIntMap.main.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringIntMapBenchmark {
+    @Param({"1000", "1000000"})
+    int size;
+
+    private String[] keys;
+    private Map<String, Integer> hashMap;
+    private Supplier<Object> stringIntMapPut;
+    private LongSupplier stringIntMapGet;
+    private Supplier<Object> stringIntMapRemove;
+
+    @Setup
+    public void setUp() {
+        keys = new String[size];
+        hashMap = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = "Key" + i;
+            hashMap.put(keys[i], i);
+        }
+        Collections.shuffle(Arrays.asList(keys), new Random(42));
+        stringIntMapPut = Workloads.supplier("MapWorkloads", "put", (Object) keys);
+        stringIntMapGet = Workloads.create("MapWorkloads", "get", LongSupplier.class, (Object) keys);
+        stringIntMapRemove = Workloads.supplier("MapWorkloads", "remove", (Object) keys);
+    }
+
+    @Benchmark
+    public Map<String, Integer> hashMapPut() {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Object stringIntMapPut() {
+        return stringIntMapPut.get();
+    }
+
+    @Benchmark
+    public long hashMapGet() {
+        long sum = 0;
+        for (String key : keys) {
+            sum += hashMap.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long stringIntMapGet() {
+        return stringIntMapGet.getAsLong();
+    }
+
+    @Benchmark
+    public Map<String, Integer> hashMapRemove() {
+        Map<String, Integer> map = HashMap.newHashMap(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        for (String key : keys) {
+            map.remove(key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Object stringIntMapRemove() {
+        return stringIntMapRemove.get();
+    }
+}
@@ -0,0 +1,107 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// String methods from strings.java against the StringSlice equivalents, on a log-like line.
+// Run with the GC profiler to see the allocation rates:
+//   java -jar benchmarks/target/benchmarks.jar StringSliceBenchmark -prof gc
+// and compare the gc.alloc.rate.norm (bytes per operation) column.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringSliceBenchmark {
+    private static final String[] TARGETS = {"INFO", "Woof"};
+    private static final String[] REPLACEMENTS = {"I", "Bark"};
+
+    private String line = "2024-05-01 12:00:00, INFO, shelter, Buddy the Golden Retriever says: Woof! Woof!, energy=85";
+
+    private Supplier<Object> sliceSplit;
+    private IntSupplier sliceSplitBounds;
+    private Supplier<Object> sliceSubstringTrim;
+    private Supplier<Object> sliceToUpperCase;
+    private IntSupplier sliceReplace;
+    private Supplier<Object> sliceConcatenate;
+
+    @Setup
+    public void setUp() {
+        sliceSplit = Workloads.supplier("StringSliceWorkloads", "split", line);
+        sliceSplitBounds = Workloads.create("StringSliceWorkloads", "splitBounds", IntSupplier.class, line);
+        sliceSubstringTrim = Workloads.supplier("StringSliceWorkloads", "substringTrim", line);
+        sliceToUpperCase = Workloads.supplier("StringSliceWorkloads", "toUpperCase", line);
+        sliceReplace = Workloads.create("StringSliceWorkloads", "replace", IntSupplier.class, line, TARGETS, REPLACEMENTS);
+        sliceConcatenate = Workloads.supplier("StringSliceWorkloads", "concatenate", line);
+    }
+
+    @Benchmark
+    public String[] stringSplit() {
+        return line.split(", ");
+    }
+
+    @Benchmark
+    public Object sliceSplit() {
+        return sliceSplit.get();
+    }
+
+    @Benchmark
+    public int sliceSplitBounds() {
+        return sliceSplitBounds.getAsInt();
+    }
+
+    @Benchmark
+    public String stringSubstringTrim() {
+        return line.substring(20, 45).trim();
+    }
+
+    @Benchmark
+    public Object sliceSubstringTrim() {
+        return sliceSubstringTrim.get();
+    }
+
+    @Benchmark
+    public String stringToUpperCase() {
+        return line.toUpperCase();
+    }
+
+    @Benchmark
+    public Object sliceToUpperCase() {
+        return sliceToUpperCase.get();
+    }
+
+    // Two replace calls, like chaining message.replace(...) in strings.java
+    @Benchmark
+    public String stringReplace() {
+        return line.replace(TARGETS[0], REPLACEMENTS[0]).replace(TARGETS[1], REPLACEMENTS[1]);
+    }
+
+    @Benchmark
+    public int sliceReplace() {
+        return sliceReplace.getAsInt();
+    }
+
+    @Benchmark
+    public String stringConcatenate() {
+        String[] parts = line.split(", ");
+        return parts[0] + ", " + parts[3] + "!";
+    }
+
+    @Benchmark
+    public Object sliceConcatenate() {
+        return sliceConcatenate.get();
+    }
+}
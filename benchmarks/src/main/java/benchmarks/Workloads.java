@@ -0,0 +1,50 @@
+package benchmarks;
+
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.Supplier;
+
+// The example classes (Dog, AnimalShelter, ...) live in the unnamed package, which code in a
+// named package cannot import, and JMH only accepts benchmarks in a named package.
+// So the code that touches the examples is written in small unnamed-package "workload"
+// classes, and benchmarks look up their factory methods by name once, during setup.
+final class Workloads {
+    private static final PrintStream CONSOLE = System.out;
+
+    private Workloads() {
+    }
+
+    // Call a public static factory method of an unnamed-package class
+    static <T> T create(String className, String factoryName, Class<T> type, Object... args) {
+        try {
+            for (Method method : Class.forName(className).getMethods()) {
+                if (method.getName().equals(factoryName) && method.getParameterCount() == args.length) {
+                    return type.cast(method.invoke(null, args));
+                }
+            }
+        } catch (ClassNotFoundException | IllegalAccessException e) {
+            throw new IllegalStateException("Cannot load workload " + className + "." + factoryName, e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Workload " + className + "." + factoryName + " failed", e.getCause());
+        }
+        throw new IllegalArgumentException("No workload " + className + "." + factoryName + " with " + args.length + " argument(s)");
+    }
+
+    // create() for factories that return a Supplier<Object>: a class literal cannot carry
+    // the type argument, so the cast is checked here once instead of at every caller
+    static Supplier<Object> supplier(String className, String factoryName, Object... args) {
+        @SuppressWarnings("unchecked")
+        Supplier<Object> supplier = create(className, factoryName, Supplier.class, args);
+        return supplier;
+    }
+
+    // Some examples print headers with System.out.println; keep that out of the benchmark output
+    static void silenceConsole() {
+        System.setOut(new PrintStream(PrintStream.nullOutputStream()));
+    }
+
+    static void restoreConsole() {
+        System.setOut(CONSOLE);
+    }
+}
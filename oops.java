@@ -1,22 +1,291 @@
 // Comprehensive Object-Oriented Programming (OOP) Examples in Java
 // This file demonstrates all major OOP concepts with detailed explanations
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 // ========================== ABSTRACTION ==========================
 // Abstract class - cannot be instantiated directly
 // Used to provide a common base with some implemented and some abstract methods
 abstract class Animal {
+    // Where every animal sends its messages - the console unless another sink is plugged in
+    private static volatile AnimalEventSink eventSink = AnimalEventSink.CONSOLE;
+    // A sink for one thread only, taking the place of eventSink there (see runWithEventSink);
+    // while no thread has one, events do not look it up
+    private static final ThreadLocal<AnimalEventSink> threadEventSink = new ThreadLocal<>();
+    private static final AtomicInteger threadEventSinks = new AtomicInteger();
+    // Where every field change goes with its old and new value - nowhere unless a log is plugged in
+    private static volatile AnimalChangeLog changeLog = AnimalChangeLog.NONE;
+    // Off: energy changes are plain writes, fine while each animal stays on one thread.
+    // On: Dog, Cat and Bird change their energy (and a dog's hunger) with compare-and-set,
+    // so keepers on several threads can share an animal without losing updates
+    private static volatile boolean concurrent;
+    
     protected String name;
     protected int age;
+    // -1 while the animal is not in the shelter (see leave and readmit)
+    protected long id;
+    // Set by every change to this animal's state; ShelterSnapshot writes and clears it
+    private boolean dirty = true;
+    // Told about every change too, e.g. a ShelterIndex; slot is this animal's number there.
+    // Further watchers (a ShelterReport on the same animals, say) go in moreWatchers, so the
+    // usual single watcher costs no extra memory access on every change
+    private AnimalWatcher watcher;
+    private int watchSlot;
+    private AnimalWatcher[] moreWatchers;
+    private int[] moreSlots;
     
     // Constructor for abstract class
+    // Every new animal registers itself with the shelter, so nobody has to count by hand.
+    // Its name is only findable (ShelterRegistry.publish) once the subclass constructor has
+    // set the rest of its fields, so another thread never finds a half-built animal.
     public Animal(String name, int age) {
         this.name = name;
         this.age = age;
+        this.id = ShelterRegistry.register(this);
+    }
+    
+    // An animal loaded from a snapshot keeps the id it was saved with, so a change log
+    // still knows it after a restart (see ShelterRegistry.register)
+    protected Animal(long id, String name, int age) {
+        this.name = name;
+        this.age = age;
+        this.id = ShelterRegistry.register(this, id);
+    }
+    
+    // Constructor for lightweight views that stand in for an animal stored elsewhere
+    // They are not new animals, so they are not registered and have no id
+    protected Animal() {
+        this.id = -1;
+    }
+    
+    public static void setEventSink(AnimalEventSink sink) {
+        eventSink = sink;
+    }
+    
+    public static AnimalEventSink getEventSink() {
+        return eventSink;
+    }
+    
+    // Runs action with every event of the current thread going to sink instead; other
+    // threads keep using the shelter's sink meanwhile (see ShelterTick)
+    static void runWithEventSink(AnimalEventSink sink, Runnable action) {
+        AnimalEventSink previous = threadEventSink.get();
+        threadEventSink.set(sink);
+        if (previous == null) {
+            threadEventSinks.incrementAndGet();
+        }
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                threadEventSink.remove();
+                threadEventSinks.decrementAndGet();
+            } else {
+                threadEventSink.set(previous);
+            }
+        }
+    }
+    
+    // The sink the current thread's events go to
+    static AnimalEventSink currentEventSink() {
+        if (threadEventSinks.get() != 0) {
+            AnimalEventSink sink = threadEventSink.get();
+            if (sink != null) {
+                return sink;
+            }
+        }
+        return eventSink;
+    }
+    
+    public static void setChangeLog(AnimalChangeLog log) {
+        changeLog = log;
+    }
+    
+    public static AnimalChangeLog getChangeLog() {
+        return changeLog;
+    }
+    
+    // Switch before animals are shared between threads (watchers such as ShelterIndex
+    // are still meant for one thread at a time)
+    public static void setConcurrent(boolean on) {
+        concurrent = on;
+    }
+    
+    public static boolean isConcurrent() {
+        return concurrent;
+    }
+    
+    // Subclasses call this whenever one of their fields changes
+    protected final void changed() {
+        dirty = true;
+        AnimalWatcher current = watcher;
+        if (current != null) {
+            current.changed(this, watchSlot);
+            AnimalWatcher[] more = moreWatchers;
+            if (more != null) {
+                int[] slots = moreSlots;
+                for (int i = 0; i < more.length; i++) {
+                    more[i].changed(this, slots[i]);
+                }
+            }
+        }
+    }
+    
+    // Subclasses call these before changed() for every change of a field in AnimalField;
+    // setting a field to the value it already has is not a change and is not logged
+    protected final void logChange(AnimalField field, long oldValue, long newValue) {
+        if (oldValue != newValue) {
+            changeLog.record(id, field, oldValue, newValue);
+        }
+    }
+    
+    protected final void logChange(AnimalField field, String oldValue, String newValue) {
+        if (!Objects.equals(oldValue, newValue)) {
+            changeLog.recordText(id, field, oldValue, newValue);
+        }
+    }
+    
+    // Sets a field to a value taken from a change log, without logging it again
+    // (see ShelterChangeLog.replay); text is the value of a String field
+    void applyLogged(AnimalField field, long value, String text) {
+        throw new IllegalArgumentException(getClass().getSimpleName() + " has no field " + field);
+    }
+    
+    // Adds a watcher, or gives one that already watches this animal a new slot
+    final void watch(AnimalWatcher watcher, int slot) {
+        Objects.requireNonNull(watcher, "watcher");
+        if (this.watcher == null || this.watcher == watcher) {
+            this.watcher = watcher;
+            this.watchSlot = slot;
+            return;
+        }
+        int at = indexOfMore(watcher);
+        if (at < 0) {
+            at = moreWatchers == null ? 0 : moreWatchers.length;
+            moreWatchers = moreWatchers == null ? new AnimalWatcher[1] : Arrays.copyOf(moreWatchers, at + 1);
+            moreSlots = moreSlots == null ? new int[1] : Arrays.copyOf(moreSlots, at + 1);
+            moreWatchers[at] = watcher;
+        }
+        moreSlots[at] = slot;
+    }
+    
+    // Stops a watcher from watching; returns false if it was not watching this animal
+    final boolean unwatch(AnimalWatcher watcher) {
+        if (watcher == null) {
+            return false;
+        }
+        int at = this.watcher == watcher ? -1 : indexOfMore(watcher);
+        if (this.watcher != watcher && at < 0) {
+            return false;
+        }
+        if (moreWatchers == null) {
+            this.watcher = null;
+            return true;
+        }
+        // The last of the others takes the place of the one that stops
+        int last = moreWatchers.length - 1;
+        if (at < 0) {
+            this.watcher = moreWatchers[last];
+            this.watchSlot = moreSlots[last];
+        } else {
+            moreWatchers[at] = moreWatchers[last];
+            moreSlots[at] = moreSlots[last];
+        }
+        moreWatchers = last == 0 ? null : Arrays.copyOf(moreWatchers, last);
+        moreSlots = last == 0 ? null : Arrays.copyOf(moreSlots, last);
+        return true;
+    }
+    
+    // This animal's slot in a watcher, or -1 if it does not watch this animal
+    final int watchSlot(AnimalWatcher watcher) {
+        if (watcher != null && this.watcher == watcher) {
+            return watchSlot;
+        }
+        int at = indexOfMore(watcher);
+        return at < 0 ? -1 : moreSlots[at];
+    }
+    
+    private int indexOfMore(AnimalWatcher watcher) {
+        if (moreWatchers != null) {
+            for (int i = 0; i < moreWatchers.length; i++) {
+                if (moreWatchers[i] == watcher) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+    
+    final boolean isDirty() {
+        return dirty;
+    }
+    
+    final void clearDirty() {
+        dirty = false;
+    }
+    
+    // The animal leaves the shelter: it is deregistered and has no id until it is readmitted
+    final void leave() {
+        if (id < 0) {
+            throw new IllegalStateException(name + " is not in the shelter");
+        }
+        if (watcher != null) {
+            throw new IllegalStateException(name + " is still watched");
+        }
+        ShelterRegistry.deregister(this);
+        id = -1;
+    }
+    
+    // Reuses the object of an animal that has left as a new animal (see AnimalIntake):
+    // subclasses reset their own fields, then call this to register it under a new id
+    void readmit(String name, int age) {
+        if (id >= 0) {
+            throw new IllegalStateException(this.name + " has not left the shelter");
+        }
+        this.name = name;
+        this.age = age;
+        this.id = ShelterRegistry.register(this);
+        ShelterRegistry.publish(this);
+        changed();
+    }
+    
+    // Report what this animal just did (the sink decides if and how it is printed)
+    // Every behavior reports exactly one event, so with metrics on this is also where the
+    // call is counted and timed (see ShelterMetrics.java)
+    // checkEnergy() reports through the static one, as a Playable is not always an Animal
+    protected final void emit(AnimalEvent event) {
+        emit(this, id, name, event, null, 0);
+    }
+    
+    protected final void emit(AnimalEvent event, String text) {
+        emit(this, id, name, event, text, 0);
+    }
+    
+    protected final void emit(AnimalEvent event, long number) {
+        emit(this, id, name, event, null, number);
+    }
+    
+    static void emit(Object animal, long id, String name, AnimalEvent event, String text, long number) {
+        long start = ShelterMetrics.start();
+        currentEventSink().record(id, name, event, text, number);
+        ShelterMetrics.record(animal, event, start);
     }
     
     // Concrete method - implemented in abstract class
     public void sleep() {
-        System.out.println(name + " is sleeping...");
+        emit(AnimalEvent.SLEEP);
     }
     
     // Abstract method - must be implemented by subclasses
@@ -36,8 +305,100 @@ interface Playable {
     
     // Default method (Java 8+) - provides default implementation
     default void checkEnergy() {
-        System.out.println("Checking energy level...");
+        Animal.emit(this, this instanceof Animal animal ? animal.id : -1, null, AnimalEvent.CHECK_ENERGY, null, 0);
+    }
+}
+
+// ========================== EVENTS ==========================
+// Everything an animal can report. Instead of building a String right away, an animal
+// hands the sink the event type plus its arguments, and the text is only produced
+// if (and when) somebody actually wants to read it.
+enum AnimalEvent {
+    SLEEP, CHECK_ENERGY,
+    DOG_SOUND, DOG_RUN, DOG_FETCH, DOG_TOO_TIRED_TO_PLAY, DOG_REST, DOG_EAT,
+    CAT_SOUND, CAT_WALK_INDOORS, CAT_PROWL, CAT_PLAY, CAT_NAP, CAT_CLIMB, CAT_TOO_TIRED_TO_CLIMB,
+    BIRD_SOUND, BIRD_FLY_AROUND, BIRD_HOP, BIRD_FLY_DISTANCE, BIRD_CANNOT_FLY, BIRD_TOO_TIRED_TO_FLY;
+    
+    // Append the exact text this event has always printed (without the line separator)
+    public void render(StringBuilder out, String name, String text, long number) {
+        switch (this) {
+            case SLEEP -> out.append(name).append(" is sleeping...");
+            case CHECK_ENERGY -> out.append("Checking energy level...");
+            case DOG_SOUND -> out.append(name).append(" the ").append(text).append(" says: Woof! Woof!");
+            case DOG_RUN -> out.append(name).append(" is running around happily!");
+            case DOG_FETCH -> out.append(name).append(" is playing fetch!");
+            case DOG_TOO_TIRED_TO_PLAY -> out.append(name).append(" is too tired to play.");
+            case DOG_REST -> out.append(name).append(" is resting and recovering energy.");
+            case DOG_EAT -> out.append(name).append(" is eating ").append(text);
+            case CAT_SOUND -> out.append(name).append(" says: Meow! Meow!");
+            case CAT_WALK_INDOORS -> out.append(name).append(" is gracefully walking around the house");
+            case CAT_PROWL -> out.append(name).append(" is prowling around outside");
+            case CAT_PLAY -> out.append(name).append(" is playing with a ball of yarn!");
+            case CAT_NAP -> out.append(name).append(" is napping in a sunny spot.");
+            case CAT_CLIMB -> out.append(name).append(" is climbing a tree!");
+            case CAT_TOO_TIRED_TO_CLIMB -> out.append(name).append(" is too tired to climb.");
+            case BIRD_SOUND -> out.append(name).append(" chirps: Tweet! Tweet!");
+            case BIRD_FLY_AROUND -> out.append(name).append(" is flying through the sky!");
+            case BIRD_HOP -> out.append(name).append(" is hopping on the ground.");
+            case BIRD_FLY_DISTANCE -> out.append(name).append(" flies ").append(number).append(" meters!");
+            case BIRD_CANNOT_FLY -> out.append(name).append(" cannot fly!");
+            case BIRD_TOO_TIRED_TO_FLY -> out.append(name).append(" is too tired to fly.");
+        }
     }
+    
+    public String render(String name, String text, long number) {
+        StringBuilder out = new StringBuilder();
+        render(out, name, text, number);
+        return out.toString();
+    }
+}
+
+// Interface for anything that receives animal events
+interface AnimalEventSink {
+    // Print each event immediately, exactly as the animals always have
+    AnimalEventSink CONSOLE = (animalId, name, event, text, number) ->
+            System.out.println(event.render(name, text, number));
+    
+    // Ignore every event (useful when measuring speed without console output)
+    AnimalEventSink NONE = (animalId, name, event, text, number) -> { };
+    
+    void record(long animalId, String name, AnimalEvent event, String text, long number);
+}
+
+// Interface for anything that keeps track of animals' state (see Animal.watch)
+// changed() is called right after the animal's fields have changed
+interface AnimalWatcher {
+    void changed(Animal animal, int slot);
+}
+
+// ========================== CHANGE LOG ==========================
+// The fields whose changes are logged (see Animal.logChange). Every value fits in a long:
+enum AnimalField {
+    DOG_STATE,  // a dog's energy and hunger, packed as in Dog.pack
+    BREED,      // a String, passed to recordText
+    ENERGY,     // a cat's or bird's energy, as Double.doubleToRawLongBits
+    INDOOR,     // 1 or 0
+    CAN_FLY     // 1 or 0
+}
+
+// Told about every logged change, from whichever thread made it. Animals that are created
+// or readmitted get a new id, loaded ones keep the id they were saved with; the first
+// values of all three are not logged
+interface AnimalChangeLog {
+    // Log nothing
+    AnimalChangeLog NONE = new AnimalChangeLog() {
+        @Override
+        public void record(long animalId, AnimalField field, long oldValue, long newValue) {
+        }
+        
+        @Override
+        public void recordText(long animalId, AnimalField field, String oldValue, String newValue) {
+        }
+    };
+    
+    void record(long animalId, AnimalField field, long oldValue, long newValue);
+    
+    void recordText(long animalId, AnimalField field, String oldValue, String newValue);
 }
 
 // ========================== ENCAPSULATION ==========================
@@ -45,15 +406,54 @@ interface Playable {
 class Dog extends Animal implements Playable {
     // Private fields - data hiding (encapsulation)
     private String breed;
-    private double energy;
-    private boolean isHungry;
+    // Energy and hunger share one long, so both always change together (see pack)
+    private long state;
+    
+    // The energy rules of play() and rest() (ShelterStore's bulk operations follow them too)
+    static final double PLAY_COST = 15;
+    static final double TOO_TIRED_TO_PLAY = 20; // Plays only with more energy than this
+    static final double REST_GAIN = 25;
+    static final double HUNGRY_BELOW = 30;
+    
+    // Lets the concurrent mode compare-and-set the state field (see Animal.setConcurrent)
+    private static final VarHandle STATE;
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(Dog.class, "state", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
     
     // Constructor - special method to initialize objects
     public Dog(String name, int age, String breed) {
         super(name, age); // Call parent constructor
         this.breed = breed;
-        this.energy = MAX_ENERGY;
-        this.isHungry = false;
+        this.state = pack(MAX_ENERGY, false);
+        ShelterRegistry.publish(this);
+    }
+    
+    // A dog loaded from a snapshot, with the id, energy and hunger it was saved with; like
+    // any new dog its first values are not logged (see ShelterSnapshot)
+    Dog(long id, String name, int age, String breed, double energy, boolean hungry) {
+        super(id, name, age);
+        this.breed = breed;
+        this.state = pack(energy, hungry);
+        ShelterRegistry.publish(this);
+    }
+    
+    // The bits of the energy double, which is never negative, with the sign bit set while
+    // the dog is hungry
+    private static long pack(double energy, boolean hungry) {
+        return Double.doubleToRawLongBits(Math.max(0, energy)) | (hungry ? Long.MIN_VALUE : 0);
+    }
+    
+    private static double energyOf(long state) {
+        return Double.longBitsToDouble(state & Long.MAX_VALUE);
+    }
+    
+    private static boolean hungryOf(long state) {
+        return state < 0;
     }
     
     // Getter methods - provide controlled access to private fields
@@ -62,11 +462,11 @@ class Dog extends Animal implements Playable {
     }
     
     public double getEnergy() {
-        return energy;
+        return energyOf(state());
     }
     
     public boolean isHungry() {
-        return isHungry;
+        return hungryOf(state());
     }
     
     public String getName() {
@@ -80,50 +480,140 @@ class Dog extends Animal implements Playable {
     // Setter methods - provide controlled modification of private fields
     public void setBreed(String breed) {
         if (breed != null && !breed.trim().isEmpty()) {
+            logChange(AnimalField.BREED, this.breed, breed);
             this.breed = breed;
+            changed();
         }
     }
     
     public void setHungry(boolean hungry) {
-        this.isHungry = hungry;
+        long current;
+        if (!isConcurrent()) {
+            current = state;
+            state = pack(energyOf(current), hungry);
+        } else {
+            do {
+                current = (long) STATE.getVolatile(this);
+            } while (!STATE.compareAndSet(this, current, pack(energyOf(current), hungry)));
+        }
+        stateChanged(current, pack(energyOf(current), hungry));
+    }
+    
+    // Sets every field at once when a saved dog is loaded over this one (see ShelterSnapshot)
+    void restore(String breed, double energy, boolean hungry) {
+        logChange(AnimalField.BREED, this.breed, breed);
+        this.breed = breed;
+        long before;
+        if (isConcurrent()) {
+            before = (long) STATE.getAndSet(this, pack(energy, hungry));
+        } else {
+            before = state;
+            state = pack(energy, hungry);
+        }
+        stateChanged(before, pack(energy, hungry));
+    }
+    
+    @Override
+    void applyLogged(AnimalField field, long value, String text) {
+        switch (field) {
+            case BREED -> breed = text;
+            case DOG_STATE -> {
+                if (isConcurrent()) {
+                    STATE.setVolatile(this, value);
+                } else {
+                    state = value;
+                }
+            }
+            default -> super.applyLogged(field, value, text);
+        }
+        changed();
+    }
+    
+    // A dog that left comes back as a new, rested dog (see Animal.readmit)
+    void readmit(String name, int age, String breed) {
+        this.breed = breed;
+        this.state = pack(MAX_ENERGY, false);
+        readmit(name, age);
+    }
+    
+    private long state() {
+        return isConcurrent() ? (long) STATE.getAcquire(this) : state;
+    }
+    
+    private void stateChanged(long before, long after) {
+        logChange(AnimalField.DOG_STATE, before, after);
+        changed();
     }
     
     // Private helper method - internal implementation detail
-    private void reduceEnergy(double amount) {
-        energy = Math.max(0, energy - amount);
-        if (energy < 30) {
-            isHungry = true;
+    // Takes amount off the energy (never below 0) if it is above minimum; the dog gets hungry
+    // below HUNGRY_BELOW. Returns whether the energy was taken. In concurrent mode the check
+    // and the change are one compare-and-set, retried if another thread changed the dog in between
+    private boolean reduceEnergy(double amount, double minimum) {
+        long current;
+        if (!isConcurrent()) {
+            current = state;
+            if (!(energyOf(current) > minimum)) {
+                return false;
+            }
+            state = reduced(current, amount);
+        } else {
+            do {
+                current = (long) STATE.getVolatile(this);
+                if (!(energyOf(current) > minimum)) {
+                    return false;
+                }
+            } while (!STATE.compareAndSet(this, current, reduced(current, amount)));
+        }
+        stateChanged(current, reduced(current, amount));
+        return true;
+    }
+    
+    private static long reduced(long state, double amount) {
+        double energy = Math.max(0, energyOf(state) - amount);
+        return pack(energy, hungryOf(state) || energy < HUNGRY_BELOW);
+    }
+    
+    // Adds energy (at most MAX_ENERGY); a dog that got energy is no longer hungry
+    private void addEnergy(double amount) {
+        long current;
+        if (!isConcurrent()) {
+            current = state;
+            state = pack(Math.min(MAX_ENERGY, energyOf(current) + amount), false);
+        } else {
+            do {
+                current = (long) STATE.getVolatile(this);
+            } while (!STATE.compareAndSet(this, current, pack(Math.min(MAX_ENERGY, energyOf(current) + amount), false)));
         }
+        stateChanged(current, pack(Math.min(MAX_ENERGY, energyOf(current) + amount), false));
     }
     
     // Implementation of abstract method from Animal class
     @Override
     public void makeSound() {
-        System.out.println(name + " the " + breed + " says: Woof! Woof!");
+        emit(AnimalEvent.DOG_SOUND, breed);
     }
     
     @Override
     public void move() {
-        System.out.println(name + " is running around happily!");
-        reduceEnergy(10);
+        emit(AnimalEvent.DOG_RUN);
+        reduceEnergy(10, Double.NEGATIVE_INFINITY);
     }
     
     // Implementation of interface methods
     @Override
     public void play() {
-        if (energy > 20) {
-            System.out.println(name + " is playing fetch!");
-            reduceEnergy(15);
+        if (reduceEnergy(PLAY_COST, TOO_TIRED_TO_PLAY)) {
+            emit(AnimalEvent.DOG_FETCH);
         } else {
-            System.out.println(name + " is too tired to play.");
+            emit(AnimalEvent.DOG_TOO_TIRED_TO_PLAY);
         }
     }
     
     @Override
     public void rest() {
-        energy = Math.min(MAX_ENERGY, energy + 25);
-        isHungry = false;
-        System.out.println(name + " is resting and recovering energy.");
+        addEnergy(REST_GAIN);
+        emit(AnimalEvent.DOG_REST);
     }
     
     // Method overloading - same method name with different parameters
@@ -132,9 +622,8 @@ class Dog extends Animal implements Playable {
     }
     
     public void eat(String food) {
-        System.out.println(name + " is eating " + food);
-        energy = Math.min(MAX_ENERGY, energy + 20);
-        isHungry = false;
+        emit(AnimalEvent.DOG_EAT, food);
+        addEnergy(20);
     }
 }
 
@@ -144,10 +633,33 @@ class Cat extends Animal implements Playable {
     private boolean isIndoor;
     private double energy;
     
+    // The energy rules of play() and rest() (ShelterStore's bulk operations follow them too)
+    static final double PLAY_COST = 12;
+    static final double REST_GAIN = 30;
+    
+    // Lets the concurrent mode compare-and-set the energy field (see Animal.setConcurrent)
+    private static final VarHandle ENERGY;
+    static {
+        try {
+            ENERGY = MethodHandles.lookup().findVarHandle(Cat.class, "energy", double.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
     public Cat(String name, int age, boolean isIndoor) {
         super(name, age); // Inherit from parent
         this.isIndoor = isIndoor;
         this.energy = MAX_ENERGY;
+        ShelterRegistry.publish(this);
+    }
+    
+    // A cat loaded from a snapshot, with the id and energy it was saved with (not logged)
+    Cat(long id, String name, int age, boolean isIndoor, double energy) {
+        super(id, name, age);
+        this.isIndoor = isIndoor;
+        this.energy = energy;
+        ShelterRegistry.publish(this);
     }
     
     // Getter and setter for encapsulation
@@ -156,48 +668,122 @@ class Cat extends Animal implements Playable {
     }
     
     public void setIndoor(boolean indoor) {
+        logChange(AnimalField.INDOOR, isIndoor ? 1 : 0, indoor ? 1 : 0);
         this.isIndoor = indoor;
+        changed();
     }
     
     public double getEnergy() {
-        return energy;
+        return isConcurrent() ? (double) ENERGY.getAcquire(this) : energy;
+    }
+    
+    // Sets every field at once when a saved cat is loaded over this one (see ShelterSnapshot)
+    void restore(boolean indoor, double energy) {
+        logChange(AnimalField.INDOOR, isIndoor ? 1 : 0, indoor ? 1 : 0);
+        this.isIndoor = indoor;
+        double before;
+        if (isConcurrent()) {
+            before = (double) ENERGY.getAndSet(this, energy);
+        } else {
+            before = this.energy;
+            this.energy = energy;
+        }
+        energyChanged(before, energy);
+    }
+    
+    @Override
+    void applyLogged(AnimalField field, long value, String text) {
+        switch (field) {
+            case INDOOR -> isIndoor = value != 0;
+            case ENERGY -> {
+                if (isConcurrent()) {
+                    ENERGY.setVolatile(this, Double.longBitsToDouble(value));
+                } else {
+                    energy = Double.longBitsToDouble(value);
+                }
+            }
+            default -> super.applyLogged(field, value, text);
+        }
+        changed();
+    }
+    
+    private void energyChanged(double before, double after) {
+        logChange(AnimalField.ENERGY, Double.doubleToRawLongBits(before), Double.doubleToRawLongBits(after));
+        changed();
+    }
+    
+    // A cat that left comes back as a new, rested cat (see Animal.readmit)
+    void readmit(String name, int age, boolean indoor) {
+        this.isIndoor = indoor;
+        this.energy = MAX_ENERGY;
+        readmit(name, age);
+    }
+    
+    // Takes amount off the energy if it is above minimum and returns whether it did
+    // (atomically in concurrent mode, like Dog.reduceEnergy)
+    private boolean useEnergy(double amount, double minimum) {
+        double current;
+        if (!isConcurrent()) {
+            current = energy;
+            if (!(current > minimum)) {
+                return false;
+            }
+            energy = current - amount;
+        } else {
+            do {
+                current = (double) ENERGY.getVolatile(this);
+                if (!(current > minimum)) {
+                    return false;
+                }
+            } while (!ENERGY.compareAndSet(this, current, current - amount));
+        }
+        energyChanged(current, current - amount);
+        return true;
     }
     
     // Override parent's abstract method
     @Override
     public void makeSound() {
-        System.out.println(name + " says: Meow! Meow!");
+        emit(AnimalEvent.CAT_SOUND);
     }
     
     @Override
     public void move() {
         if (isIndoor) {
-            System.out.println(name + " is gracefully walking around the house");
+            emit(AnimalEvent.CAT_WALK_INDOORS);
         } else {
-            System.out.println(name + " is prowling around outside");
+            emit(AnimalEvent.CAT_PROWL);
         }
-        energy -= 8;
+        useEnergy(8, Double.NEGATIVE_INFINITY);
     }
     
     @Override
     public void play() {
-        System.out.println(name + " is playing with a ball of yarn!");
-        energy -= 12;
+        emit(AnimalEvent.CAT_PLAY);
+        useEnergy(PLAY_COST, Double.NEGATIVE_INFINITY);
     }
     
     @Override
     public void rest() {
-        energy = Math.min(MAX_ENERGY, energy + 30);
-        System.out.println(name + " is napping in a sunny spot.");
+        double current;
+        if (!isConcurrent()) {
+            current = energy;
+            energy = Math.min(MAX_ENERGY, current + REST_GAIN);
+        } else {
+            do {
+                current = (double) ENERGY.getVolatile(this);
+            } while (!ENERGY.compareAndSet(this, current, Math.min(MAX_ENERGY, current + REST_GAIN)));
+        }
+        energyChanged(current, Math.min(MAX_ENERGY, current + REST_GAIN));
+        emit(AnimalEvent.CAT_NAP);
     }
     
     // Cat-specific method
     public void climb() {
-        if (energy > 15) {
-            System.out.println(name + " is climbing a tree!");
-            energy -= 15;
+        if (useEnergy(15, 15)) {
+            emit(AnimalEvent.CAT_CLIMB);
         } else {
-            System.out.println(name + " is too tired to climb.");
+            emit(AnimalEvent.CAT_TOO_TIRED_TO_CLIMB);
         }
     }
 }
@@ -209,25 +795,44 @@ class Bird extends Animal {
     private double energy;
     private static final int BIRD_MAX_ENERGY = 100; // Bird's own energy constant
     
+    // Lets the concurrent mode compare-and-set the energy field (see Animal.setConcurrent)
+    private static final VarHandle ENERGY;
+    static {
+        try {
+            ENERGY = MethodHandles.lookup().findVarHandle(Bird.class, "energy", double.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
     public Bird(String name, int age, boolean canFly) {
         super(name, age);
         this.canFly = canFly;
         this.energy = BIRD_MAX_ENERGY;
+        ShelterRegistry.publish(this);
+    }
+    
+    // A bird loaded from a snapshot, with the id and energy it was saved with (not logged)
+    Bird(long id, String name, int age, boolean canFly, double energy) {
+        super(id, name, age);
+        this.canFly = canFly;
+        this.energy = energy;
+        ShelterRegistry.publish(this);
     }
     
     @Override
     public void makeSound() {
-        System.out.println(name + " chirps: Tweet! Tweet!");
+        emit(AnimalEvent.BIRD_SOUND);
     }
     
     @Override
     public void move() {
         if (canFly) {
-            System.out.println(name + " is flying through the sky!");
+            emit(AnimalEvent.BIRD_FLY_AROUND);
         } else {
-            System.out.println(name + " is hopping on the ground.");
+            emit(AnimalEvent.BIRD_HOP);
         }
-        energy -= 10;
+        useEnergy(10, Double.NEGATIVE_INFINITY);
     }
     
     // Method overloading - compile-time polymorphism
@@ -236,40 +841,253 @@ class Bird extends Animal {
     }
     
     public void fly(int distance) {
-        if (canFly && energy > 20) {
-            System.out.println(name + " flies " + distance + " meters!");
-            energy -= (distance * 0.5);
-        } else if (!canFly) {
-            System.out.println(name + " cannot fly!");
+        if (!canFly) {
+            emit(AnimalEvent.BIRD_CANNOT_FLY);
+        } else if (useEnergy(distance * 0.5, 20)) {
+            emit(AnimalEvent.BIRD_FLY_DISTANCE, distance);
         } else {
-            System.out.println(name + " is too tired to fly.");
+            emit(AnimalEvent.BIRD_TOO_TIRED_TO_FLY);
         }
     }
     
+    // Takes amount off the energy if it is above minimum and returns whether it did
+    // (atomically in concurrent mode, like Dog.reduceEnergy)
+    private boolean useEnergy(double amount, double minimum) {
+        double current;
+        if (!isConcurrent()) {
+            current = energy;
+            if (!(current > minimum)) {
+                return false;
+            }
+            energy = current - amount;
+        } else {
+            do {
+                current = (double) ENERGY.getVolatile(this);
+                if (!(current > minimum)) {
+                    return false;
+                }
+            } while (!ENERGY.compareAndSet(this, current, current - amount));
+        }
+        energyChanged(current, current - amount);
+        return true;
+    }
+    
     public boolean canFly() {
         return canFly;
     }
     
+    // A bird that left comes back as a new, rested bird (see Animal.readmit)
+    void readmit(String name, int age, boolean canFly) {
+        this.canFly = canFly;
+        this.energy = BIRD_MAX_ENERGY;
+        readmit(name, age);
+    }
+    
     public double getEnergy() {
-        return energy;
+        return isConcurrent() ? (double) ENERGY.getAcquire(this) : energy;
+    }
+    
+    // Sets every field at once when a saved bird is loaded over this one (see ShelterSnapshot)
+    void restore(boolean canFly, double energy) {
+        logChange(AnimalField.CAN_FLY, this.canFly ? 1 : 0, canFly ? 1 : 0);
+        this.canFly = canFly;
+        double before;
+        if (isConcurrent()) {
+            before = (double) ENERGY.getAndSet(this, energy);
+        } else {
+            before = this.energy;
+            this.energy = energy;
+        }
+        energyChanged(before, energy);
+    }
+    
+    @Override
+    void applyLogged(AnimalField field, long value, String text) {
+        switch (field) {
+            case CAN_FLY -> canFly = value != 0;
+            case ENERGY -> {
+                if (isConcurrent()) {
+                    ENERGY.setVolatile(this, Double.longBitsToDouble(value));
+                } else {
+                    energy = Double.longBitsToDouble(value);
+                }
+            }
+            default -> super.applyLogged(field, value, text);
+        }
+        changed();
+    }
+    
+    private void energyChanged(double before, double after) {
+        logChange(AnimalField.ENERGY, Double.doubleToRawLongBits(before), Double.doubleToRawLongBits(after));
+        changed();
+    }
+}
+
+// ========================== THREAD-SAFE REGISTRY ==========================
+// Keeps track of every animal created, even when many threads create animals at once.
+// LongAdder spreads increments over several internal cells, so threads rarely fight
+// over the same counter, and ConcurrentHashMap lets threads add names without a global lock.
+// Names point to their animals through weak references: the registry never keeps an animal
+// alive by itself, and the entries of animals that were garbage collected are dropped on the
+// next publish.
+class ShelterRegistry {
+    // Animals in the shelter now, and every animal that ever came in (leave() only lowers the first)
+    private static final LongAdder totalRegistered = new LongAdder();
+    private static final LongAdder totalCreated = new LongAdder();
+    private static final ConcurrentHashMap<Class<?>, LongAdder> speciesCounts = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, NamedAnimal> animalsByName = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Animal> collected = new ReferenceQueue<>();
+    
+    private static final class NamedAnimal extends WeakReference<Animal> {
+        final String name;
+        
+        NamedAnimal(Animal animal) {
+            super(animal, collected);
+            this.name = animal.name;
+        }
+    }
+    
+    // Ids are handed out in blocks, so threads only touch the shared AtomicLong once per block.
+    // Ids below firstFreeId are taken by animals from a snapshot or a change log (reserveIds):
+    // a block that reaches below it is given up for a new one
+    private static final int ID_BLOCK_SIZE = 1024;
+    private static final AtomicLong nextIdBlock = new AtomicLong();
+    private static final AtomicLong firstFreeId = new AtomicLong();
+    private static final ThreadLocal<long[]> idRange = ThreadLocal.withInitial(() -> new long[2]); // {next, end}
+    
+    // ClassValue caches the counter for each species directly on the class,
+    // so the hot path never has to look it up in the map
+    private static final ClassValue<LongAdder> speciesCounter = new ClassValue<>() {
+        @Override
+        protected LongAdder computeValue(Class<?> species) {
+            return speciesCounts.computeIfAbsent(species, key -> new LongAdder());
+        }
+    };
+    
+    // Called from the Animal constructor (subclass fields are not set yet at that point, so
+    // the animal itself must not be handed to anyone here). Returns the new animal's id
+    static long register(Animal animal) {
+        totalRegistered.increment();
+        totalCreated.increment();
+        speciesCounter.get(animal.getClass()).increment();
+        return nextId();
+    }
+    
+    // The same for an animal that keeps the id it had before (see Animal(long, String, int)):
+    // no new animal gets that id or a lower one from now on. Two animals loaded with the same
+    // id are the same animal, e.g. a snapshot loaded next to the animals it was saved from
+    static long register(Animal animal, long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Animal id must not be negative: " + id);
+        }
+        totalRegistered.increment();
+        totalCreated.increment();
+        speciesCounter.get(animal.getClass()).increment();
+        reserveIds(id);
+        return id;
+    }
+    
+    // Ids up to lastId are in use elsewhere (a snapshot, a change log): new animals get higher
+    // ones. Load those before creating animals, or new animals may already have such ids
+    static void reserveIds(long lastId) {
+        if (firstFreeId.get() <= lastId) {
+            nextIdBlock.accumulateAndGet(lastId + 1, Math::max); // First, so new blocks start above
+            firstFreeId.accumulateAndGet(lastId + 1, Math::max);
+        }
+    }
+    
+    // Called by Dog, Cat and Bird once their constructor (or readmit) has set every field:
+    // from now on findByName can return the animal
+    static void publish(Animal animal) {
+        for (Reference<? extends Animal> gone; (gone = collected.poll()) != null; ) {
+            NamedAnimal entry = (NamedAnimal) gone;
+            animalsByName.remove(entry.name, entry);
+        }
+        if (animal.name != null) {
+            animalsByName.put(animal.name, new NamedAnimal(animal)); // Latest animal with a given name wins
+        }
+    }
+    
+    private static long nextId() {
+        long[] range = idRange.get();
+        if (range[0] == range[1] || range[0] < firstFreeId.get()) {
+            range[0] = nextIdBlock.getAndAdd(ID_BLOCK_SIZE);
+            range[1] = range[0] + ID_BLOCK_SIZE;
+        }
+        return range[0]++;
+    }
+    
+    // Remove an animal that has left the shelter
+    static void deregister(Animal animal) {
+        totalRegistered.decrement();
+        speciesCounter.get(animal.getClass()).decrement();
+        if (animal.name != null) {
+            animalsByName.computeIfPresent(animal.name, (name, entry) -> entry.get() == animal ? null : entry);
+        }
+    }
+    
+    public static long totalRegistered() {
+        return totalRegistered.sum();
+    }
+    
+    // Readmitted animals count again: they come back under a new id
+    public static long totalCreated() {
+        return totalCreated.sum();
+    }
+    
+    public static long countOf(Class<? extends Animal> species) {
+        LongAdder counter = speciesCounts.get(species);
+        return counter == null ? 0 : counter.sum();
+    }
+    
+    // Snapshot of the per-species counts, e.g. {Dog=1, Cat=1, Bird=1}
+    public static Map<String, Long> speciesCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        speciesCounts.forEach((species, counter) -> counts.put(species.getSimpleName(), counter.sum()));
+        return counts;
+    }
+    
+    // null if no animal has that name, or it has left or been garbage collected
+    public static Animal findByName(String name) {
+        NamedAnimal entry = animalsByName.get(name);
+        return entry == null ? null : entry.get();
     }
 }
 
 // Utility class demonstrating static methods and variables
 class AnimalShelter {
-    // Static variable - belongs to class, not instance
-    private static int totalAnimalsCreated = 0;
+    private static final String BANNER = "=".repeat(50);
+    
+    // The last text displayInfo() printed and the animal count it shows; it is only built
+    // again once the count has changed (one record, so threads always see both together)
+    private record Info(long total, String text) {}
+    
+    private static volatile Info info = new Info(-1, "");
     
     // Static method - can be called without creating an instance
     public static void displayInfo() {
-        System.out.println("=".repeat(50));
-        System.out.println("ANIMAL SHELTER MANAGEMENT SYSTEM");
-        System.out.println("Total animals created: " + totalAnimalsCreated);
-        System.out.println("=".repeat(50));
+        System.out.print(info());
     }
     
-    public static void incrementAnimalCount() {
-        totalAnimalsCreated++;
+    // The text displayInfo() prints, line breaks included
+    static String info() {
+        long total = getTotalAnimalsCreated();
+        Info current = info;
+        if (current.total() != total) {
+            String line = System.lineSeparator();
+            current = new Info(total, BANNER + line
+                    + "ANIMAL SHELTER MANAGEMENT SYSTEM" + line
+                    + "Total animals created: " + total + line
+                    + BANNER + line);
+            info = current;
+        }
+        return current.text();
+    }
+    
+    // Animals count themselves when they are constructed (see ShelterRegistry); animals
+    // that have left the shelter since are still counted
+    public static long getTotalAnimalsCreated() {
+        return ShelterRegistry.totalCreated();
     }
     
     // Static method demonstrating polymorphism
@@ -291,9 +1109,11 @@ class AnimalShelter {
 
 // Main class demonstrating all OOP concepts
 public class oops {
+    private static final String RULE = "=".repeat(60);
+    
     public static void main(String[] args) {
         System.out.println("COMPREHENSIVE OBJECT-ORIENTED PROGRAMMING DEMO");
-        System.out.println("=" .repeat(60));
+        System.out.println(RULE);
         
         // ========================== OBJECT CREATION ==========================
         System.out.println("\n1. CREATING OBJECTS (INSTANTIATION)");
@@ -303,12 +1123,10 @@ public class oops {
         Cat myCat = new Cat("Whiskers", 2, true);
         Bird myBird = new Bird("Tweety", 1, true);
         
-        // Update animal count
-        AnimalShelter.incrementAnimalCount();
-        AnimalShelter.incrementAnimalCount();
-        AnimalShelter.incrementAnimalCount();
-        
+        // No need to update the animal count - each constructor registers its animal
         AnimalShelter.displayInfo();
+        System.out.println("Animals per species: " + ShelterRegistry.speciesCounts());
+        System.out.println("Found by name: " + ShelterRegistry.findByName("Buddy").name);
         
         // ========================== ENCAPSULATION DEMO ==========================
         System.out.println("\n2. ENCAPSULATION (DATA HIDING & CONTROLLED ACCESS)");
@@ -401,7 +1219,7 @@ public class oops {
         System.out.println("Can this bird fly? " + myBird.canFly());
         myBird.fly(25);
         
-        System.out.println("\n" + "=".repeat(60));
+        System.out.println("\n" + RULE);
         System.out.println("OOP CONCEPTS DEMONSTRATED:");
         System.out.println("✓ Classes and Objects");
         System.out.println("✓ Encapsulation (private fields, getters/setters)");
@@ -413,6 +1231,6 @@ public class oops {
         System.out.println("✓ Method overriding with @Override annotation");
         System.out.println("✓ Access modifiers (private, protected, public)");
         System.out.println("✓ Constructor chaining with super()");
-        System.out.println("=" .repeat(60));
+        System.out.println(RULE);
     }
 }
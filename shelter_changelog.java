@@ -0,0 +1,761 @@
+// Memory-Mapped Change Log for Animal State in Java
+// Builds on the Animal / Dog / Cat / Bird classes from oops.java
+// Compile and run together with oops.java:
+//   javac oops.java shelter_changelog.java && java shelter_changelog [changes]
+//
+// Plugged in with Animal.setChangeLog, a ShelterChangeLog gets every change of a logged field
+// (AnimalField: a dog's energy and hunger, breeds, cats' and birds' energy, indoor, canFly)
+// with its old and new value, and appends it to a file as one fixed-width record:
+//
+//   header   32 bytes: magic "CHLG", format version, record size, compacted-through sequence,
+//            durable record count, highest animal id in those records (-1 for none)
+//   records  32 bytes each: sequence number (1, 2, 3...; 0 marks the end of the log),
+//            animal id << 8 | field, old value, new value - all little-endian longs
+//
+// The file is memory-mapped in SEGMENT_SIZE pieces, so an append is four stores into memory
+// (no system call); the operating system writes the pages out on its own. Strings (breeds)
+// are stored once in a side file, <log>.strings, and records hold their numbers.
+// Pages the operating system writes out on its own can reach the disk in any order, so after
+// a crash the records past the last force may have holes. Every force is therefore followed by
+// writing the durable record count into the header (and forcing that): on opening, the records
+// up to it are trusted, and after them only the unbroken run of sequence numbers is kept.
+// Everything after the first gap is erased before anything new is appended.
+//
+// Records name animals by id, so the ids must mean the same animals in every run that writes
+// to or replays the log. Animals loaded from a snapshot (shelter_snapshot.java) keep the id
+// they were saved with, and opening a log reserves every id in it (ShelterRegistry.reserveIds),
+// so animals created afterwards never take the id of an animal from an earlier run. Open the
+// log, and load the snapshot, before creating any animals.
+//
+//   - awaitDurable(seq) forces the log to disk up to seq. One force covers every record
+//     appended so far, and callers that come in while a force runs are covered by the next
+//     one (group commit): 8 threads waiting on every change need far fewer than 8 forces each.
+//     startAutoCommit(period) forces in the background instead
+//   - replay(after, through, animals) sets fields to their new values, oldest first; rollback
+//     (to, animals) sets them back to their old values, newest first. Together they move live
+//     animals to the state at any sequence number
+//   - compact(through) keeps one record per animal and field up to through, holding the oldest
+//     old value and the newest new value; rolling back into that range is then only possible
+//     as a whole (to through, or to before the log began)
+//
+// Changes to one animal from several threads at once (concurrent mode) can be logged in a
+// different order than they happened; a replay is exact as long as each animal is changed by
+// one thread at a time (for example through KeeperService in shelter_keepers.java).
+//
+// Measured (1 CPU): 65-110 ns per record on top of the change itself, most of it the first
+// write to each new page of the file (Dog.play() + rest() without a log plugged in costs the
+// same as before the log existed); forcing 6,000,000 records (183 MB) takes about 150 ms.
+// 8 keepers waiting for every change got about 12,000 durable changes/s with 2 changes per
+// force: on one CPU few keepers are waiting at the same moment, so the groups stay small, and
+// each group pays for two forces (the records, then the header's durable count). Without the
+// second force it was about 22,000/s, but a crash could then leave a log that opens wrong.
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+// ========================== THE LOG ==========================
+class ShelterChangeLog implements AnimalChangeLog, Closeable {
+    static final int MAGIC = 0x474C4843; // "CHLG" read as a little-endian int
+    static final int FORMAT_VERSION = 2; // 2: the header holds the highest animal id
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 32;
+    static final int SEGMENT_SIZE = 64 << 20; // A whole number of records
+
+    // Header layout
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int RECORD_SIZE_AT = 6;
+    private static final int COMPACTED_THROUGH_AT = 8;
+    private static final int DURABLE_COUNT_AT = 16;
+    private static final int MAX_ANIMAL_ID_AT = 24;
+
+    // Record layout
+    private static final int SEQUENCE_AT = 0;
+    private static final int KEY_AT = 8;
+    private static final int OLD_AT = 16;
+    private static final int NEW_AT = 24;
+
+    private static final AnimalField[] FIELDS = AnimalField.values();
+    private static final long NO_STRING = -1;
+
+    // Reads the records, oldest first (see forEach)
+    interface ChangeVisitor {
+        void visit(long sequence, long animalId, AnimalField field, long oldValue, long newValue);
+    }
+
+    private final Path file;
+    private final Path stringsFile;
+    private FileChannel channel;
+    private final FileChannel stringsChannel;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    // Guarded by this
+    private long count;
+    private long lastSequence;
+    private long compactedThrough;
+    private long maxAnimalId;
+    private boolean closed;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private String[] strings = new String[16];
+    private int stringCount;
+    private boolean stringsWritten;
+
+    // Guarded by commitLock; durableSequence is also read without it
+    private final Object commitLock = new Object();
+    private long durableCount;
+    private volatile long durableSequence;
+    private long forces;
+
+    // Opens the log, or creates it if the file does not exist
+    ShelterChangeLog(Path file) throws IOException {
+        this.file = file;
+        this.stringsFile = file.resolveSibling(file.getFileName() + ".strings");
+        this.stringsChannel = FileChannel.open(stringsFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        readStrings();
+        open();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        segments = new MappedByteBuffer[0];
+        if (size == 0) {
+            ByteBuffer header = segment(0);
+            header.putInt(MAGIC_AT, MAGIC);
+            header.putShort(VERSION_AT, (short) FORMAT_VERSION);
+            header.putShort(RECORD_SIZE_AT, (short) RECORD_SIZE);
+            header.putLong(COMPACTED_THROUGH_AT, 0);
+            header.putLong(DURABLE_COUNT_AT, 0);
+            header.putLong(MAX_ANIMAL_ID_AT, -1);
+        } else {
+            for (long mapped = 0; mapped < size; mapped += SEGMENT_SIZE) {
+                segment(mapped);
+            }
+            ByteBuffer header = segments[0];
+            if (header.getInt(MAGIC_AT) != MAGIC) {
+                throw new IOException(file + " is not a change log");
+            }
+            if (header.getShort(VERSION_AT) != FORMAT_VERSION || header.getShort(RECORD_SIZE_AT) != RECORD_SIZE) {
+                throw new IOException(file + " has format version " + header.getShort(VERSION_AT) + ", expected " + FORMAT_VERSION);
+            }
+        }
+        compactedThrough = segments[0].getLong(COMPACTED_THROUGH_AT);
+        long capacity = ((long) segments.length * SEGMENT_SIZE - HEADER_SIZE) / RECORD_SIZE;
+        // Records are appended with sequence numbers one apart (compaction only leaves gaps
+        // before the durable count), so the run ends at the first record that does not follow
+        long end = Math.min(segments[0].getLong(DURABLE_COUNT_AT), capacity);
+        long next = (end == 0 ? compactedThrough : sequenceAt(end - 1)) + 1;
+        maxAnimalId = segments[0].getLong(MAX_ANIMAL_ID_AT);
+        while (end < capacity && sequenceAt(end) == next) {
+            maxAnimalId = Math.max(maxAnimalId, animalIdAt(end));
+            end++;
+            next++;
+        }
+        eraseFrom(end, capacity);
+        count = end;
+        lastSequence = count == 0 ? compactedThrough : sequenceAt(count - 1);
+        durableCount = count;
+        durableSequence = lastSequence;
+        ShelterRegistry.reserveIds(maxAnimalId);
+    }
+
+    // Clears the sequence number of every record left after the end, and forces that, so a
+    // record from before a crash can never look like the continuation of new ones
+    private void eraseFrom(long end, long capacity) {
+        long first = -1;
+        long last = -1;
+        for (long record = end; record < capacity; record++) {
+            if (sequenceAt(record) != 0) {
+                long position = positionOf(record);
+                segments[(int) (position / SEGMENT_SIZE)].putLong((int) (position % SEGMENT_SIZE) + SEQUENCE_AT, 0);
+                first = first < 0 ? record : first;
+                last = record;
+            }
+        }
+        if (first >= 0) {
+            force(segments, positionOf(first), positionOf(last + 1));
+        }
+    }
+
+    // The segment holding the given file position, mapped (and the file grown) if needed
+    private MappedByteBuffer segment(long position) throws IOException {
+        int index = (int) (position / SEGMENT_SIZE);
+        while (segments.length <= index) {
+            MappedByteBuffer next = channel.map(FileChannel.MapMode.READ_WRITE, (long) segments.length * SEGMENT_SIZE, SEGMENT_SIZE);
+            next.order(ByteOrder.LITTLE_ENDIAN);
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            segments[segments.length - 1] = next;
+        }
+        return segments[index];
+    }
+
+    private static long positionOf(long record) {
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    private long sequenceAt(long record) {
+        long position = positionOf(record);
+        return segments[(int) (position / SEGMENT_SIZE)].getLong((int) (position % SEGMENT_SIZE) + SEQUENCE_AT);
+    }
+
+    private long animalIdAt(long record) {
+        long position = positionOf(record);
+        return segments[(int) (position / SEGMENT_SIZE)].getLong((int) (position % SEGMENT_SIZE) + KEY_AT) >>> 8;
+    }
+
+    // ========================== APPENDING ==========================
+    @Override
+    public synchronized void record(long animalId, AnimalField field, long oldValue, long newValue) {
+        if (closed) {
+            throw new IllegalStateException(file + " is closed");
+        }
+        long position = positionOf(count);
+        ByteBuffer segment;
+        try {
+            segment = segment(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int at = (int) (position % SEGMENT_SIZE);
+        long sequence = lastSequence + 1;
+        segment.putLong(at + KEY_AT, animalId << 8 | field.ordinal());
+        segment.putLong(at + OLD_AT, oldValue);
+        segment.putLong(at + NEW_AT, newValue);
+        segment.putLong(at + SEQUENCE_AT, sequence); // Last: a record with a sequence number is complete
+        lastSequence = sequence;
+        count++;
+        if (animalId > maxAnimalId) {
+            maxAnimalId = animalId;
+        }
+    }
+
+    @Override
+    public synchronized void recordText(long animalId, AnimalField field, String oldValue, String newValue) {
+        record(animalId, field, stringId(oldValue), stringId(newValue));
+    }
+
+    private long stringId(String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        Integer id = stringIds.get(value);
+        if (id != null) {
+            return id;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(4 + utf8.length).order(ByteOrder.LITTLE_ENDIAN);
+        entry.putInt(utf8.length).put(utf8).flip();
+        try {
+            while (entry.hasRemaining()) {
+                stringsChannel.write(entry, stringsChannel.size());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stringsWritten = true;
+        return addString(value);
+    }
+
+    private int addString(String value) {
+        if (stringCount == strings.length) {
+            strings = Arrays.copyOf(strings, stringCount * 2);
+        }
+        strings[stringCount] = value;
+        stringIds.put(value, stringCount);
+        return stringCount++;
+    }
+
+    private void readStrings() throws IOException {
+        ByteBuffer all = ByteBuffer.allocate((int) stringsChannel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        while (all.hasRemaining() && stringsChannel.read(all, all.position()) >= 0) {
+        }
+        all.flip();
+        while (all.remaining() >= 4) {
+            int length = all.getInt();
+            if (length > all.remaining()) {
+                break; // Cut off while being written; the records using it were never committed
+            }
+            byte[] utf8 = new byte[length];
+            all.get(utf8);
+            addString(new String(utf8, StandardCharsets.UTF_8));
+        }
+    }
+
+    synchronized String string(long id) {
+        return id == NO_STRING ? null : strings[(int) id];
+    }
+
+    // ========================== GROUP COMMIT ==========================
+    // Returns once every record up to sequence is on disk. Whoever gets commitLock forces all
+    // records appended so far; the callers waiting for the lock meanwhile usually find their
+    // records covered when they get it, and return without a force of their own
+    void awaitDurable(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        synchronized (commitLock) {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            long target;
+            long targetSequence;
+            long targetMaxId;
+            boolean newStrings;
+            MappedByteBuffer[] mapped;
+            synchronized (this) {
+                target = count;
+                targetSequence = lastSequence;
+                targetMaxId = maxAnimalId;
+                newStrings = stringsWritten;
+                stringsWritten = false;
+                mapped = segments;
+            }
+            try {
+                if (newStrings) {
+                    stringsChannel.force(false);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            force(mapped, positionOf(durableCount), positionOf(target));
+            // Only once the records are on disk may the header say so
+            mapped[0].putLong(DURABLE_COUNT_AT, target);
+            mapped[0].putLong(MAX_ANIMAL_ID_AT, targetMaxId);
+            mapped[0].force(0, HEADER_SIZE);
+            forces++;
+            durableCount = target;
+            durableSequence = targetSequence;
+        }
+    }
+
+    // Forces everything appended so far
+    void commit() {
+        awaitDurable(lastSequence());
+    }
+
+    private static void force(MappedByteBuffer[] mapped, long from, long to) {
+        while (from < to) {
+            int index = (int) (from / SEGMENT_SIZE);
+            int at = (int) (from % SEGMENT_SIZE);
+            int length = (int) Math.min(to - from, SEGMENT_SIZE - at);
+            mapped[index].force(at, length);
+            from += length;
+        }
+    }
+
+    // Commits every period from a daemon thread; shut the executor down to stop
+    ScheduledExecutorService startAutoCommit(Duration period) {
+        ScheduledExecutorService committer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "shelter-changelog-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = period.toMillis();
+        committer.scheduleAtFixedRate(this::commit, millis, millis, TimeUnit.MILLISECONDS);
+        return committer;
+    }
+
+    synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    long durableSequence() {
+        return durableSequence;
+    }
+
+    synchronized long records() {
+        return count;
+    }
+
+    synchronized long compactedThrough() {
+        return compactedThrough;
+    }
+
+    // The highest animal id in the log, -1 if there are no records
+    synchronized long maxAnimalId() {
+        return maxAnimalId;
+    }
+
+    long forces() {
+        synchronized (commitLock) {
+            return forces;
+        }
+    }
+
+    // ========================== READING AND REPLAY ==========================
+    // Visits the records with afterSequence < sequence <= throughSequence, oldest first
+    void forEach(long afterSequence, long throughSequence, ChangeVisitor visitor) {
+        MappedByteBuffer[] mapped;
+        long end;
+        synchronized (this) {
+            mapped = segments;
+            end = count;
+        }
+        for (long record = firstAfter(mapped, end, afterSequence); record < end; record++) {
+            long position = positionOf(record);
+            ByteBuffer segment = mapped[(int) (position / SEGMENT_SIZE)];
+            int at = (int) (position % SEGMENT_SIZE);
+            long sequence = segment.getLong(at + SEQUENCE_AT);
+            if (sequence > throughSequence) {
+                break;
+            }
+            long key = segment.getLong(at + KEY_AT);
+            visitor.visit(sequence, key >>> 8, FIELDS[(int) (key & 0xFF)], segment.getLong(at + OLD_AT), segment.getLong(at + NEW_AT));
+        }
+    }
+
+    private static long firstAfter(MappedByteBuffer[] mapped, long end, long sequence) {
+        long low = 0;
+        long high = end;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            long position = positionOf(middle);
+            if (mapped[(int) (position / SEGMENT_SIZE)].getLong((int) (position % SEGMENT_SIZE) + SEQUENCE_AT) <= sequence) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Moves the animals forward: sets each field to its new value, for the records after
+    // afterSequence up to throughSequence. animals finds an animal by id; records of animals
+    // it returns null for are skipped. Returns how many records were applied
+    long replay(long afterSequence, long throughSequence, LongFunction<? extends Animal> animals) {
+        long[] applied = {0};
+        forEach(afterSequence, throughSequence, (sequence, animalId, field, oldValue, newValue) -> {
+            Animal animal = animals.apply(animalId);
+            if (animal != null) {
+                animal.applyLogged(field, newValue, field == AnimalField.BREED ? string(newValue) : null);
+                applied[0]++;
+            }
+        });
+        return applied[0];
+    }
+
+    // Moves the animals back to where they were right after toSequence: sets each field to
+    // its old value, newest record first. Returns how many records were applied
+    long rollback(long toSequence, LongFunction<? extends Animal> animals) {
+        long compacted = compactedThrough();
+        if (toSequence > 0 && toSequence < compacted) {
+            throw new IllegalArgumentException("the log is compacted through " + compacted + ", cannot roll back to " + toSequence);
+        }
+        MappedByteBuffer[] mapped;
+        long end;
+        synchronized (this) {
+            mapped = segments;
+            end = count;
+        }
+        long applied = 0;
+        for (long record = end - 1; record >= 0; record--) {
+            long position = positionOf(record);
+            ByteBuffer segment = mapped[(int) (position / SEGMENT_SIZE)];
+            int at = (int) (position % SEGMENT_SIZE);
+            if (segment.getLong(at + SEQUENCE_AT) <= toSequence) {
+                break;
+            }
+            long key = segment.getLong(at + KEY_AT);
+            AnimalField field = FIELDS[(int) (key & 0xFF)];
+            Animal animal = animals.apply(key >>> 8);
+            if (animal != null) {
+                long oldValue = segment.getLong(at + OLD_AT);
+                animal.applyLogged(field, oldValue, field == AnimalField.BREED ? string(oldValue) : null);
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    // ========================== COMPACTION ==========================
+    // Rewrites the log with one record per animal and field for the records up to
+    // throughSequence (at the sequence number of the newest one). Appends and commits wait
+    // meanwhile (commitLock before this, like awaitDurable). Returns how many records were dropped
+    long compact(long throughSequence) throws IOException {
+        synchronized (commitLock) {
+            synchronized (this) {
+                return rewrite(throughSequence);
+            }
+        }
+    }
+
+    private long rewrite(long throughSequence) throws IOException {
+        Map<Long, long[]> latest = new LinkedHashMap<>(); // key -> {sequence, old, new}
+        long[] kept = {0};
+        forEach(0, throughSequence, (sequence, animalId, field, oldValue, newValue) -> {
+            long[] change = latest.get(animalId << 8 | field.ordinal());
+            if (change == null) {
+                latest.put(animalId << 8 | field.ordinal(), new long[] {sequence, oldValue, newValue});
+            } else {
+                change[0] = sequence;
+                change[2] = newValue;
+            }
+            kept[0]++;
+        });
+        long[][] merged = latest.entrySet().stream()
+                .map(entry -> new long[] {entry.getValue()[0], entry.getKey(), entry.getValue()[1], entry.getValue()[2]})
+                .sorted((a, b) -> Long.compare(a[0], b[0]))
+                .toArray(long[][]::new);
+
+        Path rewritten = file.resolveSibling(file.getFileName() + ".compacting");
+        try (FileChannel out = FileChannel.open(rewritten, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            // The whole file is forced before it replaces the log, so every record is durable
+            long written = merged.length + (count - kept[0]);
+            buffer.putInt(MAGIC).putShort((short) FORMAT_VERSION).putShort((short) RECORD_SIZE)
+                    .putLong(Math.max(compactedThrough, Math.min(throughSequence, lastSequence)))
+                    .putLong(written)
+                    .putLong(maxAnimalId);
+            buffer.position(HEADER_SIZE);
+            for (long[] change : merged) {
+                buffer = putRecord(out, buffer, change[0], change[1], change[2], change[3]);
+            }
+            ByteBuffer[] target = {buffer};
+            forEach(throughSequence, Long.MAX_VALUE, (sequence, animalId, field, oldValue, newValue) -> {
+                try {
+                    target[0] = putRecord(out, target[0], sequence, animalId << 8 | field.ordinal(), oldValue, newValue);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            write(out, target[0]);
+            out.force(true);
+        }
+        channel.close();
+        Files.move(rewritten, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+        return kept[0] - merged.length;
+    }
+
+    private static ByteBuffer putRecord(FileChannel out, ByteBuffer buffer, long sequence, long key, long oldValue,
+                                        long newValue) throws IOException {
+        if (buffer.remaining() < RECORD_SIZE) {
+            write(out, buffer);
+        }
+        return buffer.putLong(sequence).putLong(key).putLong(oldValue).putLong(newValue);
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Commits and stops taking records (unplug it from Animal.setChangeLog first)
+    @Override
+    public void close() throws IOException {
+        commit();
+        synchronized (this) {
+            closed = true;
+            segments = new MappedByteBuffer[0];
+            channel.close();
+            stringsChannel.close();
+        }
+    }
+}
+
+// ========================== DEMO ==========================
+public class shelter_changelog {
+    public static void main(String[] args) throws Exception {
+        int changes = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Path directory = Files.createTempDirectory("shelter-changelog");
+
+        System.out.println("CHANGE LOG DEMO");
+        System.out.println("=".repeat(60));
+
+        // ========================== WHAT GETS LOGGED ==========================
+        System.out.println("\n1. EVERY CHANGE, WITH ITS OLD AND NEW VALUE");
+        ShelterChangeLog log = new ShelterChangeLog(directory.resolve("small.log"));
+        Animal.setEventSink(AnimalEventSink.NONE);
+        Dog buddy = new Dog("Buddy", 3, "Golden Retriever");
+        Cat whiskers = new Cat("Whiskers", 2, true);
+        Bird tweety = new Bird("Tweety", 1, true);
+        Map<Long, Animal> byId = new HashMap<>();
+        for (Animal animal : new Animal[] {buddy, whiskers, tweety}) {
+            byId.put(animal.id, animal);
+        }
+        Animal.setChangeLog(log);
+        buddy.play();
+        buddy.play();
+        buddy.setBreed("Labrador");
+        whiskers.climb();
+        whiskers.setIndoor(false);
+        long middle = log.lastSequence();
+        buddy.move();
+        buddy.move();
+        buddy.eat();
+        tweety.fly(30);
+        whiskers.rest();
+        Animal.setChangeLog(AnimalChangeLog.NONE);
+        log.forEach(0, Long.MAX_VALUE, (sequence, animalId, field, oldValue, newValue) ->
+                System.out.printf("#%-2d %-8s %-9s %s -> %s%n", sequence, byId.get(animalId).name, field,
+                        show(log, field, oldValue), show(log, field, newValue)));
+        System.out.println("Now:                 " + describe(buddy, whiskers, tweety));
+        log.rollback(middle, byId::get);
+        System.out.println("Rolled back to #" + middle + ":   " + describe(buddy, whiskers, tweety));
+        log.rollback(0, byId::get);
+        System.out.println("Rolled back to #0:   " + describe(buddy, whiskers, tweety));
+        log.replay(0, log.lastSequence(), byId::get);
+        System.out.println("Replayed to #" + log.lastSequence() + ":   " + describe(buddy, whiskers, tweety));
+        log.close();
+
+        // ========================== APPEND COST ==========================
+        System.out.printf("%n2. COST PER CHANGE (%,d play() + rest() on 1,000 dogs)%n", changes);
+        ShelterChangeLog big = new ShelterChangeLog(directory.resolve("big.log"));
+        Dog[] dogs = new Dog[1000];
+        for (int i = 0; i < dogs.length; i++) {
+            dogs[i] = new Dog("Dog" + i, i % 15, "Beagle");
+        }
+        for (int round = 0; round < 3; round++) { // The last round is the one reported
+            Animal.setChangeLog(AnimalChangeLog.NONE);
+            long off = time(dogs, changes);
+            Animal.setChangeLog(big);
+            long before = big.lastSequence();
+            long on = time(dogs, changes);
+            long logged = big.lastSequence() - before;
+            if (round == 2) {
+                System.out.printf("Without the log: %.1f ns per call%n", (double) off / changes);
+                System.out.printf("With the log:    %.1f ns per call, %,d records, %.1f ns per record on top%n",
+                        (double) on / changes, logged, (double) (on - off) / logged);
+            }
+        }
+        Animal.setChangeLog(AnimalChangeLog.NONE);
+        long start = System.nanoTime();
+        big.commit();
+        System.out.printf("One commit of %,d records (%,d MB): %.1f ms%n", big.records(),
+                big.records() * ShelterChangeLog.RECORD_SIZE >> 20, (System.nanoTime() - start) / 1e6);
+        big.close();
+
+        // ========================== GROUP COMMIT ==========================
+        System.out.println("\n3. 8 KEEPERS, EACH WAITING FOR EVERY CHANGE TO BE ON DISK");
+        ShelterChangeLog shared = new ShelterChangeLog(directory.resolve("shared.log"));
+        Animal.setChangeLog(shared);
+        Thread[] keepers = new Thread[8];
+        long groupStart = System.nanoTime();
+        for (int k = 0; k < keepers.length; k++) {
+            Dog own = new Dog("Keeper" + k + "Dog", 2, "Beagle");
+            keepers[k] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    if (i % 2 == 0) {
+                        own.play();
+                    } else {
+                        own.rest();
+                    }
+                    shared.awaitDurable(shared.lastSequence());
+                }
+            });
+            keepers[k].start();
+        }
+        for (Thread keeper : keepers) {
+            keeper.join();
+        }
+        long groupNanos = System.nanoTime() - groupStart;
+        Animal.setChangeLog(AnimalChangeLog.NONE);
+        System.out.printf("%,d durable changes with %,d forces (%.1f changes per force), %,.0f changes/s%n",
+                shared.records(), shared.forces(), (double) shared.records() / shared.forces(), shared.records() / (groupNanos / 1e9));
+        shared.close();
+
+        // ========================== COMPACTION ==========================
+        System.out.println("\n4. COMPACTION");
+        ShelterChangeLog compacting = new ShelterChangeLog(directory.resolve("compact.log"));
+        Cat[] cats = new Cat[100];
+        Map<Long, Animal> catsById = new HashMap<>();
+        for (int i = 0; i < cats.length; i++) {
+            cats[i] = new Cat("Cat" + i, i % 15, i % 2 == 0);
+            catsById.put(cats[i].id, cats[i]);
+        }
+        double[] initial = energies(cats);
+        Animal.setChangeLog(compacting);
+        for (int i = 0; i < 100_000; i++) {
+            Cat cat = cats[i % cats.length];
+            switch (i % 3) {
+                case 0 -> cat.play();
+                case 1 -> cat.rest();
+                default -> cat.setIndoor(!cat.isIndoor());
+            }
+        }
+        Animal.setChangeLog(AnimalChangeLog.NONE);
+        double[] current = energies(cats);
+        long through = compacting.lastSequence() - 1000;
+        long before = compacting.records();
+        long dropped = compacting.compact(through);
+        System.out.printf("Compacted through #%,d: %,d records -> %,d (%,d dropped)%n", through, before, compacting.records(), dropped);
+        compacting.rollback(0, catsById::get);
+        System.out.println("Rolled back to #0, energies as at the start: " + Arrays.equals(energies(cats), initial));
+        compacting.replay(0, compacting.lastSequence(), catsById::get);
+        System.out.println("Replayed to the end, energies as before:     " + Arrays.equals(energies(cats), current));
+        compacting.close();
+        try (ShelterChangeLog reopened = new ShelterChangeLog(directory.resolve("compact.log"))) {
+            System.out.printf("Reopened: %,d records, last #%,d, compacted through #%,d%n",
+                    reopened.records(), reopened.lastSequence(), reopened.compactedThrough());
+            System.out.println("Ids up to " + reopened.maxAnimalId() + " are reserved, a cat admitted now gets "
+                    + (new Cat("Newcomer", 1, true).id > reopened.maxAnimalId() ? "a higher one" : "one of them"));
+        }
+
+        Animal.setEventSink(AnimalEventSink.CONSOLE);
+        try (var files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+        System.out.println("=".repeat(60));
+    }
+
+    private static String show(ShelterChangeLog log, AnimalField field, long value) {
+        return switch (field) {
+            case DOG_STATE -> String.format("energy %.0f%s", Double.longBitsToDouble(value & Long.MAX_VALUE), value < 0 ? " hungry" : "");
+            case BREED -> log.string(value);
+            case ENERGY -> String.format("%.0f", Double.longBitsToDouble(value));
+            case INDOOR, CAN_FLY -> value != 0 ? "true" : "false";
+        };
+    }
+
+    private static String describe(Dog dog, Cat cat, Bird bird) {
+        return String.format("%s (%s) %.0f%s, %s %.0f%s, %s %.0f", dog.name, dog.getBreed(), dog.getEnergy(),
+                dog.isHungry() ? " hungry" : "", cat.name, cat.getEnergy(), cat.isIndoor() ? " indoor" : "",
+                bird.name, bird.getEnergy());
+    }
+
+    private static double[] energies(Cat[] cats) {
+        double[] energies = new double[cats.length];
+        for (int i = 0; i < cats.length; i++) {
+            energies[i] = cats[i].getEnergy();
+        }
+        return energies;
+    }
+
+    // calls/2 rounds of play() + rest(), spread over the dogs
+    private static long time(Dog[] dogs, int calls) {
+        long start = System.nanoTime();
+        for (int i = 0; i < calls / 2; i++) {
+            Dog dog = dogs[i % dogs.length];
+            dog.play();
+            dog.rest();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,169 @@
+// Concurrent Energy Accounting Stress Test in Java
+// Many keeper threads play with the same Dog, Cat and Bird from oops.java, first with plain
+// energy fields and then in concurrent mode (Animal.setConcurrent), where every energy change
+// is one compare-and-set: a dog's energy and hunger are packed into a single long, and checks
+// like "only fetch with more than 20 energy" happen in the same step as the change.
+// Compile and run together with oops.java:
+//   javac oops.java shelter_concurrent.java && java shelter_concurrent [threads] [rounds]
+//
+// A lost update needs a thread to be interrupted between reading and writing the energy,
+// so with few CPUs the plain mode may well come out right; the concurrent mode always does.
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts every event per type, from any number of threads
+class CountingEventSink implements AnimalEventSink {
+    private final LongAdder[] counts = new LongAdder[AnimalEvent.values().length];
+
+    CountingEventSink() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void record(long animalId, String name, AnimalEvent event, String text, long number) {
+        counts[event.ordinal()].increment();
+    }
+
+    long count(AnimalEvent event) {
+        return counts[event.ordinal()].sum();
+    }
+
+    void reset() {
+        for (LongAdder count : counts) {
+            count.reset();
+        }
+    }
+}
+
+public class shelter_concurrent {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        CountingEventSink events = new CountingEventSink();
+        Animal.setEventSink(events);
+
+        System.out.println("CONCURRENT ENERGY STRESS TEST (" + threads + " threads)");
+        System.out.println("=".repeat(60));
+
+        // ========================== LOST UPDATES ==========================
+        // Cat.play() and Cat.move() always take 12 and 8 energy, and every flight 1, so the final
+        // energy is known
+        System.out.println("\n1. ONE CAT AND ONE BIRD, 1,000,000 play() + move() + fly() PER THREAD");
+        for (boolean concurrent : new boolean[] {false, true}) {
+            Animal.setConcurrent(concurrent);
+            Cat cat = new Cat("Whiskers", 2, true);
+            Bird bird = new Bird("Tweety", 1, true);
+            bird.restore(true, 1_000_000_000);
+            events.reset();
+            int perThread = 1_000_000;
+            long start = System.nanoTime();
+            run(threads, () -> {
+                for (int i = 0; i < perThread; i++) {
+                    cat.play();
+                    cat.move();
+                    bird.fly(2);
+                }
+            });
+            long nanos = System.nanoTime() - start;
+            double expectedCat = Playable.MAX_ENERGY - 20.0 * threads * perThread;
+            double expectedBird = 1_000_000_000 - 1.0 * events.count(AnimalEvent.BIRD_FLY_DISTANCE);
+            System.out.printf("%-10s cat %.0f (expected %.0f), bird %.0f (expected %.0f), %s, %.1f ns per call%n",
+                    concurrent ? "Concurrent" : "Plain", cat.getEnergy(), expectedCat, bird.getEnergy(), expectedBird,
+                    cat.getEnergy() == expectedCat && bird.getEnergy() == expectedBird ? "OK" : "LOST UPDATES",
+                    (double) nanos / (3L * threads * perThread));
+        }
+
+        // ========================== CHECK THEN ACT ==========================
+        // From 100 energy a dog fetches exactly 6 times (100, 85, 70, 55, 40, 25 are all above
+        // 20) and ends hungry with 10 energy, however many keepers throw the ball at once
+        System.out.println("\n2. " + rounds + " ROUNDS OF " + threads + " KEEPERS PLAYING WITH ONE DOG");
+        for (boolean concurrent : new boolean[] {false, true}) {
+            Animal.setConcurrent(concurrent);
+            Dog dog = new Dog("Buddy", 3, "Golden Retriever");
+            AtomicInteger badRounds = new AtomicInteger();
+            AtomicInteger round = new AtomicInteger();
+            events.reset();
+            // Runs between rounds, while every keeper waits: check the round, then start over
+            CyclicBarrier barrier = new CyclicBarrier(threads, () -> {
+                if (round.getAndIncrement() > 0) {
+                    boolean ok = events.count(AnimalEvent.DOG_FETCH) == 6 && dog.getEnergy() == 10 && dog.isHungry();
+                    if (!ok) {
+                        badRounds.incrementAndGet();
+                    }
+                }
+                events.reset();
+                dog.restore("Golden Retriever", Playable.MAX_ENERGY, false);
+            });
+            run(threads, () -> {
+                try {
+                    for (int r = 0; r <= rounds; r++) {
+                        barrier.await();
+                        if (r < rounds) {
+                            for (int i = 0; i < 4; i++) {
+                                dog.play();
+                            }
+                        }
+                    }
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            System.out.printf("%-10s %d of %d rounds went wrong%n", concurrent ? "Concurrent" : "Plain",
+                    badRounds.get(), rounds);
+        }
+
+        // ========================== INVARIANTS ==========================
+        // Keepers feed, walk and play with one dog while a vet checks it: the energy must always
+        // stay within 0..MAX_ENERGY, and a dog with less than 30 energy after a walk is hungry
+        System.out.println("\n3. FEEDING, WALKING AND PLAYING WITH ONE DOG WHILE A VET WATCHES");
+        Animal.setConcurrent(true);
+        Dog rex = new Dog("Rex", 5, "German Shepherd");
+        LongAdder violations = new LongAdder();
+        LongAdder checks = new LongAdder();
+        run(threads, () -> {
+            boolean vet = Thread.currentThread().getName().endsWith("-0");
+            for (int i = 0; i < 1_000_000; i++) {
+                if (vet) {
+                    double energy = rex.getEnergy();
+                    if (energy < 0 || energy > Playable.MAX_ENERGY) {
+                        violations.increment();
+                    }
+                    checks.increment();
+                } else {
+                    switch (i % 4) {
+                        case 0 -> rex.move();
+                        case 1 -> rex.play();
+                        case 2 -> rex.eat();
+                        default -> rex.rest();
+                    }
+                }
+            }
+        });
+        for (int i = 0; i < 8; i++) {
+            rex.move();
+        }
+        System.out.printf("%,d checks, %d out of range; after 8 walks: %.0f energy, hungry %b%n",
+                checks.sum(), violations.sum(), rex.getEnergy(), rex.isHungry());
+
+        Animal.setConcurrent(false);
+        Animal.setEventSink(AnimalEventSink.CONSOLE);
+        System.out.println("=".repeat(60));
+    }
+
+    // Starts the threads (named keeper-0, keeper-1...) and waits until all are done
+    private static void run(int threads, Runnable work) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(work, "keeper-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+}
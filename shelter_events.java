@@ -0,0 +1,274 @@
+// Buffered Animal Event Output in Java
+// Plugs a batching event sink into the animals from oops.java (see AnimalEventSink)
+// Compile and run together with oops.java:
+//   javac oops.java shelter_events.java && java shelter_events [animalCount]
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ========================== RING BUFFER SINK ==========================
+// Records events into preallocated slots (no String is built while recording).
+// When all slots are used, or when flush() is called, the events are turned into text
+// in one go and written to the channel as one large block of bytes.
+// The text is exactly what the console sink would have printed.
+// Recording takes no lock, so animals on several threads can share the sink: each event
+// claims the next sequence number, fills in the slot it maps to and then publishes it by
+// storing its sequence number there. flush() (which does lock) writes out the published
+// events in sequence order, up to the first one still being filled in.
+class RingBufferEventSink implements AnimalEventSink, Closeable {
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final WritableByteChannel channel;
+
+    // One slot per event, reused once the event is written out; published[slot] is the
+    // sequence number of the event in the slot plus one (0: never used)
+    private final long[] animalIds;
+    private final String[] names;
+    private final AnimalEvent[] events;
+    private final String[] texts;
+    private final long[] numbers;
+    private final long[] published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long flushed; // Every event before this sequence number has been written out
+
+    // Reused while rendering and encoding
+    private final StringBuilder rendered = new StringBuilder();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(64 * 1024);
+    private final String lineSeparator = System.lineSeparator();
+
+    public RingBufferEventSink(WritableByteChannel channel, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.channel = channel;
+        this.animalIds = new long[capacity];
+        this.names = new String[capacity];
+        this.events = new AnimalEvent[capacity];
+        this.texts = new String[capacity];
+        this.numbers = new long[capacity];
+        this.published = new long[capacity];
+    }
+
+    @Override
+    public void record(long animalId, String name, AnimalEvent event, String text, long number) {
+        long sequence = claimed.getAndIncrement();
+        // The slot is free once the event a whole ring earlier has been written out
+        while (sequence - flushed >= events.length) {
+            flush();
+            Thread.onSpinWait();
+        }
+        int slot = (int) (sequence % events.length);
+        animalIds[slot] = animalId;
+        names[slot] = name;
+        events[slot] = event;
+        texts[slot] = text;
+        numbers[slot] = number;
+        PUBLISHED.setRelease(published, slot, sequence + 1);
+    }
+
+    // Events recorded (or being recorded) but not written out yet
+    public int pending() {
+        return (int) Math.max(0, claimed.get() - flushed);
+    }
+
+    public long totalRecorded() {
+        return claimed.get();
+    }
+
+    // The animal id and event of the index-th pending event (0 is the oldest)
+    public synchronized long animalIdAt(int index) {
+        return animalIds[pendingSlot(index)];
+    }
+
+    public synchronized AnimalEvent eventAt(int index) {
+        return events[pendingSlot(index)];
+    }
+
+    private int pendingSlot(int index) {
+        long sequence = flushed + Objects.checkIndex(index, pending());
+        int slot = (int) (sequence % events.length);
+        if ((long) PUBLISHED.getAcquire(published, slot) != sequence + 1) {
+            throw new IllegalStateException("Event " + index + " is still being recorded");
+        }
+        return slot;
+    }
+
+    // Render the pending events that are fully recorded and write them to the channel
+    public synchronized void flush() {
+        long from = flushed;
+        long to = from;
+        rendered.setLength(0);
+        for (int slot = (int) (to % events.length);
+             (long) PUBLISHED.getAcquire(published, slot) == to + 1;
+             slot = (int) (to % events.length)) {
+            events[slot].render(rendered, names[slot], texts[slot], numbers[slot]);
+            rendered.append(lineSeparator);
+            // Drop references so flushed names and texts can be garbage collected
+            names[slot] = null;
+            texts[slot] = null;
+            to++;
+        }
+        if (to == from) {
+            return;
+        }
+        flushed = to;
+
+        try {
+            CharBuffer chars = CharBuffer.wrap(rendered);
+            encoder.reset();
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, true);
+                drain();
+            } while (result.isOverflow());
+            while (encoder.flush(bytes).isOverflow()) {
+                drain();
+            }
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
+
+// Main class: shows the output is unchanged and compares the cost of the sinks
+public class shelter_events {
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+
+        System.out.println("BUFFERED EVENT OUTPUT DEMO");
+        System.out.println("=".repeat(60));
+
+        // ========================== SAME TEXT AS THE CONSOLE ==========================
+        System.out.println("\n1. TEXT CHECK (console sink vs ring buffer flushed to a file)");
+        ByteArrayOutputStream consoleBytes = new ByteArrayOutputStream();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(consoleBytes, true, StandardCharsets.UTF_8));
+        try {
+            Animal.setEventSink(AnimalEventSink.CONSOLE);
+            runScenario(population(1_000), 5);
+        } finally {
+            System.setOut(console);
+        }
+
+        Path file = Files.createTempFile("shelter-events", ".log");
+        try (RingBufferEventSink sink = new RingBufferEventSink(FileChannel.open(file, StandardOpenOption.WRITE), 4096)) {
+            Animal.setEventSink(sink);
+            runScenario(population(1_000), 5);
+            System.out.println("Events recorded: " + sink.totalRecorded());
+        } finally {
+            Animal.setEventSink(AnimalEventSink.CONSOLE);
+        }
+        byte[] fileBytes = Files.readAllBytes(file);
+        System.out.println("Bytes: " + consoleBytes.size() + " console vs " + fileBytes.length + " file");
+        System.out.println("Identical output: " + Arrays.equals(consoleBytes.toByteArray(), fileBytes));
+
+        // ========================== COST OF EACH SINK ==========================
+        System.out.println("\n2. TIME PER TICK (" + count + " animals)");
+        Animal[] animals = population(count);
+
+        PrintStream discard = new PrintStream(PrintStream.nullOutputStream());
+        System.setOut(discard);
+        long consoleNanos;
+        try {
+            Animal.setEventSink(AnimalEventSink.CONSOLE);
+            consoleNanos = timeTicks(animals);
+        } finally {
+            System.setOut(console);
+        }
+
+        Animal.setEventSink(AnimalEventSink.NONE);
+        long noneNanos = timeTicks(animals);
+
+        long bufferedNanos;
+        try (RingBufferEventSink sink = new RingBufferEventSink(FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), 64 * 1024)) {
+            Animal.setEventSink(sink);
+            bufferedNanos = timeTicks(animals);
+        } finally {
+            Animal.setEventSink(AnimalEventSink.CONSOLE);
+        }
+        Files.delete(file);
+
+        System.out.printf("Console sink (to a null stream): %8.2f ms%n", consoleNanos / 1_000_000.0);
+        System.out.printf("Ring buffer sink (to a file):    %8.2f ms%n", bufferedNanos / 1_000_000.0);
+        System.out.printf("No-op sink:                      %8.2f ms%n", noneNanos / 1_000_000.0);
+        System.out.println("=".repeat(60));
+    }
+
+    // A fixed mix of behaviors touching every event type
+    private static void runScenario(Animal[] animals, int ticks) {
+        for (int tick = 0; tick < ticks; tick++) {
+            for (Animal animal : animals) {
+                animal.makeSound();
+                animal.move();
+                if (animal instanceof Dog dog) {
+                    dog.play();
+                    dog.eat(tick % 2 == 0 ? "dog food" : "premium food");
+                    dog.checkEnergy();
+                } else if (animal instanceof Cat cat) {
+                    cat.play();
+                    cat.climb();
+                    cat.rest();
+                } else if (animal instanceof Bird bird) {
+                    bird.fly(tick * 25);
+                }
+                animal.sleep();
+            }
+        }
+    }
+
+    // Average time of one scenario tick after a short warm-up
+    private static long timeTicks(Animal[] animals) {
+        runScenario(animals, 5);
+        int ticks = 10;
+        long start = System.nanoTime();
+        runScenario(animals, ticks);
+        return (System.nanoTime() - start) / ticks;
+    }
+
+    private static Animal[] population(int count) {
+        Animal[] animals = new Animal[count];
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0 -> animals[i] = new Dog("Dog" + i, i % 15, "Beagle");
+                case 1 -> animals[i] = new Cat("Cat" + i, i % 15, i % 2 == 0);
+                default -> animals[i] = new Bird("Bird" + i, i % 15, i % 5 != 0);
+            }
+        }
+        return animals;
+    }
+}
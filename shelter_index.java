@@ -0,0 +1,652 @@
+// Indexed Queries over a Shelter in Java
+// Builds on the Animal / Dog / Cat / Bird classes from oops.java and the bitmaps from ColumnMath.java
+// Compile and run together with them:
+//   javac oops.java ColumnMath.java shelter_simulation.java shelter_index.java && java shelter_index [animalCount]
+//
+// To find all hungry dogs, AnimalShelter-style code walks the whole Animal[] and asks every
+// animal. ShelterIndex keeps the answers ready instead, as bitmaps (one bit per animal, see
+// ColumnMath):
+//   - one bitmap per yes/no field (hungry, indoor, canFly) and one per species
+//   - a range index on energy and one on age: the values are split into up to 63 bins at
+//     their quantiles, and bitmap k holds every animal whose value is below bound k
+// A query such as "hungry AND Dog AND energy < 30" ANDs bitmaps together, 64 animals per
+// step. For a range only the animals in the bin that contains the limit still have to be
+// compared with the limit; with the other conditions ANDed in first, that is usually few.
+// (Alone, a limit between two bounds means checking about 1/60 of all animals one by one,
+// a few milliseconds for 10M. The energy limits oops.java uses are always bounds.)
+//
+// The index watches its animals (Animal.watch), so every play(), rest() or fly() updates it
+// as it happens. Like the animals themselves, it is not thread-safe.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+// ========================== RANGE INDEX ==========================
+// A sorted index for one number per slot, answering lo <= value < hi with bitmaps.
+// The first bound is always -infinity and the last +infinity, so every limit lies between
+// two bounds: below[0] is always empty and below[last] holds every slot with a finite value.
+// NaN is not below any bound and never matches.
+// A limit that is itself a bound costs nothing extra, so limits that are asked for all the
+// time can be made permanent bounds (fixedBounds).
+class RangeIndex {
+    static final int MAX_BOUNDS = 64;
+
+    private final double[] fixedBounds;
+    private double[] values;
+    private byte[] bins; // The bin of each slot: how many bounds are <= its value
+    private double[] bounds;
+    private long[][] below;
+
+    RangeIndex(int capacity, double... fixedBounds) {
+        this.fixedBounds = fixedBounds.clone();
+        this.values = new double[capacity];
+        this.bins = new byte[capacity];
+        this.bounds = merge(new double[0], 0);
+        this.below = new long[bounds.length][ColumnMath.newBitmap(capacity).length];
+    }
+
+    int bins() {
+        return bounds.length - 1;
+    }
+
+    void grow(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+        bins = Arrays.copyOf(bins, capacity);
+        for (int k = 0; k < below.length; k++) {
+            below[k] = Arrays.copyOf(below[k], words(capacity));
+        }
+    }
+
+    // How many bounds are <= value (NaN is above them all)
+    private int binOf(double value) {
+        if (Double.isNaN(value)) {
+            return bounds.length;
+        }
+        int low = 0;
+        int high = bounds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (bounds[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    void add(int slot, double value) {
+        int bin = binOf(value);
+        values[slot] = value;
+        bins[slot] = (byte) bin;
+        long bit = 1L << slot;
+        for (int k = bin; k < below.length; k++) {
+            below[k][slot >>> 6] |= bit;
+        }
+    }
+
+    void remove(int slot) {
+        long bit = 1L << slot;
+        for (int k = bins[slot]; k < below.length; k++) {
+            below[k][slot >>> 6] &= ~bit;
+        }
+    }
+
+    // Most changes stay inside the bin and touch no bitmap at all; moving to another bin only
+    // touches the bitmaps of the bounds in between
+    void set(int slot, double value) {
+        if (value == values[slot]) {
+            return;
+        }
+        values[slot] = value;
+        int from = bins[slot];
+        if (from < bounds.length && bounds[from - 1] <= value && value < bounds[from]) {
+            return;
+        }
+        int to = binOf(value);
+        bins[slot] = (byte) to;
+        long bit = 1L << slot;
+        int word = slot >>> 6;
+        for (int k = to; k < from; k++) {
+            below[k][word] |= bit;
+        }
+        for (int k = from; k < to; k++) {
+            below[k][word] &= ~bit;
+        }
+    }
+
+    // Choose new bounds at the quantiles of the current values (from a sample of about 64K
+    // of them) and rebuild the bitmaps. The sample is random: taking every n-th slot could
+    // line up with a pattern in the data (every 15th animal has the same age, for example).
+    void rebuild(long[] present, int slots) {
+        int total = (int) ColumnMath.cardinality(present);
+        int step = Math.max(1, total / (1 << 16));
+        double[] sample = new double[Math.min(total, 1 << 17)];
+        int sampled = 0;
+        SplittableRandom random = new SplittableRandom(42);
+        for (int w = 0; w < words(slots); w++) {
+            for (long rest = present[w]; rest != 0; rest &= rest - 1) {
+                double value = values[w << 6 | Long.numberOfTrailingZeros(rest)];
+                if (random.nextInt(step) == 0 && sampled < sample.length && !Double.isNaN(value)) {
+                    sample[sampled++] = value;
+                }
+            }
+        }
+        Arrays.sort(sample, 0, sampled);
+        int quantiles = MAX_BOUNDS - 1 - fixedBounds.length;
+        double[] chosen = new double[quantiles];
+        int chosenCount = 0;
+        for (int j = 1; j < quantiles && sampled > 0; j++) {
+            chosen[chosenCount++] = sample[(int) ((long) j * sampled / quantiles)];
+        }
+        bounds = merge(chosen, chosenCount);
+        int count = bounds.length;
+
+        // One bitmap per bin first, then each bound's bitmap is the OR of the bins below it
+        int words = below[0].length;
+        below = new long[count][words];
+        for (int w = 0; w < words(slots); w++) {
+            for (long rest = present[w]; rest != 0; rest &= rest - 1) {
+                int slot = w << 6 | Long.numberOfTrailingZeros(rest);
+                int bin = binOf(values[slot]);
+                bins[slot] = (byte) bin;
+                if (bin < count) {
+                    below[bin][w] |= rest & -rest;
+                }
+            }
+        }
+        for (int k = 1; k < count; k++) {
+            ColumnMath.or(below[k], below[k - 1], below[k]);
+        }
+    }
+
+    // -infinity, the chosen and the fixed bounds, +infinity: sorted and without duplicates
+    private double[] merge(double[] chosen, int chosenCount) {
+        double[] all = new double[chosenCount + fixedBounds.length + 2];
+        all[0] = Double.NEGATIVE_INFINITY;
+        all[1] = Double.POSITIVE_INFINITY;
+        System.arraycopy(fixedBounds, 0, all, 2, fixedBounds.length);
+        System.arraycopy(chosen, 0, all, 2 + fixedBounds.length, chosenCount);
+        Arrays.sort(all);
+        int count = 1;
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] > all[count - 1]) {
+                all[count++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, count);
+    }
+
+    // Keep only the slots of bits[from, to) whose value is in [lo, hi).
+    // "Sure" slots are in bins entirely inside the range, "maybe" slots in the bins at its
+    // ends (there are none when lo and hi are bounds). The first loop has no branches (the
+    // JIT turns it into vector instructions); the second compares only the maybe slots that
+    // are still set with lo and hi, without branches either, so the loads from values (which
+    // mostly miss the cache) can overlap. maybe is scratch space of at least to - from words.
+    void filter(long[] bits, int from, int to, double lo, double hi, long[] maybe) {
+        long[] sureLow = below[ceiling(lo)];   // Not below the first bound >= lo: value >= lo
+        long[] maybeLow = below[floor(lo)];    // Not below the last bound <= lo
+        long[] sureHigh = below[floor(hi)];    // Below the last bound <= hi: value < hi
+        long[] maybeHigh = below[ceiling(hi)]; // Below the first bound >= hi
+        if (sureLow == maybeLow && sureHigh == maybeHigh) {
+            if (lo == Double.NEGATIVE_INFINITY) {
+                for (int w = from; w < to; w++) {
+                    bits[w] &= sureHigh[w];
+                }
+            } else {
+                for (int w = from; w < to; w++) {
+                    bits[w] &= ~sureLow[w] & sureHigh[w];
+                }
+            }
+            return;
+        }
+        long any = 0;
+        for (int w = from; w < to; w++) {
+            long word = bits[w];
+            long sure = ~sureLow[w] & sureHigh[w];
+            long candidates = word & ~maybeLow[w] & maybeHigh[w] & ~sure;
+            maybe[w - from] = candidates;
+            any |= candidates;
+            bits[w] = word & sure;
+        }
+        if (any == 0) {
+            return;
+        }
+        for (int w = from; w < to; w++) {
+            long word = bits[w];
+            for (long rest = maybe[w - from]; rest != 0; rest &= rest - 1) {
+                double value = values[w << 6 | Long.numberOfTrailingZeros(rest)];
+                long inside = value >= lo & value < hi ? -1L : 0L;
+                word |= rest & -rest & inside;
+            }
+            bits[w] = word;
+        }
+    }
+
+    private int ceiling(double x) {
+        int k = binOf(x);
+        return bounds[k - 1] == x ? k - 1 : k;
+    }
+
+    private int floor(double x) {
+        return binOf(x) - 1;
+    }
+
+    static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+}
+
+// ========================== SHELTER INDEX ==========================
+class ShelterIndex implements AnimalWatcher {
+    static final int HUNGRY = 0;
+    static final int INDOOR = 1;
+    static final int CAN_FLY = 2;
+    private static final int MIN_CAPACITY = 64;
+    // The energy limits in oops.java (cats climb above 15, dogs and birds play above 20,
+    // dogs get hungry below 30) are always bounds of the energy index
+    private static final double[] ENERGY_LIMITS = {15, 20, 30};
+
+    private Animal[] animals;
+    private int slots; // Slots handed out so far; removed animals leave their slot for reuse
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int size;
+
+    long[] present;
+    long[] hungry;
+    long[] indoor;
+    long[] canFly;
+    final Map<Class<?>, long[]> species = new HashMap<>(); // Exact class, as in ShelterRegistry
+    final RangeIndex energy;
+    final RangeIndex age;
+
+    public ShelterIndex(Animal... initial) {
+        int capacity = Math.max(MIN_CAPACITY, initial.length);
+        animals = new Animal[capacity];
+        present = ColumnMath.newBitmap(capacity);
+        hungry = ColumnMath.newBitmap(capacity);
+        indoor = ColumnMath.newBitmap(capacity);
+        canFly = ColumnMath.newBitmap(capacity);
+        energy = new RangeIndex(capacity, ENERGY_LIMITS);
+        age = new RangeIndex(capacity);
+        for (Animal animal : initial) {
+            add(animal);
+        }
+        rebalance();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Number of slots in use or free (the length of every bitmap, in bits)
+    public int slots() {
+        return slots;
+    }
+
+    public Animal animal(int slot) {
+        return animals[slot];
+    }
+
+    // Start indexing an animal; returns its slot
+    public int add(Animal animal) {
+        if (animal.watchSlot(this) >= 0) {
+            throw new IllegalArgumentException(animal.name + " is already in this index");
+        }
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : slots++;
+        if (slot == animals.length) {
+            grow(animals.length * 2);
+        }
+        animals[slot] = animal;
+        animal.watch(this, slot);
+        long bit = 1L << slot;
+        int word = slot >>> 6;
+        present[word] |= bit;
+        species.computeIfAbsent(animal.getClass(), type -> ColumnMath.newBitmap(animals.length))[word] |= bit;
+        setFlags(animal, word, bit);
+        energy.add(slot, energyOf(animal));
+        age.add(slot, animal.age);
+        size++;
+        return slot;
+    }
+
+    public void remove(Animal animal) {
+        int slot = animal.watchSlot(this);
+        if (slot < 0) {
+            throw new IllegalArgumentException(animal.name + " is not in this index");
+        }
+        long bit = 1L << slot;
+        int word = slot >>> 6;
+        present[word] &= ~bit;
+        species.get(animal.getClass())[word] &= ~bit;
+        hungry[word] &= ~bit;
+        indoor[word] &= ~bit;
+        canFly[word] &= ~bit;
+        energy.remove(slot);
+        age.remove(slot);
+        animals[slot] = null;
+        animal.unwatch(this);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    // Called by the animal after each change
+    @Override
+    public void changed(Animal animal, int slot) {
+        long bit = 1L << slot;
+        int word = slot >>> 6;
+        setFlags(animal, word, bit);
+        energy.set(slot, energyOf(animal));
+        age.set(slot, animal.age);
+    }
+
+    // Re-split energy and age into bins that match the current values. Queries stay correct
+    // without this, but get slower as values drift away from the bins chosen earlier.
+    public void rebalance() {
+        energy.rebuild(present, slots);
+        age.rebuild(present, slots);
+    }
+
+    public ShelterQuery query() {
+        return new ShelterQuery(this);
+    }
+
+    // The bitmaps are replaced when the index grows, so queries ask for them each time
+    long[] flag(int which) {
+        return switch (which) {
+            case HUNGRY -> hungry;
+            case INDOOR -> indoor;
+            default -> canFly;
+        };
+    }
+
+    // Each species has only one of the flags (the others stay 0 from add())
+    private void setFlags(Animal animal, int word, long bit) {
+        if (animal instanceof Dog dog) {
+            hungry[word] = dog.isHungry() ? hungry[word] | bit : hungry[word] & ~bit;
+        } else if (animal instanceof Cat cat) {
+            indoor[word] = cat.isIndoor() ? indoor[word] | bit : indoor[word] & ~bit;
+        } else if (animal instanceof Bird bird) {
+            canFly[word] = bird.canFly() ? canFly[word] | bit : canFly[word] & ~bit;
+        }
+    }
+
+    static double energyOf(Animal animal) {
+        if (animal instanceof Dog dog) {
+            return dog.getEnergy();
+        } else if (animal instanceof Cat cat) {
+            return cat.getEnergy();
+        } else if (animal instanceof Bird bird) {
+            return bird.getEnergy();
+        }
+        return Double.NaN;
+    }
+
+    private void grow(int capacity) {
+        animals = Arrays.copyOf(animals, capacity);
+        int words = RangeIndex.words(capacity);
+        present = Arrays.copyOf(present, words);
+        hungry = Arrays.copyOf(hungry, words);
+        indoor = Arrays.copyOf(indoor, words);
+        canFly = Arrays.copyOf(canFly, words);
+        species.replaceAll((type, bits) -> Arrays.copyOf(bits, words));
+        energy.grow(capacity);
+        age.grow(capacity);
+    }
+}
+
+// ========================== QUERIES ==========================
+// Conditions are ANDed together; build one with ShelterIndex.query(), then ask for the
+// count, the bitmap (bit = slot) or the animals themselves:
+//   index.query().species(Dog.class).hungry(true).energyBelow(30).count()
+class ShelterQuery {
+    // Words per step: the bitmaps of a block are still in the L1 cache while they are combined
+    private static final int BLOCK = 512;
+
+    private final ShelterIndex index;
+    private final List<Object> required = new ArrayList<>(); // Flags (ShelterIndex.HUNGRY...) or species classes
+    private final List<Integer> excluded = new ArrayList<>();
+    private final List<RangeIndex> ranges = new ArrayList<>();
+    private double[] lows = new double[2];
+    private double[] highs = new double[2];
+    private boolean nothing;
+
+    ShelterQuery(ShelterIndex index) {
+        this.index = index;
+    }
+
+    public ShelterQuery species(Class<? extends Animal> type) {
+        required.add(type);
+        return this;
+    }
+
+    // hungry(false) also matches every cat and bird, which are never hungry
+    public ShelterQuery hungry(boolean value) {
+        return flag(ShelterIndex.HUNGRY, value);
+    }
+
+    public ShelterQuery indoor(boolean value) {
+        return flag(ShelterIndex.INDOOR, value);
+    }
+
+    public ShelterQuery canFly(boolean value) {
+        return flag(ShelterIndex.CAN_FLY, value);
+    }
+
+    public ShelterQuery energyBelow(double limit) {
+        return range(index.energy, Double.NEGATIVE_INFINITY, limit);
+    }
+
+    public ShelterQuery energyAtLeast(double minimum) {
+        return range(index.energy, minimum, Double.POSITIVE_INFINITY);
+    }
+
+    // minimum <= energy < limit
+    public ShelterQuery energyBetween(double minimum, double limit) {
+        return range(index.energy, minimum, limit);
+    }
+
+    // minimum <= age <= maximum
+    public ShelterQuery ageBetween(int minimum, int maximum) {
+        return range(index.age, minimum, maximum + 1.0);
+    }
+
+    private ShelterQuery flag(int which, boolean value) {
+        if (value) {
+            required.add(which);
+        } else {
+            excluded.add(which);
+        }
+        return this;
+    }
+
+    private ShelterQuery range(RangeIndex range, double low, double high) {
+        if (Double.isNaN(low) || Double.isNaN(high)) {
+            throw new IllegalArgumentException("Range limits must not be NaN");
+        }
+        if (!(low < high)) {
+            nothing = true;
+        }
+        if (ranges.size() == lows.length) {
+            lows = Arrays.copyOf(lows, lows.length * 2);
+            highs = Arrays.copyOf(highs, highs.length * 2);
+        }
+        lows[ranges.size()] = low;
+        highs[ranges.size()] = high;
+        ranges.add(range);
+        return this;
+    }
+
+    public long count() {
+        return evaluate(ColumnMath.newBitmap(index.slots()));
+    }
+
+    public long[] bitmap() {
+        long[] bits = ColumnMath.newBitmap(index.slots());
+        evaluate(bits);
+        return bits;
+    }
+
+    public void forEach(Consumer<? super Animal> action) {
+        long[] bits = bitmap();
+        for (int w = 0; w < bits.length; w++) {
+            for (long rest = bits[w]; rest != 0; rest &= rest - 1) {
+                action.accept(index.animal(w << 6 | Long.numberOfTrailingZeros(rest)));
+            }
+        }
+    }
+
+    public List<Animal> list() {
+        List<Animal> result = new ArrayList<>();
+        forEach(result::add);
+        return result;
+    }
+
+    // Writes the matching slots to out and returns how many there are
+    long evaluate(long[] out) {
+        int words = RangeIndex.words(index.slots());
+        boolean empty = nothing;
+        long[][] and = new long[required.size()][];
+        for (int i = 0; i < and.length; i++) {
+            Object condition = required.get(i);
+            and[i] = condition instanceof Integer which ? index.flag(which) : index.species.get(condition);
+            empty |= and[i] == null; // A species the index has never seen
+        }
+        if (empty) {
+            Arrays.fill(out, 0, words, 0L);
+            return 0;
+        }
+        long[] maybe = new long[BLOCK];
+        long[][] andNot = new long[excluded.size()][];
+        for (int i = 0; i < andNot.length; i++) {
+            andNot[i] = index.flag(excluded.get(i));
+        }
+        long count = 0;
+        for (int from = 0; from < words; from += BLOCK) {
+            int to = Math.min(from + BLOCK, words);
+            System.arraycopy(index.present, from, out, from, to - from);
+            for (long[] bits : and) {
+                for (int w = from; w < to; w++) {
+                    out[w] &= bits[w];
+                }
+            }
+            for (long[] bits : andNot) {
+                for (int w = from; w < to; w++) {
+                    out[w] &= ~bits[w];
+                }
+            }
+            for (int r = 0; r < ranges.size(); r++) {
+                ranges.get(r).filter(out, from, to, lows[r], highs[r], maybe);
+            }
+            for (int w = from; w < to; w++) {
+                count += Long.bitCount(out[w]);
+            }
+        }
+        return count;
+    }
+}
+
+// ========================== DEMO ==========================
+public class shelter_index {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println("SHELTER INDEX DEMO");
+        System.out.println("=".repeat(60));
+
+        // ========================== THE ANIMALS FROM oops.java ==========================
+        System.out.println("\n1. THE ANIMALS FROM oops.java");
+        Dog buddy = new Dog("Buddy", 3, "Golden Retriever");
+        Cat whiskers = new Cat("Whiskers", 2, true);
+        Bird tweety = new Bird("Tweety", 1, true);
+        ShelterIndex trio = new ShelterIndex(buddy, whiskers, tweety);
+        System.out.println("Hungry dogs: " + names(trio.query().species(Dog.class).hungry(true).list()));
+        for (int i = 0; i < 5; i++) {
+            buddy.play();
+        }
+        System.out.println("Hungry dogs: " + names(trio.query().species(Dog.class).hungry(true).list()));
+        System.out.println("Energy below 30: " + names(trio.query().energyBelow(30).list()));
+        System.out.println("Indoor cats aged 1-2: " + names(trio.query().indoor(true).ageBetween(1, 2).list()));
+
+        // ========================== MANY ANIMALS ==========================
+        System.out.println("\n2. " + count + " ANIMALS AFTER A SIMULATED DAY (no-op event sink)");
+        Animal.setEventSink(AnimalEventSink.NONE);
+        Animal[] animals = new Animal[count];
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0 -> animals[i] = new Dog("Dog" + i, i % 15, "Beagle");
+                case 1 -> animals[i] = new Cat("Cat" + i, i % 15, i % 2 == 0);
+                default -> animals[i] = new Bird("Bird" + i, i % 15, i % 5 != 0);
+            }
+        }
+        long start = System.nanoTime();
+        ShelterIndex index = new ShelterIndex(animals);
+        System.out.printf("Index built in %.0f ms%n", (System.nanoTime() - start) / 1e6);
+
+        // The index follows every action of the simulation
+        ShelterSimulation simulation = new ShelterSimulation(animals, 42);
+        simulation.runUntil(ShelterSimulation.MINUTES_PER_DAY);
+        index.rebalance();
+        System.out.println("Energy bins: " + index.energy.bins() + ", age bins: " + index.age.bins());
+
+        ShelterQuery hungryTiredDogs = index.query().hungry(true).species(Dog.class).energyBelow(30);
+        ShelterQuery outdoorCats = index.query().species(Cat.class).indoor(false);
+        ShelterQuery youngLivelyCats = index.query().species(Cat.class).ageBetween(0, 2).energyAtLeast(50);
+        long[] bits = ColumnMath.newBitmap(index.slots());
+        for (int round = 0; round < 20; round++) { // Warm up
+            hungryTiredDogs.evaluate(bits);
+            outdoorCats.evaluate(bits);
+            youngLivelyCats.evaluate(bits);
+            scanHungryTiredDogs(animals);
+        }
+        report("hungry AND Dog AND energy < 30", hungryTiredDogs, bits, animals);
+        report("Cat AND NOT indoor", outdoorCats, bits, null);
+        report("Cat AND age 0-2 AND energy >= 50", youngLivelyCats, bits, null);
+        Animal.setEventSink(AnimalEventSink.CONSOLE);
+        System.out.println("=".repeat(60));
+    }
+
+    private static void report(String description, ShelterQuery query, long[] bits, Animal[] animals) {
+        long best = Long.MAX_VALUE;
+        long matches = 0;
+        for (int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            matches = query.evaluate(bits);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-38s %,9d animals in %.3f ms%n", description, matches, best / 1e6);
+        if (animals != null) {
+            long start = System.nanoTime();
+            long scanned = scanHungryTiredDogs(animals);
+            System.out.printf("%-38s %,9d animals in %.3f ms%n", "  the same by walking the array", scanned,
+                    (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    private static long scanHungryTiredDogs(Animal[] animals) {
+        long matches = 0;
+        for (Animal animal : animals) {
+            if (animal instanceof Dog dog && dog.isHungry() && dog.getEnergy() < 30) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private static String names(List<Animal> animals) {
+        StringBuilder out = new StringBuilder("[");
+        for (Animal animal : animals) {
+            out.append(out.length() > 1 ? ", " : "").append(animal.name);
+        }
+        return out.append(']').toString();
+    }
+}
@@ -0,0 +1,392 @@
+// Animal Intake with Recycled Animals and Shared Names in Java
+// Builds on the Animal / Dog / Cat / Bird classes from oops.java
+// Compile and run together with oops.java:
+//   javac oops.java shelter_intake.java && java shelter_intake [seconds] [admissionsPerSecond]
+//
+// At intake animals are admitted and discharged all the time. With new Dog(name, age, breed)
+// every admission allocates a new animal plus new name and breed Strings (a parser hands out
+// a fresh String per field), even though the same few hundred breeds come up millions of times.
+// AnimalIntake avoids both:
+//   - discharge() puts the animal's object in a pool of the calling thread; the next
+//     admission of that species resets it (full energy, flags, new id) instead of allocating
+//   - names and breeds are looked up by their characters in a small table of the thread, so
+//     a name seen before comes back as the same String without building a new one
+// Each thread has its own pools and table, so nothing is locked or shared. When a thread
+// has ended, its counters are added to the totals and its pools and table are dropped (like
+// ShelterMetrics does with its buffers), so a new virtual thread per keeper costs nothing once
+// the keeper is done. An animal object must not be used after it has been discharged: it may
+// already be somebody else.
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// ========================== NAME TABLE ==========================
+// A fixed-size dedup table: the same text comes back as the same String. Each text can only
+// be in one bucket of WAYS slots (picked by its hash); when the bucket is full a new text
+// replaces one of the others, picked at random, so the table never grows: names that keep
+// coming back stay, one-offs drop out. (Replacing the least recently used one instead goes
+// badly when one more text than fits keeps coming back: each pushes out the next one needed.)
+final class NameTable {
+    private static final int WAYS = 4;
+
+    private final String[] strings;
+    private final int[] hashes;
+    private final int mask;
+    long lookups;
+    long hits;
+
+    NameTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(WAYS, capacity) - 1) << 1;
+        strings = new String[size];
+        hashes = new int[size];
+        mask = size - WAYS;
+    }
+
+    String intern(CharSequence text) {
+        lookups++;
+        int hash = text instanceof String string ? string.hashCode() : hash(text);
+        int bucket = (hash ^ (hash >>> 16)) & mask;
+        int slot = bucket;
+        // Buckets fill up from the front and slots never become empty again
+        while (slot < bucket + WAYS && strings[slot] != null) {
+            String found = strings[slot];
+            if (hashes[slot] == hash && found.contentEquals(text)) {
+                hits++;
+                return found;
+            }
+            slot++;
+        }
+        if (slot == bucket + WAYS) {
+            slot = bucket + (int) ((lookups * 0x9E3779B97F4A7C15L) >>> 62);
+        }
+        String created = text.toString();
+        strings[slot] = created;
+        hashes[slot] = hash;
+        return created;
+    }
+
+    // The same as String.hashCode(), so a text hashes alike whatever holds it
+    private static int hash(CharSequence text) {
+        int hash = 0;
+        for (int i = 0; i < text.length(); i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash;
+    }
+}
+
+// ========================== INTAKE ==========================
+final class AnimalIntake {
+    public static final int DEFAULT_POOL_CAPACITY = 4096;
+    public static final int DEFAULT_NAME_TABLE_SIZE = 4096;
+    private static final int MIN_RETIRE_AT = 64;
+
+    private final int poolCapacity;
+    private final int nameTableSize;
+    // The Locals of threads that have ended are folded into retired by stats() and whenever
+    // their number has doubled since the last time
+    private final ConcurrentLinkedQueue<Local> locals = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger localCount = new AtomicInteger();
+    private volatile int retireAt = MIN_RETIRE_AT;
+    private final Totals retired = new Totals();
+    private final ThreadLocal<Local> local = ThreadLocal.withInitial(this::newLocal);
+
+    // What one thread keeps: a pool per species and a name table
+    private final class Local {
+        final Thread owner = Thread.currentThread();
+        final Dog[] dogs = new Dog[poolCapacity];
+        final Cat[] cats = new Cat[poolCapacity];
+        final Bird[] birds = new Bird[poolCapacity];
+        int dogCount;
+        int catCount;
+        int birdCount;
+        final NameTable names = new NameTable(nameTableSize);
+        long admitted;
+        long reused;
+        long discharged;
+        long dropped; // Discharged while the pool was full (or not a pooled species)
+    }
+
+    // What all threads did so far
+    record Stats(long admitted, long reused, long discharged, long dropped, long nameLookups, long nameHits) {
+        double poolHitRate() {
+            return admitted == 0 ? 0 : (double) reused / admitted;
+        }
+
+        double nameHitRate() {
+            return nameLookups == 0 ? 0 : (double) nameHits / nameLookups;
+        }
+    }
+
+    public AnimalIntake() {
+        this(DEFAULT_POOL_CAPACITY, DEFAULT_NAME_TABLE_SIZE);
+    }
+
+    // poolCapacity animals per species and thread; nameTableSize names and breeds per thread
+    public AnimalIntake(int poolCapacity, int nameTableSize) {
+        if (poolCapacity < 0 || nameTableSize < 1) {
+            throw new IllegalArgumentException("poolCapacity " + poolCapacity + ", nameTableSize " + nameTableSize);
+        }
+        this.poolCapacity = poolCapacity;
+        this.nameTableSize = nameTableSize;
+    }
+
+    // Counters added up over several threads
+    private static final class Totals {
+        long admitted;
+        long reused;
+        long discharged;
+        long dropped;
+        long nameLookups;
+        long nameHits;
+
+        void add(Local each) {
+            admitted += each.admitted;
+            reused += each.reused;
+            discharged += each.discharged;
+            dropped += each.dropped;
+            nameLookups += each.names.lookups;
+            nameHits += each.names.hits;
+        }
+
+        void add(Totals other) {
+            admitted += other.admitted;
+            reused += other.reused;
+            discharged += other.discharged;
+            dropped += other.dropped;
+            nameLookups += other.nameLookups;
+            nameHits += other.nameHits;
+        }
+    }
+
+    private Local newLocal() {
+        Local created = new Local();
+        locals.add(created);
+        if (localCount.incrementAndGet() >= retireAt) {
+            retireEnded();
+        }
+        return created;
+    }
+
+    // Fold the counters of threads that have ended into retired and let go of their pools
+    // (isAlive() returning false also makes everything the thread wrote visible here)
+    private synchronized void retireEnded() {
+        int live = 0;
+        for (Iterator<Local> it = locals.iterator(); it.hasNext(); ) {
+            Local next = it.next();
+            if (!next.owner.isAlive()) {
+                retired.add(next);
+                it.remove();
+                localCount.decrementAndGet();
+            } else {
+                live++;
+            }
+        }
+        retireAt = Math.max(MIN_RETIRE_AT, 2 * live);
+    }
+
+    public Dog admitDog(CharSequence name, int age, CharSequence breed) {
+        Local mine = local.get();
+        mine.admitted++;
+        String interned = mine.names.intern(name);
+        String internedBreed = mine.names.intern(breed);
+        if (mine.dogCount == 0) {
+            return new Dog(interned, age, internedBreed);
+        }
+        mine.reused++;
+        Dog dog = mine.dogs[--mine.dogCount];
+        mine.dogs[mine.dogCount] = null;
+        dog.readmit(interned, age, internedBreed);
+        return dog;
+    }
+
+    public Cat admitCat(CharSequence name, int age, boolean indoor) {
+        Local mine = local.get();
+        mine.admitted++;
+        String interned = mine.names.intern(name);
+        if (mine.catCount == 0) {
+            return new Cat(interned, age, indoor);
+        }
+        mine.reused++;
+        Cat cat = mine.cats[--mine.catCount];
+        mine.cats[mine.catCount] = null;
+        cat.readmit(interned, age, indoor);
+        return cat;
+    }
+
+    public Bird admitBird(CharSequence name, int age, boolean canFly) {
+        Local mine = local.get();
+        mine.admitted++;
+        String interned = mine.names.intern(name);
+        if (mine.birdCount == 0) {
+            return new Bird(interned, age, canFly);
+        }
+        mine.reused++;
+        Bird bird = mine.birds[--mine.birdCount];
+        mine.birds[mine.birdCount] = null;
+        bird.readmit(interned, age, canFly);
+        return bird;
+    }
+
+    // The animal leaves the shelter (ShelterRegistry.deregister) and its object is kept for
+    // a later admission. Other Animal subclasses only leave; they are not pooled
+    public void discharge(Animal animal) {
+        animal.leave();
+        Local mine = local.get();
+        mine.discharged++;
+        Class<?> species = animal.getClass();
+        if (species == Dog.class && mine.dogCount < poolCapacity) {
+            mine.dogs[mine.dogCount++] = (Dog) animal;
+        } else if (species == Cat.class && mine.catCount < poolCapacity) {
+            mine.cats[mine.catCount++] = (Cat) animal;
+        } else if (species == Bird.class && mine.birdCount < poolCapacity) {
+            mine.birds[mine.birdCount++] = (Bird) animal;
+        } else {
+            mine.dropped++;
+        }
+    }
+
+    // Adds up the counters of every thread (a thread that is busy right now may be a few behind)
+    public synchronized Stats stats() {
+        retireEnded();
+        Totals total = new Totals();
+        total.add(retired);
+        for (Local each : locals) {
+            total.add(each);
+        }
+        return new Stats(total.admitted, total.reused, total.discharged, total.dropped, total.nameLookups, total.nameHits);
+    }
+}
+
+// ========================== DEMO ==========================
+public class shelter_intake {
+    private static final int LIVE_ANIMALS = 100_000;
+    private static final String[] NAMES = new String[500];
+    private static final String[] BREEDS = new String[300];
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int perSecond = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        for (int i = 0; i < NAMES.length; i++) {
+            NAMES[i] = "Pet" + Integer.toString(i * 7919, 36);
+        }
+        for (int i = 0; i < BREEDS.length; i++) {
+            BREEDS[i] = "Breed " + Integer.toString(i * 104729, 36);
+        }
+
+        System.out.println("ANIMAL INTAKE DEMO");
+        System.out.println("=".repeat(60));
+
+        // ========================== ONE ANIMAL ==========================
+        System.out.println("\n1. DISCHARGE AND READMIT");
+        AnimalIntake intake = new AnimalIntake();
+        Dog buddy = intake.admitDog(new StringBuilder("Buddy"), 3, new StringBuilder("Golden Retriever"));
+        buddy.play();
+        buddy.play();
+        long oldId = buddy.id;
+        double tiredEnergy = buddy.getEnergy();
+        intake.discharge(buddy);
+        Dog rex = intake.admitDog(new StringBuilder("Rex"), 5, new StringBuilder("Golden Retriever"));
+        System.out.printf("Buddy (id %d, energy %.0f) left; Rex got the same object: %b, id %d, energy %.0f%n",
+                oldId, tiredEnergy, rex == buddy, rex.id, rex.getEnergy());
+        System.out.println("Found by name: " + ShelterRegistry.findByName("Rex").name
+                + ", Buddy still registered: " + (ShelterRegistry.findByName("Buddy") != null));
+        intake.discharge(rex);
+
+        // ========================== CHURN ==========================
+        // Every admission discharges the animal admitted LIVE_ANIMALS admissions earlier. The
+        // names come out of a StringBuilder, like a parser would hand them over
+        System.out.printf("%n2. CHURN: %,d ADMISSIONS PER SECOND FOR %d s, %,d ANIMALS IN THE SHELTER%n",
+                perSecond, seconds, LIVE_ANIMALS);
+        Animal.setEventSink(AnimalEventSink.NONE);
+        churn("Warm-up", null, 1, perSecond, false);
+        churn("Warm-up", new AnimalIntake(), 1, perSecond, false);
+        churn("new Dog()", null, seconds, perSecond, true);
+        AnimalIntake pooled = new AnimalIntake();
+        churn("AnimalIntake", pooled, seconds, perSecond, true);
+        AnimalIntake.Stats stats = pooled.stats();
+        System.out.printf("Pool hit rate %.1f%% (%,d of %,d admissions reused an animal), name table hit rate %.1f%%%n",
+                100 * stats.poolHitRate(), stats.reused(), stats.admitted(), 100 * stats.nameHitRate());
+        Animal.setEventSink(AnimalEventSink.CONSOLE);
+        System.out.println("=".repeat(60));
+    }
+
+    // intake null: new Dog(...) with fresh Strings, and ShelterRegistry.deregister on discharge
+    private static void churn(String label, AnimalIntake intake, int seconds, int perSecond, boolean report)
+            throws InterruptedException {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long collectionsBefore = 0, pauseMillisBefore = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectionsBefore += gc.getCollectionCount();
+            pauseMillisBefore += gc.getCollectionTime();
+        }
+
+        Animal[] live = new Animal[LIVE_ANIMALS];
+        StringBuilder name = new StringBuilder();
+        StringBuilder breed = new StringBuilder();
+        long total = (long) seconds * perSecond;
+        long start = System.nanoTime();
+        long slowest = 0;
+        long batchStart = start;
+        for (long n = 0; n < total; n++) {
+            int slot = (int) (n % LIVE_ANIMALS);
+            if (live[slot] != null) {
+                if (intake != null) {
+                    intake.discharge(live[slot]);
+                } else {
+                    live[slot].leave();
+                }
+            }
+            int pick = (int) (n * 2654435761L >>> 7);
+            name.setLength(0);
+            name.append(NAMES[(pick & 0x7fffffff) % NAMES.length]);
+            int age = (int) (n % 15);
+            switch ((int) (n % 3)) {
+                case 0 -> {
+                    breed.setLength(0);
+                    breed.append(BREEDS[((pick >>> 9) & 0x7fffffff) % BREEDS.length]);
+                    live[slot] = intake != null ? intake.admitDog(name, age, breed)
+                            : new Dog(name.toString(), age, breed.toString());
+                }
+                case 1 -> live[slot] = intake != null ? intake.admitCat(name, age, n % 2 == 0)
+                        : new Cat(name.toString(), age, n % 2 == 0);
+                default -> live[slot] = intake != null ? intake.admitBird(name, age, n % 5 != 0)
+                        : new Bird(name.toString(), age, n % 5 != 0);
+            }
+            // Keep to the rate: check the clock every 1000 admissions and wait if ahead
+            if (n % 1000 == 999) {
+                long now = System.nanoTime();
+                slowest = Math.max(slowest, now - batchStart);
+                long due = start + (n + 1) * 1_000_000_000L / perSecond;
+                if (due > now) {
+                    Thread.sleep((due - now) / 1_000_000, (int) ((due - now) % 1_000_000));
+                }
+                batchStart = System.nanoTime();
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        for (Animal animal : live) {
+            if (intake != null) {
+                intake.discharge(animal);
+            } else {
+                animal.leave();
+            }
+        }
+        if (!report) {
+            return;
+        }
+        long collections = -collectionsBefore, pauseMillis = -pauseMillisBefore;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += gc.getCollectionCount();
+            pauseMillis += gc.getCollectionTime();
+        }
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        System.out.printf("%-13s %,.0f admissions/s, %,.0f MB/s allocated (%.0f bytes each), %d GCs, %d ms in GC, slowest 1000: %.2f ms%n",
+                label, total / elapsed, bytes / elapsed / 1e6, (double) bytes / total, collections, pauseMillis, slowest / 1e6);
+    }
+}
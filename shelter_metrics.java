@@ -0,0 +1,241 @@
+// Shelter Metrics over JMX and as a Periodic Text Dump
+// Builds on ShelterMetrics.java, which counts and times every behavior of every
+// animal when the JVM is started with -Dshelter.metrics=true (and costs nothing otherwise)
+// Compile and run together with oops.java:
+//   javac oops.java shelter_metrics.java && java -Dshelter.metrics=true shelter_metrics [seconds]
+// While it runs, jconsole (or any JMX client) shows the numbers under shelter:type=Metrics
+//
+// Getting the numbers out:
+//   - ShelterMetricsReporting.registerMBean() publishes them as an MXBean
+//   - ShelterMetricsReporting.startDump(period, out) prints the report every period
+//   - install() does both if -Dshelter.metrics.jmx=true / -Dshelter.metrics.dumpSeconds=N
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleBiFunction;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// ========================== REPORTING ==========================
+class ShelterMetricsReporting {
+    static final String OBJECT_NAME = "shelter:type=Metrics";
+
+    // Reads a fresh snapshot for every attribute; keys are "Species.behavior", e.g. "Dog.play"
+    static class Metrics implements shelter_metrics.MetricsMXBean {
+        @Override
+        public Map<String, Long> getCalls() {
+            ShelterMetrics.Snapshot snapshot = ShelterMetrics.snapshot();
+            Map<String, Long> calls = new LinkedHashMap<>();
+            forEachUsed(snapshot, (type, behavior) -> calls.put(key(type, behavior), snapshot.calls(type, behavior)));
+            return calls;
+        }
+
+        @Override
+        public Map<String, Double> getMeanMicros() {
+            return perBehavior((snapshot, key) -> snapshot.meanNanos(key.type, key.behavior) / 1000);
+        }
+
+        @Override
+        public Map<String, Double> getP99Micros() {
+            return perBehavior((snapshot, key) -> snapshot.percentileNanos(key.type, key.behavior, 99) / 1000.0);
+        }
+
+        @Override
+        public Map<String, Long> getEvents() {
+            ShelterMetrics.Snapshot snapshot = ShelterMetrics.snapshot();
+            Map<String, Long> events = new LinkedHashMap<>();
+            for (AnimalEvent event : AnimalEvent.values()) {
+                if (snapshot.events(event) > 0) {
+                    events.put(event.name(), snapshot.events(event));
+                }
+            }
+            return events;
+        }
+
+        @Override
+        public String getReport() {
+            return ShelterMetrics.snapshot().report();
+        }
+
+        private record Key(Class<?> type, AnimalBehavior behavior) {
+        }
+
+        private static Map<String, Double> perBehavior(ToDoubleBiFunction<ShelterMetrics.Snapshot, Key> value) {
+            ShelterMetrics.Snapshot snapshot = ShelterMetrics.snapshot();
+            Map<String, Double> values = new LinkedHashMap<>();
+            forEachUsed(snapshot, (type, behavior) ->
+                    values.put(key(type, behavior), value.applyAsDouble(snapshot, new Key(type, behavior))));
+            return values;
+        }
+    }
+
+    private interface BehaviorVisitor {
+        void visit(Class<?> type, AnimalBehavior behavior);
+    }
+
+    private static void forEachUsed(ShelterMetrics.Snapshot snapshot, BehaviorVisitor visitor) {
+        for (Class<?> type : snapshot.species()) {
+            for (AnimalBehavior behavior : AnimalBehavior.values()) {
+                if (snapshot.calls(type, behavior) > 0) {
+                    visitor.visit(type, behavior);
+                }
+            }
+        }
+    }
+
+    private static String key(Class<?> type, AnimalBehavior behavior) {
+        return type.getSimpleName() + "." + behavior.method;
+    }
+
+    // Safe to call more than once
+    static ObjectName registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(new Metrics(), name);
+        }
+        return name;
+    }
+
+    // Prints the report every period from a daemon thread; shut the executor down to stop
+    static ScheduledExecutorService startDump(Duration period, PrintStream out) {
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "shelter-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = period.toMillis();
+        dumper.scheduleAtFixedRate(() -> out.print("--- shelter metrics ---" + System.lineSeparator()
+                + ShelterMetrics.snapshot().report()), millis, millis, TimeUnit.MILLISECONDS);
+        return dumper;
+    }
+
+    // Startup switches: -Dshelter.metrics.jmx=true and -Dshelter.metrics.dumpSeconds=N
+    static void install() throws JMException {
+        if (!ShelterMetrics.ENABLED) {
+            return;
+        }
+        if (Boolean.getBoolean("shelter.metrics.jmx")) {
+            registerMBean();
+        }
+        long seconds = Long.getLong("shelter.metrics.dumpSeconds", 0);
+        if (seconds > 0) {
+            startDump(Duration.ofSeconds(seconds), System.out);
+        }
+    }
+}
+
+// ========================== DEMO ==========================
+public class shelter_metrics {
+    // What JMX clients see (MXBean interfaces have to be public)
+    public interface MetricsMXBean {
+        Map<String, Long> getCalls();
+        Map<String, Double> getMeanMicros();
+        Map<String, Double> getP99Micros();
+        Map<String, Long> getEvents();
+        String getReport();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+
+        System.out.println("SHELTER METRICS DEMO");
+        System.out.println("=".repeat(60));
+        if (!ShelterMetrics.ENABLED) {
+            System.out.println("Metrics are off; run with -Dshelter.metrics=true to see them");
+            return;
+        }
+
+        // ========================== JMX ==========================
+        System.out.println("\n1. REGISTERED AS AN MXBEAN");
+        ObjectName name = ShelterMetricsReporting.registerMBean();
+        System.out.println("Object name: " + name);
+
+        // ========================== KEEPERS AT WORK ==========================
+        System.out.println("\n2. 4 KEEPERS LOOKING AFTER 30,000 ANIMALS FOR " + seconds + " s (report every second)");
+        Animal.setEventSink(AnimalEventSink.NONE);
+        Animal[] animals = new Animal[30_000];
+        for (int i = 0; i < animals.length; i++) {
+            switch (i % 3) {
+                case 0 -> animals[i] = new Dog("Dog" + i, i % 15, "Beagle");
+                case 1 -> animals[i] = new Cat("Cat" + i, i % 15, i % 2 == 0);
+                default -> animals[i] = new Bird("Bird" + i, i % 15, i % 5 != 0);
+            }
+        }
+        Animal.setConcurrent(true); // The keepers share the animals
+        ScheduledExecutorService dumper = ShelterMetricsReporting.startDump(Duration.ofSeconds(1), System.out);
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] keepers = new Thread[4];
+        for (int k = 0; k < keepers.length; k++) {
+            keepers[k] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    for (int i = 0; i < 1000; i++) {
+                        look(animals[random.nextInt(animals.length)], random.nextInt(4));
+                    }
+                }
+            });
+            keepers[k].start();
+        }
+        for (Thread keeper : keepers) {
+            keeper.join();
+        }
+        dumper.shutdownNow();
+        dumper.awaitTermination(1, TimeUnit.SECONDS);
+        Animal.setConcurrent(false);
+        Animal.setEventSink(AnimalEventSink.CONSOLE);
+
+        // ========================== READING IT BACK ==========================
+        System.out.println("\n3. THE SAME NUMBERS THROUGH JMX");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        System.out.print(server.getAttribute(name, "Report"));
+        ShelterMetrics.Snapshot snapshot = ShelterMetrics.snapshot();
+        long fetches = snapshot.events(AnimalEvent.DOG_FETCH);
+        long refused = snapshot.events(AnimalEvent.DOG_TOO_TIRED_TO_PLAY);
+        long flights = snapshot.events(AnimalEvent.BIRD_FLY_DISTANCE);
+        long cannotFly = snapshot.events(AnimalEvent.BIRD_CANNOT_FLY);
+        long tooTired = snapshot.events(AnimalEvent.BIRD_TOO_TIRED_TO_FLY);
+        System.out.printf("Dogs refused %.1f%% of play() calls (energy 20 or less)%n", 100.0 * refused / Math.max(1, fetches + refused));
+        System.out.printf("fly() failed %.1f%% of the time: %,d cannot fly, %,d too tired%n",
+                100.0 * (cannotFly + tooTired) / Math.max(1, flights + cannotFly + tooTired), cannotFly, tooTired);
+        System.out.println("=".repeat(60));
+    }
+
+    // One thing a keeper does with an animal
+    private static void look(Animal animal, int choice) {
+        switch (animal) {
+            case Dog dog -> {
+                switch (choice) {
+                    case 0 -> dog.play();
+                    case 1 -> dog.move();
+                    case 2 -> dog.makeSound();
+                    default -> dog.eat();
+                }
+            }
+            case Cat cat -> {
+                switch (choice) {
+                    case 0 -> cat.climb();
+                    case 1 -> cat.play();
+                    case 2 -> cat.rest();
+                    default -> cat.checkEnergy();
+                }
+            }
+            case Bird bird -> {
+                switch (choice) {
+                    case 0, 1 -> bird.fly();
+                    case 2 -> bird.move();
+                    default -> bird.sleep();
+                }
+            }
+            default -> animal.makeSound();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+// Concurrent Animal Registration Benchmark in Java
+// Measures ShelterRegistry (from oops.java) when many threads create animals at the same time
+// Compile and run together with oops.java:
+//   javac oops.java shelter_registry.java && java shelter_registry [maxThreads] [millisPerRun]
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class shelter_registry {
+    // The old approach: a plain static int, incremented by hand
+    private static int unsafeCount = 0;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+
+        System.out.println("CONCURRENT REGISTRATION BENCHMARK");
+        System.out.println("=".repeat(60));
+
+        // ========================== LOST UPDATES ==========================
+        System.out.println("\n1. LOST UPDATES WITH A PLAIN static int");
+        int threads = Math.min(maxThreads, 8);
+        int perThread = 1_000_000;
+        long before = ShelterRegistry.totalRegistered();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    new Cat("Counter", 1, true);
+                    unsafeCount++;
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.println("Expected:             " + (long) threads * perThread);
+        System.out.println("static int counted:   " + unsafeCount);
+        System.out.println("ShelterRegistry:      " + (ShelterRegistry.totalRegistered() - before));
+
+        // ========================== THROUGHPUT ==========================
+        System.out.println("\n2. REGISTRATIONS PER SECOND (" + millis + " ms per run)");
+        for (int n = 1; n <= maxThreads; n *= 2) {
+            long total = run(n, millis);
+            System.out.printf("%3d thread(s): %,15d registrations/s%n", n, total * 1000 / millis);
+        }
+
+        System.out.println("\nAnimals per species: " + ShelterRegistry.speciesCounts());
+        System.out.println("=".repeat(60));
+    }
+
+    // Every thread keeps creating dogs, cats and birds until the time is up
+    private static long run(int threads, long millis) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] created = new long[threads * 16]; // Padded so threads do not share cache lines
+        Thread[] workers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                // Each thread reuses a small pool of names, like a real shelter would
+                String[] names = new String[256];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = "Animal-" + id + "-" + i;
+                }
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long count = 0;
+                while (running.get()) {
+                    String name = names[(int) (count & 255)];
+                    switch ((int) (count % 3)) {
+                        case 0 -> new Dog(name, 3, "Beagle");
+                        case 1 -> new Cat(name, 2, true);
+                        default -> new Bird(name, 1, true);
+                    }
+                    count++;
+                }
+                created[id * 16] = count;
+            });
+            workers[t].start();
+        }
+
+        start.countDown();
+        Thread.sleep(millis);
+        running.set(false);
+        long total = 0;
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            total += created[t * 16];
+        }
+        return total;
+    }
+}
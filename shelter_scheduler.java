@@ -0,0 +1,261 @@
+// Parallel Simulation Ticks with Fork/Join in Java
+// Builds on the Animal / Dog / Cat / Bird / Playable classes from oops.java
+// Compile and run together with oops.java:
+//   javac oops.java shelter_store.java shelter_scheduler.java && java shelter_scheduler [animalCount]
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// ========================== TICK ACTIONS ==========================
+// One step of the simulation applies a single action to every animal.
+// PLAY and REST only apply to Playable animals, exactly like makePlayableAnimalsPlay().
+enum TickAction {
+    MAKE_SOUND,
+    MOVE,
+    PLAY,
+    REST;
+
+    void applyTo(Animal animal) {
+        switch (this) {
+            case MAKE_SOUND -> animal.makeSound();
+            case MOVE -> animal.move();
+            case PLAY -> {
+                if (animal instanceof Playable playable) {
+                    playable.play();
+                }
+            }
+            case REST -> {
+                if (animal instanceof Playable playable) {
+                    playable.rest();
+                }
+            }
+        }
+    }
+}
+
+// ========================== THE SCHEDULER ==========================
+// Splits the animal array into fixed-size chunks and lets a ForkJoinPool work-steal them.
+// With the console event sink, the thread working on a chunk sends its events into that
+// chunk's own buffer (Animal.runWithEventSink, rendered exactly as the console would print
+// them), and the buffers are copied out in chunk order, so the combined output is
+// byte-for-byte the same as running the loop on one thread. Threads outside the tick keep
+// printing to the console meanwhile. Any other sink gets the events straight from the pool's
+// threads, in no particular order, and nothing is written to out.
+// Each animal must appear only once in the array - two chunks must never share an animal.
+// A ShelterTick runs one step at a time.
+class ShelterTick {
+    static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    // Chunk buffers are kept between ticks and reset instead of reallocated
+    private ByteArrayOutputStream[] chunkBytes = new ByteArrayOutputStream[0];
+    private PrintStream[] chunkStreams = new PrintStream[0];
+    private AnimalEventSink[] chunkSinks = new AnimalEventSink[0];
+
+    // The step that is running, read by its chunk tasks
+    private Animal[] animals;
+    private TickAction action;
+    private boolean routed;
+
+    public ShelterTick(ForkJoinPool pool) {
+        this(pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ShelterTick(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    // Parallel equivalent of AnimalShelter.makeAllAnimalsSound (including its header line)
+    public void makeAllAnimalsSound(Animal[] animals) {
+        System.out.println("\n--- All animals making sounds ---");
+        step(animals, TickAction.MAKE_SOUND, System.out);
+    }
+
+    // Apply one action to every animal and write the merged output to out
+    public void step(Animal[] animals, TickAction action, OutputStream out) {
+        int chunks = (animals.length + chunkSize - 1) / chunkSize;
+        if (chunks == 0) {
+            return;
+        }
+        prepareBuffers(chunks);
+
+        this.animals = animals;
+        this.action = action;
+        this.routed = Animal.getEventSink() == AnimalEventSink.CONSOLE;
+        try {
+            pool.invoke(new ChunkTask(0, chunks));
+        } finally {
+            this.animals = null;
+            this.action = null;
+        }
+
+        try {
+            for (int i = 0; i < chunks; i++) {
+                chunkBytes[i].writeTo(out);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Reference implementation: the same step as a plain loop on the calling thread
+    public static void stepSerial(Animal[] animals, TickAction action) {
+        for (Animal animal : animals) {
+            action.applyTo(animal);
+        }
+    }
+
+    private void prepareBuffers(int chunks) {
+        if (chunkBytes.length < chunks) {
+            int oldLength = chunkBytes.length;
+            chunkBytes = Arrays.copyOf(chunkBytes, chunks);
+            chunkStreams = Arrays.copyOf(chunkStreams, chunks);
+            chunkSinks = Arrays.copyOf(chunkSinks, chunks);
+            for (int i = oldLength; i < chunks; i++) {
+                chunkBytes[i] = new ByteArrayOutputStream();
+                PrintStream stream = new PrintStream(chunkBytes[i], false);
+                chunkStreams[i] = stream;
+                chunkSinks[i] = (animalId, name, event, text, number) -> stream.println(event.render(name, text, number));
+            }
+        }
+        for (int i = 0; i < chunks; i++) {
+            chunkBytes[i].reset();
+        }
+    }
+
+    private void runChunk(int chunk) {
+        int from = chunk * chunkSize;
+        int to = Math.min(animals.length, from + chunkSize);
+        for (int i = from; i < to; i++) {
+            action.applyTo(animals[i]);
+        }
+    }
+
+    // Recursive task over a range of chunk numbers [fromChunk, toChunk); the step itself
+    // is in ShelterTick's fields (RecursiveAction is Serializable, but tasks are never serialized)
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkTask(int fromChunk, int toChunk) {
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ChunkTask(fromChunk, middle), new ChunkTask(middle, toChunk));
+            } else if (routed) {
+                Animal.runWithEventSink(chunkSinks[fromChunk], () -> runChunk(fromChunk));
+                chunkStreams[fromChunk].flush();
+            } else {
+                runChunk(fromChunk);
+            }
+        }
+    }
+}
+
+// Main class: checks parallel output against the serial loop and prints a scaling report
+public class shelter_scheduler {
+    private static final TickAction[] CYCLE = {TickAction.MOVE, TickAction.PLAY, TickAction.REST, TickAction.MAKE_SOUND};
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("PARALLEL SIMULATION TICK DEMO");
+        System.out.println("=".repeat(60));
+
+        // ========================== SMALL EXAMPLE ==========================
+        System.out.println("\n1. PARALLEL makeAllAnimalsSound (same output as the serial version)");
+        Animal[] few = {new Dog("Buddy", 3, "Golden Retriever"), new Cat("Whiskers", 2, true), new Bird("Tweety", 1, true)};
+        try (ForkJoinPool pool = new ForkJoinPool(cores)) {
+            new ShelterTick(pool, 1).makeAllAnimalsSound(few);
+        }
+
+        // ========================== DETERMINISM CHECK ==========================
+        System.out.println("\n2. DETERMINISM CHECK (" + count + " animals, " + CYCLE.length + " ticks)");
+        Animal[] serialAnimals = population(count);
+        ByteArrayOutputStream serialOutput = new ByteArrayOutputStream();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(serialOutput, false));
+        try {
+            for (TickAction action : CYCLE) {
+                ShelterTick.stepSerial(serialAnimals, action);
+            }
+        } finally {
+            System.out.flush();
+            System.setOut(console);
+        }
+
+        Animal[] parallelAnimals = population(count);
+        ByteArrayOutputStream parallelOutput = new ByteArrayOutputStream();
+        try (ForkJoinPool pool = new ForkJoinPool(cores)) {
+            ShelterTick tick = new ShelterTick(pool);
+            for (TickAction action : CYCLE) {
+                tick.step(parallelAnimals, action, parallelOutput);
+            }
+        }
+        boolean identical = Arrays.equals(serialOutput.toByteArray(), parallelOutput.toByteArray());
+        System.out.println("Output bytes: " + serialOutput.size() + " serial vs " + parallelOutput.size() + " parallel");
+        System.out.println("Identical output: " + identical);
+        serialOutput = null;
+        parallelOutput = null;
+
+        // ========================== SCALING REPORT ==========================
+        System.out.println("\n3. SCALING REPORT (" + count + " animals, ms per tick)");
+        Animal[] animals = population(count);
+        OutputStream discard = OutputStream.nullOutputStream();
+        long oneCoreNanos = 0;
+        for (int threads = 1; threads <= cores; threads = threads < cores ? Math.min(cores, threads * 2) : cores + 1) {
+            try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+                ShelterTick tick = new ShelterTick(pool);
+                for (int warmup = 0; warmup < 8; warmup++) {
+                    tick.step(animals, CYCLE[warmup % CYCLE.length], discard);
+                }
+                int ticks = 20;
+                long start = System.nanoTime();
+                for (int i = 0; i < ticks; i++) {
+                    tick.step(animals, CYCLE[i % CYCLE.length], discard);
+                }
+                long perTick = (System.nanoTime() - start) / ticks;
+                if (threads == 1) {
+                    oneCoreNanos = perTick;
+                }
+                System.out.printf("%3d thread(s): %8.1f ms   speedup %.2fx%n",
+                        threads, perTick / 1_000_000.0, (double) oneCoreNanos / perTick);
+            }
+        }
+        System.out.println("=".repeat(60));
+    }
+
+    // Same mixed population every time, so two runs can be compared line by line
+    private static Animal[] population(int count) {
+        Animal[] animals = new Animal[count];
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0 -> animals[i] = new Dog("Dog" + i, i % 15, "Beagle");
+                case 1 -> animals[i] = new Cat("Cat" + i, i % 15, i % 2 == 0);
+                default -> animals[i] = new Bird("Bird" + i, i % 15, i % 5 != 0);
+            }
+        }
+        return animals;
+    }
+}
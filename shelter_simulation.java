@@ -0,0 +1,429 @@
+// Discrete-Event Simulation of a Shelter in Java
+// Builds on the Animal / Dog / Cat / Bird / Playable classes from oops.java
+// Compile and run together with oops.java:
+//   javac oops.java shelter_simulation.java && java shelter_simulation [animalCount] [days]
+//
+// In oops.java energy only changes when main() calls move(), play() or fly() by hand.
+// Here every animal gets its own routine on a virtual clock (in minutes): each action is an
+// event with a time, the engine always fires the earliest event next, and firing it
+// schedules that animal's next action. When a dog's energy drops below 30 and it becomes
+// hungry, that transition is an event too, and it schedules a meal.
+//
+// Measured (1 CPU, no-op event sink): 10 to 18 million events/s with 1,000 to 10,000
+// animals, but only about 3.9 million with 100,000 and about 3 million with 1,000,000.
+// The goal of 10 million events/s is therefore met only while the animals and the queue
+// fit in the CPU caches, not at scale: with many animals nearly every event touches an
+// animal that has to come from memory.
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+// ========================== EVENT QUEUES ==========================
+// A binary min-heap of events stored in one long[]: the time in the high 32 bits and the
+// event (animal number and action) in the low 32 bits. Comparing two longs then orders by
+// time first, and events at the same minute by animal, so every run is repeatable.
+// No objects are created per event; the array only grows while the queue is filling up.
+// TimingWheel below uses it for events that are too far ahead for the wheel.
+class SimulationQueue {
+    private long[] heap = new long[64];
+    private int size;
+
+    static long key(long time, int event) {
+        return time << 32 | (event & 0xFFFFFFFFL);
+    }
+
+    static long timeOf(long key) {
+        return key >>> 32;
+    }
+
+    static int eventOf(long key) {
+        return (int) key;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // The earliest event; only valid when the queue is not empty
+    public long peek() {
+        return heap[0];
+    }
+
+    public void add(long time, int event) {
+        checkTime(time);
+        if (size + 1 >= heap.length) { // Keeps a free slot for siftDown's sentinel
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        siftUp(size++, key(time, event));
+    }
+
+    public long poll() {
+        long top = heap[0];
+        long last = heap[--size];
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        return top;
+    }
+
+    private void siftUp(int index, long key) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            long parentKey = heap[parent];
+            if (parentKey <= key) {
+                break;
+            }
+            heap[index] = parentKey;
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    // Move the hole at index all the way down along the smaller children, then let key rise
+    // from there. A new event is usually later than most queued ones, so it ends up near
+    // the bottom anyway, and the way down has no hard-to-predict "stop here?" branch.
+    private void siftDown(int index, long key) {
+        heap[size] = Long.MAX_VALUE; // Sentinel: a missing right child is never the smaller one
+        int child;
+        while ((child = 2 * index + 1) < size) {
+            long left = heap[child];
+            long right = heap[child + 1];
+            if (right < left) {
+                child++;
+            }
+            heap[index] = Math.min(left, right);
+            index = child;
+        }
+        siftUp(index, key);
+    }
+
+    private static void checkTime(long time) {
+        if (time < 0 || time > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Time out of range: " + time);
+        }
+    }
+}
+
+// A timing wheel: one list of events per minute for the next WHEEL_SIZE minutes, so adding
+// an event and taking the next one are a few array writes, however many events are queued
+// (a heap needs about log2(size) steps for each). Events further ahead wait in a
+// SimulationQueue and move onto the wheel when their minute comes within reach.
+// Events of the same minute come out in the order they reached the wheel. Events that waited
+// in the SimulationQueue reach it in the queue's order (by event code: the animal number, then
+// the action), not in the order they were added, so the order within a minute is always the
+// same for the same adds, but it is not first in, first out.
+// The lists are linked through int arrays of nodes, and used nodes are recycled, so
+// nothing is allocated per event once the node arrays are large enough.
+class TimingWheel {
+    static final int WHEEL_SIZE = 256; // A power of two
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final int NONE = -1;
+
+    private final int[] heads = new int[WHEEL_SIZE];
+    private final int[] tails = new int[WHEEL_SIZE];
+    private int[] next = new int[64];
+    private int[] events = new int[64];
+    private int freeNodes = NONE;
+    private int usedNodes;
+    private int onWheel;
+    private long cursor; // The earliest minute that can still hold events
+    private final SimulationQueue later = new SimulationQueue();
+
+    TimingWheel() {
+        Arrays.fill(heads, NONE);
+    }
+
+    public int size() {
+        return onWheel + later.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void add(long time, int event) {
+        if (time < cursor) {
+            throw new IllegalArgumentException("Time " + time + " is before " + cursor);
+        }
+        if (time - cursor >= WHEEL_SIZE) {
+            later.add(time, event);
+            return;
+        }
+        int node = newNode();
+        events[node] = event;
+        next[node] = NONE;
+        int slot = (int) time & MASK;
+        if (heads[slot] == NONE) {
+            heads[slot] = node;
+        } else {
+            next[tails[slot]] = node;
+        }
+        tails[slot] = node;
+        onWheel++;
+    }
+
+    // Time and event of the earliest event; only valid when the queue is not empty
+    public long peekTime() {
+        advance();
+        return cursor;
+    }
+
+    public int peekEvent() {
+        advance();
+        return events[heads[(int) cursor & MASK]];
+    }
+
+    // Remove the earliest event
+    public void poll() {
+        advance();
+        int slot = (int) cursor & MASK;
+        int node = heads[slot];
+        heads[slot] = next[node];
+        next[node] = freeNodes;
+        freeNodes = node;
+        onWheel--;
+    }
+
+    // Move the cursor to the first minute with events
+    private void advance() {
+        while (heads[(int) cursor & MASK] == NONE) {
+            if (onWheel == 0) {
+                if (later.isEmpty()) {
+                    throw new IllegalStateException("No events queued");
+                }
+                cursor = SimulationQueue.timeOf(later.peek());
+            } else {
+                cursor++;
+            }
+            // The slot that was just left now stands for the minute cursor + WHEEL_SIZE - 1
+            while (!later.isEmpty() && SimulationQueue.timeOf(later.peek()) - cursor < WHEEL_SIZE) {
+                long key = later.poll();
+                add(SimulationQueue.timeOf(key), SimulationQueue.eventOf(key));
+            }
+        }
+    }
+
+    private int newNode() {
+        int node = freeNodes;
+        if (node != NONE) {
+            freeNodes = next[node];
+            return node;
+        }
+        if (usedNodes == next.length) {
+            next = Arrays.copyOf(next, usedNodes * 2);
+            events = Arrays.copyOf(events, usedNodes * 2);
+        }
+        return usedNodes++;
+    }
+}
+
+// ========================== THE ENGINE ==========================
+// Each animal always has one routine event in the queue; a dog that just became hungry
+// also has a HUNGRY event (fired at the same minute) and then an EAT event.
+// Routines, by species, using only the methods from oops.java:
+//   Dog   PLAY or MOVE while energy > 20, otherwise REST; EAT 30 minutes after getting hungry
+//   Cat   PLAY, MOVE or CLIMB while energy > 30, otherwise REST
+//   Bird  FLY (5..30 meters) or MOVE while energy > 20, otherwise SLEEP (birds never recover)
+// The next routine event comes 15..134 minutes later. Events go to the animals' event sink,
+// so use AnimalEventSink.NONE when simulating millions of them.
+class ShelterSimulation {
+    public static final long MINUTES_PER_DAY = 24 * 60;
+    static final long FEEDING_DELAY = 30;
+
+    // Event codes: animal number << ACTION_BITS | action
+    static final int PLAY = 0;
+    static final int MOVE = 1;
+    static final int REST = 2;
+    static final int EAT = 3;
+    static final int CLIMB = 4;
+    static final int FLY = 5;
+    static final int SLEEP = 6;
+    static final int HUNGRY = 7;
+    static final int ACTION_BITS = 3;
+    static final String[] ACTION_NAMES = {"play", "move", "rest", "eat", "climb", "fly", "sleep", "hungry"};
+
+    private static final byte DOG = 0;
+    private static final byte CAT = 1;
+    private static final byte BIRD = 2;
+
+    private final Animal[] animals;
+    private final byte[] species;
+    private final TimingWheel queue = new TimingWheel();
+    private final long[] actionCounts = new long[ACTION_NAMES.length];
+    private long now;
+    private long eventsFired;
+    private long random; // xorshift state, so picking an action never allocates
+
+    public ShelterSimulation(Animal[] animals, long seed) {
+        if (animals.length >= 1 << (Integer.SIZE - 1 - ACTION_BITS)) {
+            throw new IllegalArgumentException("Too many animals: " + animals.length);
+        }
+        this.animals = animals;
+        this.species = new byte[animals.length];
+        this.random = seed == 0 ? 1 : seed;
+        for (int i = 0; i < animals.length; i++) {
+            species[i] = switch (animals[i]) {
+                case Dog dog -> DOG;
+                case Cat cat -> CAT;
+                case Bird bird -> BIRD;
+                default -> throw new IllegalArgumentException("Unsupported animal: " + animals[i].getClass());
+            };
+            queue.add(nextDelay(), nextRoutine(i));
+        }
+    }
+
+    public long now() {
+        return now;
+    }
+
+    public long eventsFired() {
+        return eventsFired;
+    }
+
+    public long count(int action) {
+        return actionCounts[action];
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    // Fire every event up to and including time end, then move the clock to end
+    public void runUntil(long end) {
+        while (!queue.isEmpty() && queue.peekTime() <= end) {
+            fireNext();
+        }
+        now = Math.max(now, end);
+    }
+
+    // Fire the next count events (the queue is never empty: every animal has a routine)
+    public void run(long count) {
+        for (long i = 0; i < count; i++) {
+            fireNext();
+        }
+    }
+
+    private void fireNext() {
+        now = queue.peekTime();
+        int event = queue.peekEvent();
+        queue.poll();
+        int index = event >>> ACTION_BITS;
+        int action = event & ((1 << ACTION_BITS) - 1);
+        eventsFired++;
+        actionCounts[action]++;
+
+        Animal animal = animals[index];
+        switch (action) {
+            case HUNGRY -> {
+                // A one-off event that only schedules the meal; the routine stays queued
+                queue.add(now + FEEDING_DELAY, index << ACTION_BITS | EAT);
+                return;
+            }
+            case EAT -> {
+                ((Dog) animal).eat();
+                return;
+            }
+            default -> {
+            }
+        }
+
+        boolean wasHungry = species[index] == DOG && ((Dog) animal).isHungry();
+        switch (action) {
+            case PLAY -> ((Playable) animal).play();
+            case MOVE -> animal.move();
+            case REST -> ((Playable) animal).rest();
+            case CLIMB -> ((Cat) animal).climb();
+            case FLY -> ((Bird) animal).fly(5 + nextInt(26));
+            case SLEEP -> animal.sleep();
+            default -> throw new IllegalStateException("Unknown action " + action);
+        }
+        queue.add(now + nextDelay(), nextRoutine(index));
+        if (!wasHungry && species[index] == DOG && ((Dog) animal).isHungry()) {
+            queue.add(now, index << ACTION_BITS | HUNGRY);
+        }
+    }
+
+    private int nextRoutine(int index) {
+        int choice = nextInt(3);
+        int action = switch (species[index]) {
+            case DOG -> ((Dog) animals[index]).getEnergy() > 20 ? (choice == 0 ? MOVE : PLAY) : REST;
+            case CAT -> ((Cat) animals[index]).getEnergy() > 30 ? (choice == 0 ? MOVE : choice == 1 ? PLAY : CLIMB) : REST;
+            default -> ((Bird) animals[index]).getEnergy() > 20 ? (choice == 0 ? MOVE : FLY) : SLEEP;
+        };
+        return index << ACTION_BITS | action;
+    }
+
+    private long nextDelay() {
+        return 15 + nextInt(120);
+    }
+
+    private int nextInt(int bound) {
+        long x = random;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        random = x;
+        return (int) ((x >>> 33) * bound >>> 31);
+    }
+}
+
+// Main class: a short story on the console, then a long run measured in events per second
+public class shelter_simulation {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 365;
+
+        System.out.println("DISCRETE-EVENT SHELTER SIMULATION DEMO");
+        System.out.println("=".repeat(60));
+
+        // ========================== ONE MORNING ==========================
+        System.out.println("\n1. THE ANIMALS FROM oops.java, FIRST 4 HOURS");
+        Dog buddy = new Dog("Buddy", 3, "Golden Retriever");
+        Cat whiskers = new Cat("Whiskers", 2, true);
+        Bird tweety = new Bird("Tweety", 1, true);
+        ShelterSimulation morning = new ShelterSimulation(new Animal[] {buddy, whiskers, tweety}, 42);
+        morning.runUntil(4 * 60);
+        System.out.printf("After %d events: Buddy %.0f%s, Whiskers %.0f, Tweety %.0f energy%n", morning.eventsFired(),
+                buddy.getEnergy(), buddy.isHungry() ? " (hungry)" : "", whiskers.getEnergy(), tweety.getEnergy());
+
+        // ========================== A LONG RUN ==========================
+        System.out.println("\n2. " + count + " ANIMALS FOR " + days + " DAYS (no-op event sink)");
+        Animal.setEventSink(AnimalEventSink.NONE);
+        Animal[] animals = new Animal[count];
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0 -> animals[i] = new Dog("Dog" + i, i % 15, "Beagle");
+                case 1 -> animals[i] = new Cat("Cat" + i, i % 15, i % 2 == 0);
+                default -> animals[i] = new Bird("Bird" + i, i % 15, i % 5 != 0);
+            }
+        }
+        ShelterSimulation simulation = new ShelterSimulation(animals, 42);
+        int warmupDays = Math.min(10, days / 2);
+        simulation.runUntil(warmupDays * ShelterSimulation.MINUTES_PER_DAY); // Warms up the JIT and the queue
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long eventsBefore = simulation.eventsFired();
+        long start = System.nanoTime();
+        simulation.runUntil(days * ShelterSimulation.MINUTES_PER_DAY);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long events = simulation.eventsFired() - eventsBefore;
+        Animal.setEventSink(AnimalEventSink.CONSOLE);
+
+        System.out.printf("Events after the first %d days: %,d in %.2f s = %.1f million events/s%n",
+                warmupDays, events, elapsed / 1e9, events * 1e3 / elapsed);
+        System.out.println("Allocated while running: " + allocated + " bytes");
+        StringBuilder counts = new StringBuilder();
+        for (int action = 0; action < ShelterSimulation.ACTION_NAMES.length; action++) {
+            counts.append(action == 0 ? "" : ", ").append(ShelterSimulation.ACTION_NAMES[action])
+                    .append('=').append(simulation.count(action));
+        }
+        System.out.println("Actions: " + counts);
+        System.out.println("=".repeat(60));
+    }
+}
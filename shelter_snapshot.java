@@ -0,0 +1,629 @@
+// Binary Snapshots of a Shelter in Java
+// Builds on the Animal / Dog / Cat / Bird classes from oops.java
+// Compile and run together with oops.java:
+//   javac oops.java shelter_snapshot.java && java shelter_snapshot [animalCount]
+//
+// A snapshot saves every animal to one file and loads them back later. Java serialization
+// (ObjectOutputStream) could do that too, but it writes class descriptions, field names and
+// object handles along with the data, and reads everything back through reflection. This
+// format only stores what is needed to rebuild each animal:
+//
+//   header   32 bytes: magic "SHLT", format version, kind (FULL or DELTA), string count,
+//            record count, total animal count, body length and a CRC32C of the body
+//   strings  every distinct name and breed once (UTF-8, length first)
+//   records  one per animal: species and flags in one byte, id, age, name index, breed index
+//            (dogs only) and energy; DELTA records also start with the animal's position
+//
+// Names and breeds are "interned": a breed shared by a million dogs is stored once, and the
+// record holds its number in the string table. Everything is little-endian.
+//
+// Every Dog, Cat and Bird marks itself dirty when its state changes (Animal.changed()).
+// write() saves all animals, writeDelta() only the dirty ones, and both clear the marks once
+// the file is complete, so a full snapshot followed by a few deltas replays to the current
+// state. Loaded animals register with ShelterRegistry like any new animal, but keep the id
+// they were saved with, so a change log (shelter_changelog.java) written before a restart
+// still names the same animals; animals created afterwards get ids above every loaded one.
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+// ========================== SNAPSHOTS ==========================
+class ShelterSnapshot {
+    static final int MAGIC = 0x544C4853; // "SHLT" read as a little-endian int
+    static final int FORMAT_VERSION = 2; // 2: records hold the animal's id
+    static final int FULL = 0;
+    static final int DELTA = 1;
+
+    // Header layout
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int KIND_AT = 6;
+    private static final int STRING_COUNT_AT = 8;
+    private static final int RECORD_COUNT_AT = 12;
+    private static final int ANIMAL_COUNT_AT = 16;
+    private static final int CHECKSUM_AT = 20;
+    private static final int BODY_LENGTH_AT = 24;
+    static final int HEADER_SIZE = 32;
+
+    // The first byte of a record: species in bits 0-1, flags above
+    private static final int DOG = 0;
+    private static final int CAT = 1;
+    private static final int BIRD = 2;
+    private static final int SPECIES_MASK = 3;
+    private static final int HUNGRY = 1 << 2;
+    private static final int INDOOR = 1 << 3;
+    private static final int CAN_FLY = 1 << 4;
+    private static final int NO_STRING = -1; // A null name or breed
+    // The smallest record: tag, id, age, name and energy (a cat or a bird in a FULL snapshot)
+    private static final int MIN_RECORD_BYTES = 1 + Long.BYTES + 2 * Integer.BYTES + Double.BYTES;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private ShelterSnapshot() {
+    }
+
+    // Save every animal; returns the size of the file in bytes
+    public static long write(Path file, Animal[] animals) throws IOException {
+        return write(file, animals, FULL, animals.length);
+    }
+
+    // Save only the animals that changed since the last write() or writeDelta(); returns how
+    // many were saved
+    public static int writeDelta(Path file, Animal[] animals) throws IOException {
+        int dirty = 0;
+        for (Animal animal : animals) {
+            if (animal.isDirty()) {
+                dirty++;
+            }
+        }
+        write(file, animals, DELTA, dirty);
+        return dirty;
+    }
+
+    private static long write(Path file, Animal[] animals, int kind, int records) throws IOException {
+        boolean delta = kind == DELTA;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.skipHeader();
+
+            // Pass 1: the string table, each string the first time it is seen. The string
+            // numbers are kept, so pass 2 does not have to look every string up again.
+            StringIntMap interned = new StringIntMap(records, NO_STRING);
+            int[] names = new int[records];
+            int[] breeds = new int[records];
+            int record = 0;
+            for (Animal animal : animals) {
+                if (delta && !animal.isDirty()) {
+                    continue;
+                }
+                names[record] = intern(animal.name, interned, out);
+                breeds[record++] = animal instanceof Dog dog ? intern(dog.getBreed(), interned, out) : NO_STRING;
+            }
+
+            // Pass 2: the records
+            record = 0;
+            for (int position = 0; position < animals.length; position++) {
+                Animal animal = animals[position];
+                if (delta && !animal.isDirty()) {
+                    continue;
+                }
+                if (animal.id < 0) {
+                    throw new IllegalArgumentException(animal.name + " has left the shelter");
+                }
+                out.ensure(Integer.BYTES + 1 + Long.BYTES + 3 * Integer.BYTES + Double.BYTES);
+                ByteBuffer buffer = out.buffer;
+                if (delta) {
+                    buffer.putInt(position);
+                }
+                int name = names[record];
+                int breed = breeds[record++];
+                if (animal instanceof Dog dog) {
+                    buffer.put((byte) (DOG | (dog.isHungry() ? HUNGRY : 0)));
+                    buffer.putLong(animal.id).putInt(animal.age).putInt(name).putInt(breed).putDouble(dog.getEnergy());
+                } else if (animal instanceof Cat cat) {
+                    buffer.put((byte) (CAT | (cat.isIndoor() ? INDOOR : 0)));
+                    buffer.putLong(animal.id).putInt(animal.age).putInt(name).putDouble(cat.getEnergy());
+                } else if (animal instanceof Bird bird) {
+                    buffer.put((byte) (BIRD | (bird.canFly() ? CAN_FLY : 0)));
+                    buffer.putLong(animal.id).putInt(animal.age).putInt(name).putDouble(bird.getEnergy());
+                } else {
+                    throw new IllegalArgumentException("Cannot snapshot " + animal.getClass().getName());
+                }
+            }
+
+            long size = out.finish(kind, interned.size(), records, animals.length);
+            channel.force(false);
+            // Only now is everything saved, so only now may the marks go
+            for (Animal animal : animals) {
+                if (animal.isDirty()) {
+                    animal.clearDirty();
+                }
+            }
+            return size;
+        }
+    }
+
+    // Returns the number of text in the string table, adding it first if it is new
+    private static int intern(String text, StringIntMap interned, Output out) throws IOException {
+        if (text == null) {
+            return NO_STRING;
+        }
+        int number = interned.get(text);
+        if (number == NO_STRING) {
+            number = interned.size();
+            interned.put(text, number);
+            out.putString(text);
+        }
+        return number;
+    }
+
+    // Load a FULL snapshot
+    public static Animal[] read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Input in = new Input(channel, FULL);
+            Animal[] animals = new Animal[in.animalCount];
+            for (int i = 0; i < in.recordCount; i++) {
+                animals[i] = in.readAnimal(null);
+            }
+            in.finish();
+            for (Animal animal : animals) {
+                animal.clearDirty();
+            }
+            return animals;
+        }
+    }
+
+    // Apply a DELTA snapshot to the animals it was written from (or to what read() loaded
+    // from the FULL snapshot before it). Animals added since then are created, so the result
+    // may be a longer array than the one passed in.
+    public static Animal[] applyDelta(Path file, Animal[] animals) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Input in = new Input(channel, DELTA);
+            // Each animal added since has a record
+            if (in.animalCount > (long) animals.length + in.recordCount) {
+                throw new IOException("Corrupt snapshot: " + in.animalCount + " animals, but " + animals.length
+                        + " known and " + in.recordCount + " records");
+            }
+            Animal[] result = in.animalCount > animals.length ? Arrays.copyOf(animals, in.animalCount) : animals;
+            for (int i = 0; i < in.recordCount; i++) {
+                int position = in.readPosition(result.length);
+                Animal animal = in.readAnimal(result[position]);
+                animal.clearDirty();
+                result[position] = animal;
+            }
+            in.finish();
+            return result;
+        }
+    }
+
+    // ========================== WRITING ==========================
+    // A buffer in front of the channel that also keeps the checksum of everything written
+    private static final class Output {
+        final FileChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32C checksum = new CRC32C();
+        long bodyLength;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void skipHeader() throws IOException {
+            channel.position(HEADER_SIZE);
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void putString(String text) throws IOException {
+            // Names and breeds are nearly always ASCII, which can be copied char by char
+            int length = text.length();
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) {
+                ascii = text.charAt(i) < 0x80;
+            }
+            if (ascii) {
+                ensure(5 + length);
+                putLength(length);
+                for (int i = 0; i < length; i++) {
+                    buffer.put((byte) text.charAt(i));
+                }
+            } else {
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                ensure(5 + bytes.length);
+                putLength(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+
+        // 7 bits per byte, high bit set on every byte but the last
+        private void putLength(int length) {
+            while (length >= 0x80) {
+                buffer.put((byte) (length | 0x80));
+                length >>>= 7;
+            }
+            buffer.put((byte) length);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            checksum.update(buffer.array(), 0, buffer.limit());
+            bodyLength += buffer.limit();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        // Write the rest of the body, then go back and fill in the header
+        long finish(int kind, int strings, int records, int animals) throws IOException {
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC_AT, MAGIC)
+                    .putShort(VERSION_AT, (short) FORMAT_VERSION)
+                    .put(KIND_AT, (byte) kind)
+                    .putInt(STRING_COUNT_AT, strings)
+                    .putInt(RECORD_COUNT_AT, records)
+                    .putInt(ANIMAL_COUNT_AT, animals)
+                    .putInt(CHECKSUM_AT, (int) checksum.getValue())
+                    .putLong(BODY_LENGTH_AT, bodyLength);
+            for (long at = 0; header.hasRemaining(); ) {
+                at += channel.write(header, at);
+            }
+            return HEADER_SIZE + bodyLength;
+        }
+    }
+
+    // ========================== READING ==========================
+    // The reverse of Output: reads the header, then the body through a buffer, checking the
+    // body against the checksum in the header
+    private static final class Input {
+        final FileChannel channel;
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32C checksum = new CRC32C();
+        final int recordCount;
+        final int animalCount;
+        final int expectedChecksum;
+        final String[] strings;
+        long unread; // Body bytes still in the file
+
+        Input(FileChannel channel, int kind) throws IOException {
+            this.channel = channel;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new EOFException("Snapshot header is incomplete");
+                }
+            }
+            if (header.getInt(MAGIC_AT) != MAGIC) {
+                throw new IOException("Not a shelter snapshot");
+            }
+            if (header.getShort(VERSION_AT) != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot version: " + header.getShort(VERSION_AT));
+            }
+            if (header.get(KIND_AT) != kind) {
+                throw new IOException(kind == FULL ? "Expected a full snapshot, found a delta" : "Expected a delta snapshot, found a full one");
+            }
+            int stringCount = header.getInt(STRING_COUNT_AT);
+            recordCount = header.getInt(RECORD_COUNT_AT);
+            animalCount = header.getInt(ANIMAL_COUNT_AT);
+            expectedChecksum = header.getInt(CHECKSUM_AT);
+            unread = header.getLong(BODY_LENGTH_AT);
+            // A FULL snapshot has a record for every animal; a DELTA only for the changed ones.
+            // Every string takes at least one byte and every record at least MIN_RECORD_BYTES,
+            // so no count can ask for more than the body holds (the checksum is only known at
+            // the end, and nothing is allocated for a count before it has been checked).
+            if (stringCount < 0 || recordCount < 0 || recordCount > animalCount || unread < 0
+                    || (kind == FULL && recordCount != animalCount)
+                    || stringCount + (long) recordCount * MIN_RECORD_BYTES > unread) {
+                throw new IOException("Corrupt snapshot header");
+            }
+            buffer.limit(0);
+
+            strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                strings[i] = readString();
+            }
+        }
+
+        // Make sure the next bytes are in the buffer
+        void need(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            if (bytes > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN).put(buffer).flip();
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                int start = buffer.position();
+                if (unread == 0) {
+                    throw new EOFException("Snapshot is truncated");
+                }
+                if (buffer.remaining() > unread) {
+                    buffer.limit(start + (int) unread);
+                }
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new EOFException("Snapshot is truncated");
+                }
+                checksum.update(buffer.array(), start, read);
+                unread -= read;
+                buffer.limit(buffer.capacity());
+            }
+            buffer.flip();
+        }
+
+        String readString() throws IOException {
+            int length = 0;
+            for (int shift = 0; ; shift += 7) {
+                need(1);
+                byte b = buffer.get();
+                length |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+                if (shift > 21) {
+                    throw new IOException("Corrupt string length");
+                }
+            }
+            if (length < 0 || length > buffer.remaining() + unread) {
+                throw new IOException("Corrupt snapshot: string of " + length + " bytes");
+            }
+            need(length);
+            String text = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return text;
+        }
+
+        int readPosition(int animals) throws IOException {
+            need(Integer.BYTES);
+            int position = buffer.getInt();
+            if (position < 0 || position >= animals) {
+                throw new IOException("Corrupt snapshot: position " + position + " of " + animals);
+            }
+            return position;
+        }
+
+        // Read one record. With a current animal (applying a delta) that animal is updated,
+        // so everything else holding on to it sees the change too (and a change log plugged
+        // in sees what changed). Otherwise a new animal is created with the saved values.
+        Animal readAnimal(Animal current) throws IOException {
+            need(1);
+            int tag = buffer.get();
+            need(Long.BYTES + ((tag & SPECIES_MASK) == DOG ? 3 : 2) * Integer.BYTES + Double.BYTES);
+            long id = buffer.getLong();
+            int age = buffer.getInt();
+            String name = string(buffer.getInt());
+            if (id < 0) {
+                throw new IOException("Corrupt snapshot: animal id " + id);
+            }
+            if (current != null && (current.id != id || !Objects.equals(current.name, name))) {
+                throw new IOException("Delta does not match these animals: expected " + current.name + " (id " + current.id
+                        + "), found " + name + " (id " + id + ")");
+            }
+            switch (tag & SPECIES_MASK) {
+                case DOG -> {
+                    String breed = string(buffer.getInt());
+                    double energy = buffer.getDouble();
+                    boolean hungry = (tag & HUNGRY) != 0;
+                    if (!(current instanceof Dog dog)) {
+                        return new Dog(id, name, age, breed, energy, hungry);
+                    }
+                    dog.age = age;
+                    dog.restore(breed, energy, hungry);
+                    return dog;
+                }
+                case CAT -> {
+                    double energy = buffer.getDouble();
+                    boolean indoor = (tag & INDOOR) != 0;
+                    if (!(current instanceof Cat cat)) {
+                        return new Cat(id, name, age, indoor, energy);
+                    }
+                    cat.age = age;
+                    cat.restore(indoor, energy);
+                    return cat;
+                }
+                case BIRD -> {
+                    double energy = buffer.getDouble();
+                    boolean canFly = (tag & CAN_FLY) != 0;
+                    if (!(current instanceof Bird bird)) {
+                        return new Bird(id, name, age, canFly, energy);
+                    }
+                    bird.age = age;
+                    bird.restore(canFly, energy);
+                    return bird;
+                }
+                default -> throw new IOException("Corrupt snapshot: unknown species " + (tag & SPECIES_MASK));
+            }
+        }
+
+        private String string(int index) throws IOException {
+            if (index == NO_STRING) {
+                return null;
+            }
+            if (index < 0 || index >= strings.length) {
+                throw new IOException("Corrupt snapshot: string " + index + " of " + strings.length);
+            }
+            return strings[index];
+        }
+
+        // Everything has been read: the checksum must match and nothing may be left over
+        void finish() throws IOException {
+            if (unread != 0 || buffer.hasRemaining()) {
+                throw new IOException("Snapshot has " + (unread + buffer.remaining()) + " unexpected bytes at the end");
+            }
+            if ((int) checksum.getValue() != expectedChecksum) {
+                throw new IOException("Snapshot checksum does not match");
+            }
+        }
+    }
+}
+
+// ========================== JAVA SERIALIZATION ==========================
+// The same fields as a snapshot record, for comparing against ObjectOutputStream.
+// (Animal itself is not Serializable: it registers with ShelterRegistry when it is created.)
+record SerializedAnimal(char species, long id, String name, int age, String breed, double energy, boolean flag)
+        implements Serializable {
+
+    static SerializedAnimal of(Animal animal) {
+        if (animal instanceof Dog dog) {
+            return new SerializedAnimal('D', dog.id, dog.name, dog.age, dog.getBreed(), dog.getEnergy(), dog.isHungry());
+        } else if (animal instanceof Cat cat) {
+            return new SerializedAnimal('C', cat.id, cat.name, cat.age, null, cat.getEnergy(), cat.isIndoor());
+        }
+        Bird bird = (Bird) animal;
+        return new SerializedAnimal('B', bird.id, bird.name, bird.age, null, bird.getEnergy(), bird.canFly());
+    }
+
+    Animal toAnimal() {
+        return switch (species) {
+            case 'D' -> new Dog(id, name, age, breed, energy, flag);
+            case 'C' -> new Cat(id, name, age, flag, energy);
+            default -> new Bird(id, name, age, flag, energy);
+        };
+    }
+
+    static void write(Path file, Animal[] animals) throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(animals.length);
+            for (Animal animal : animals) {
+                out.writeObject(of(animal));
+            }
+        }
+    }
+
+    static Animal[] read(Path file) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            Animal[] animals = new Animal[in.readInt()];
+            for (int i = 0; i < animals.length; i++) {
+                animals[i] = ((SerializedAnimal) in.readObject()).toAnimal();
+            }
+            return animals;
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+}
+
+// ========================== DEMO ==========================
+public class shelter_snapshot {
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Files.createTempDirectory("shelter-snapshot");
+
+        System.out.println("SHELTER SNAPSHOT DEMO");
+        System.out.println("=".repeat(60));
+
+        // ========================== SAVE AND LOAD ==========================
+        System.out.println("\n1. THE ANIMALS FROM oops.java");
+        Dog buddy = new Dog("Buddy", 3, "Golden Retriever");
+        Cat whiskers = new Cat("Whiskers", 2, true);
+        Bird tweety = new Bird("Tweety", 1, true);
+        Animal[] trio = {buddy, whiskers, tweety};
+        Path full = directory.resolve("trio.snapshot");
+        System.out.println("Full snapshot: " + ShelterSnapshot.write(full, trio) + " bytes");
+
+        for (int i = 0; i < 5; i++) {
+            buddy.play(); // 15 energy each time; below 30 he gets hungry
+        }
+        Path delta = directory.resolve("trio.delta");
+        System.out.println("Delta snapshot: " + ShelterSnapshot.writeDelta(delta, trio) + " changed animal(s), "
+                + Files.size(delta) + " bytes");
+
+        Animal[] loaded = ShelterSnapshot.applyDelta(delta, ShelterSnapshot.read(full));
+        Dog loadedBuddy = (Dog) loaded[0];
+        System.out.printf("Loaded: %s the %s, energy %.0f%s; %s, %s%n", loadedBuddy.getName(), loadedBuddy.getBreed(),
+                loadedBuddy.getEnergy(), loadedBuddy.isHungry() ? " (hungry)" : "", describe(loaded[1]), describe(loaded[2]));
+        System.out.println("Ids kept: " + (loaded[0].id == buddy.id && loaded[1].id == whiskers.id && loaded[2].id == tweety.id)
+                + ", a dog admitted now gets a new one: " + (new Dog("Rex", 5, "German Shepherd").id > tweety.id));
+
+        // A flipped byte is caught by the checksum
+        try (FileChannel channel = FileChannel.open(full, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), ShelterSnapshot.HEADER_SIZE + 1);
+        }
+        try {
+            ShelterSnapshot.read(full);
+        } catch (IOException e) {
+            System.out.println("Damaged file: " + e.getMessage());
+        }
+
+        // ========================== MANY ANIMALS ==========================
+        System.out.println("\n2. " + count + " ANIMALS (no-op event sink)");
+        Animal.setEventSink(AnimalEventSink.NONE);
+        Animal[] animals = new Animal[count];
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0 -> animals[i] = new Dog("Dog" + i, i % 15, i % 2 == 0 ? "Beagle" : "Golden Retriever");
+                case 1 -> animals[i] = new Cat("Cat" + i, i % 15, i % 2 == 0);
+                default -> animals[i] = new Bird("Bird" + i, i % 15, i % 5 != 0);
+            }
+        }
+
+        Path snapshot = directory.resolve("shelter.snapshot");
+        long start = System.nanoTime();
+        long size = ShelterSnapshot.write(snapshot, animals);
+        long written = System.nanoTime() - start;
+        start = System.nanoTime();
+        Animal[] reloaded = ShelterSnapshot.read(snapshot);
+        long read = System.nanoTime() - start;
+        System.out.printf("Snapshot:           %,d bytes, written in %.2f s, loaded in %.2f s%n",
+                size, written / 1e9, read / 1e9);
+        reloaded = null;
+
+        // One animal in a hundred does something, then only those are saved
+        for (int i = 0; i < count; i += 100) {
+            animals[i].move();
+        }
+        Path changes = directory.resolve("shelter.delta");
+        start = System.nanoTime();
+        int changed = ShelterSnapshot.writeDelta(changes, animals);
+        long deltaTime = System.nanoTime() - start;
+        System.out.printf("Delta:              %,d animals, %,d bytes, written in %.3f s%n",
+                changed, Files.size(changes), deltaTime / 1e9);
+
+        Path serialized = directory.resolve("shelter.ser");
+        start = System.nanoTime();
+        SerializedAnimal.write(serialized, animals);
+        written = System.nanoTime() - start;
+        start = System.nanoTime();
+        reloaded = SerializedAnimal.read(serialized);
+        read = System.nanoTime() - start;
+        System.out.printf("Java serialization: %,d bytes, written in %.2f s, loaded in %.2f s%n",
+                Files.size(serialized), written / 1e9, read / 1e9);
+        Animal.setEventSink(AnimalEventSink.CONSOLE);
+
+        for (Path file : new Path[] {full, delta, snapshot, changes, serialized}) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+        System.out.println("=".repeat(60));
+    }
+
+    private static String describe(Animal animal) {
+        if (animal instanceof Cat cat) {
+            return String.format("%s %.0f energy%s", cat.name, cat.getEnergy(), cat.isIndoor() ? " (indoor)" : "");
+        }
+        Bird bird = (Bird) animal;
+        return String.format("%s %.0f energy%s", bird.name, bird.getEnergy(), bird.canFly() ? " (can fly)" : "");
+    }
+}
@@ -0,0 +1,609 @@
+// Data-Oriented Animal Storage (Struct-of-Arrays) in Java
+// Builds on the Animal / Dog / Cat / Bird / Playable classes from oops.java
+// Compile and run together with oops.java:
+//   javac oops.java shelter_store.java && java shelter_store [animalCount]
+
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// ========================== COLUMN STORAGE ==========================
+// Instead of one heap object per animal, every field lives in its own primitive array.
+// Animal number i of a species is simply "row i" across all of that species' columns.
+abstract class AnimalColumns {
+    private static final int INITIAL_CAPACITY = 16;
+
+    String[] names = new String[INITIAL_CAPACITY];
+    int[] ages = new int[INITIAL_CAPACITY];
+    double[] energy = new double[INITIAL_CAPACITY];
+    int count;
+
+    // Reserve a new row and fill the columns shared by every species
+    int addRow(String name, int age, double initialEnergy) {
+        if (count == names.length) {
+            grow(Math.max(INITIAL_CAPACITY, count * 2));
+        }
+        int row = count++;
+        names[row] = name;
+        ages[row] = age;
+        energy[row] = initialEnergy;
+        return row;
+    }
+
+    // Subclasses extend this to grow their own species-specific columns too
+    void grow(int newCapacity) {
+        names = Arrays.copyOf(names, newCapacity);
+        ages = Arrays.copyOf(ages, newCapacity);
+        energy = Arrays.copyOf(energy, newCapacity);
+    }
+}
+
+class DogColumns extends AnimalColumns {
+    String[] breeds = new String[names.length];
+    boolean[] hungry = new boolean[names.length];
+
+    int add(String name, int age, String breed) {
+        int row = addRow(name, age, Playable.MAX_ENERGY);
+        breeds[row] = breed;
+        hungry[row] = false;
+        return row;
+    }
+
+    @Override
+    void grow(int newCapacity) {
+        super.grow(newCapacity);
+        breeds = Arrays.copyOf(breeds, newCapacity);
+        hungry = Arrays.copyOf(hungry, newCapacity);
+    }
+
+    // Bulk play(), rest() and checkEnergy() for every dog: Dog's rules, one pass over the
+    // energy and hunger columns, and one EnergySummary instead of an event per dog
+    EnergySummary playAll() {
+        double[] energy = this.energy;
+        boolean[] hungry = this.hungry;
+        int tooTired = 0, becameHungry = 0, hungryAfter = 0;
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            double left = energy[i];
+            if (left > Dog.TOO_TIRED_TO_PLAY) {
+                left = Math.max(0, left - Dog.PLAY_COST);
+                energy[i] = left;
+                if (left < Dog.HUNGRY_BELOW && !hungry[i]) {
+                    hungry[i] = true;
+                    becameHungry++;
+                }
+            } else {
+                tooTired++;
+            }
+            if (hungry[i]) {
+                hungryAfter++;
+            }
+            total += left;
+        }
+        return new EnergySummary(count, tooTired, becameHungry, hungryAfter, total);
+    }
+
+    EnergySummary restAll() {
+        double[] energy = this.energy;
+        int tooTired = 0;
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            double rested = Math.min(Playable.MAX_ENERGY, energy[i] + Dog.REST_GAIN);
+            energy[i] = rested;
+            if (rested <= Dog.TOO_TIRED_TO_PLAY) {
+                tooTired++;
+            }
+            total += rested;
+        }
+        Arrays.fill(hungry, 0, count, false);
+        return new EnergySummary(count, tooTired, 0, 0, total);
+    }
+
+    EnergySummary checkEnergyAll() {
+        int tooTired = 0, hungryNow = 0;
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            if (energy[i] <= Dog.TOO_TIRED_TO_PLAY) {
+                tooTired++;
+            }
+            if (hungry[i]) {
+                hungryNow++;
+            }
+            total += energy[i];
+        }
+        return new EnergySummary(count, tooTired, 0, hungryNow, total);
+    }
+}
+
+class CatColumns extends AnimalColumns {
+    boolean[] indoor = new boolean[names.length];
+
+    int add(String name, int age, boolean isIndoor) {
+        int row = addRow(name, age, Playable.MAX_ENERGY);
+        indoor[row] = isIndoor;
+        return row;
+    }
+
+    @Override
+    void grow(int newCapacity) {
+        super.grow(newCapacity);
+        indoor = Arrays.copyOf(indoor, newCapacity);
+    }
+
+    // Bulk play(), rest() and checkEnergy() for every cat (Cat's rules: cats always play and
+    // never get hungry)
+    EnergySummary playAll() {
+        double[] energy = this.energy;
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            energy[i] -= Cat.PLAY_COST;
+            total += energy[i];
+        }
+        return new EnergySummary(count, 0, 0, 0, total);
+    }
+
+    EnergySummary restAll() {
+        double[] energy = this.energy;
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            energy[i] = Math.min(Playable.MAX_ENERGY, energy[i] + Cat.REST_GAIN);
+            total += energy[i];
+        }
+        return new EnergySummary(count, 0, 0, 0, total);
+    }
+
+    EnergySummary checkEnergyAll() {
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += energy[i];
+        }
+        return new EnergySummary(count, 0, 0, 0, total);
+    }
+}
+
+// What a bulk play / rest / checkEnergy found, counted over all the animals of a species:
+//   tooTired     - playAll: how many refused to play; restAll / checkEnergyAll: how many would
+//                  refuse now (dogs with Dog.TOO_TIRED_TO_PLAY energy or less; cats always play)
+//   becameHungry - how many were not hungry before and are now (only dogs get hungry)
+//   hungry       - how many are hungry afterwards
+//   totalEnergy  - the energy of all of them afterwards
+record EnergySummary(int animals, int tooTired, int becameHungry, int hungry, double totalEnergy) {
+    double meanEnergy() {
+        return animals == 0 ? 0 : totalEnergy / animals;
+    }
+}
+
+class BirdColumns extends AnimalColumns {
+    static final int BIRD_MAX_ENERGY = 100; // Same value as Bird's private constant
+
+    boolean[] canFly = new boolean[names.length];
+
+    int add(String name, int age, boolean flies) {
+        int row = addRow(name, age, BIRD_MAX_ENERGY);
+        canFly[row] = flies;
+        return row;
+    }
+
+    @Override
+    void grow(int newCapacity) {
+        super.grow(newCapacity);
+        canFly = Arrays.copyOf(canFly, newCapacity);
+    }
+}
+
+// ========================== FLYWEIGHT VIEWS ==========================
+// A view is a small Animal object that points at one row of the columns.
+// The same view can be moved from row to row, so walking millions of animals
+// needs only one object per species instead of one object per animal.
+class DogView extends Animal implements Playable {
+    private final DogColumns columns;
+    private int row;
+
+    DogView(DogColumns columns, int row) {
+        super();
+        this.columns = columns;
+        moveTo(row);
+    }
+
+    // Point this view at another dog (this is what makes it a flyweight)
+    DogView moveTo(int row) {
+        this.row = row;
+        this.name = columns.names[row];
+        this.age = columns.ages[row];
+        return this;
+    }
+
+    public String getBreed() {
+        return columns.breeds[row];
+    }
+
+    public double getEnergy() {
+        return columns.energy[row];
+    }
+
+    public boolean isHungry() {
+        return columns.hungry[row];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setBreed(String breed) {
+        if (breed != null && !breed.trim().isEmpty()) {
+            columns.breeds[row] = breed;
+        }
+    }
+
+    public void setHungry(boolean hungry) {
+        columns.hungry[row] = hungry;
+    }
+
+    private void reduceEnergy(double amount) {
+        double energy = Math.max(0, columns.energy[row] - amount);
+        columns.energy[row] = energy;
+        if (energy < Dog.HUNGRY_BELOW) {
+            columns.hungry[row] = true;
+        }
+    }
+
+    @Override
+    public void makeSound() {
+        emit(AnimalEvent.DOG_SOUND, getBreed());
+    }
+
+    @Override
+    public void move() {
+        emit(AnimalEvent.DOG_RUN);
+        reduceEnergy(10);
+    }
+
+    @Override
+    public void play() {
+        if (columns.energy[row] > Dog.TOO_TIRED_TO_PLAY) {
+            emit(AnimalEvent.DOG_FETCH);
+            reduceEnergy(Dog.PLAY_COST);
+        } else {
+            emit(AnimalEvent.DOG_TOO_TIRED_TO_PLAY);
+        }
+    }
+
+    @Override
+    public void rest() {
+        columns.energy[row] = Math.min(MAX_ENERGY, columns.energy[row] + Dog.REST_GAIN);
+        columns.hungry[row] = false;
+        emit(AnimalEvent.DOG_REST);
+    }
+
+    public void eat() {
+        eat("dog food");
+    }
+
+    public void eat(String food) {
+        emit(AnimalEvent.DOG_EAT, food);
+        columns.energy[row] = Math.min(MAX_ENERGY, columns.energy[row] + 20);
+        columns.hungry[row] = false;
+    }
+}
+
+class CatView extends Animal implements Playable {
+    private final CatColumns columns;
+    private int row;
+
+    CatView(CatColumns columns, int row) {
+        super();
+        this.columns = columns;
+        moveTo(row);
+    }
+
+    CatView moveTo(int row) {
+        this.row = row;
+        this.name = columns.names[row];
+        this.age = columns.ages[row];
+        return this;
+    }
+
+    public boolean isIndoor() {
+        return columns.indoor[row];
+    }
+
+    public void setIndoor(boolean indoor) {
+        columns.indoor[row] = indoor;
+    }
+
+    public double getEnergy() {
+        return columns.energy[row];
+    }
+
+    @Override
+    public void makeSound() {
+        emit(AnimalEvent.CAT_SOUND);
+    }
+
+    @Override
+    public void move() {
+        if (columns.indoor[row]) {
+            emit(AnimalEvent.CAT_WALK_INDOORS);
+        } else {
+            emit(AnimalEvent.CAT_PROWL);
+        }
+        columns.energy[row] -= 8;
+    }
+
+    @Override
+    public void play() {
+        emit(AnimalEvent.CAT_PLAY);
+        columns.energy[row] -= Cat.PLAY_COST;
+    }
+
+    @Override
+    public void rest() {
+        columns.energy[row] = Math.min(MAX_ENERGY, columns.energy[row] + Cat.REST_GAIN);
+        emit(AnimalEvent.CAT_NAP);
+    }
+
+    public void climb() {
+        if (columns.energy[row] > 15) {
+            emit(AnimalEvent.CAT_CLIMB);
+            columns.energy[row] -= 15;
+        } else {
+            emit(AnimalEvent.CAT_TOO_TIRED_TO_CLIMB);
+        }
+    }
+}
+
+class BirdView extends Animal {
+    private final BirdColumns columns;
+    private int row;
+
+    BirdView(BirdColumns columns, int row) {
+        super();
+        this.columns = columns;
+        moveTo(row);
+    }
+
+    BirdView moveTo(int row) {
+        this.row = row;
+        this.name = columns.names[row];
+        this.age = columns.ages[row];
+        return this;
+    }
+
+    @Override
+    public void makeSound() {
+        emit(AnimalEvent.BIRD_SOUND);
+    }
+
+    @Override
+    public void move() {
+        if (columns.canFly[row]) {
+            emit(AnimalEvent.BIRD_FLY_AROUND);
+        } else {
+            emit(AnimalEvent.BIRD_HOP);
+        }
+        columns.energy[row] -= 10;
+    }
+
+    public void fly() {
+        fly(10);
+    }
+
+    public void fly(int distance) {
+        if (columns.canFly[row] && columns.energy[row] > 20) {
+            emit(AnimalEvent.BIRD_FLY_DISTANCE, distance);
+            columns.energy[row] -= (distance * 0.5);
+        } else if (!columns.canFly[row]) {
+            emit(AnimalEvent.BIRD_CANNOT_FLY);
+        } else {
+            emit(AnimalEvent.BIRD_TOO_TIRED_TO_FLY);
+        }
+    }
+
+    public boolean canFly() {
+        return columns.canFly[row];
+    }
+
+    public double getEnergy() {
+        return columns.energy[row];
+    }
+}
+
+// ========================== THE STORE ==========================
+// Columnar population of dogs, cats and birds with bulk operations.
+// Bulk operations apply the same energy rules as the per-object methods in oops.java,
+// but skip the console output so they compile down to tight loops over double[].
+class ShelterStore {
+    final DogColumns dogs = new DogColumns();
+    final CatColumns cats = new CatColumns();
+    final BirdColumns birds = new BirdColumns();
+
+    public int addDog(String name, int age, String breed) {
+        return dogs.add(name, age, breed);
+    }
+
+    public int addCat(String name, int age, boolean isIndoor) {
+        return cats.add(name, age, isIndoor);
+    }
+
+    public int addBird(String name, int age, boolean canFly) {
+        return birds.add(name, age, canFly);
+    }
+
+    public int size() {
+        return dogs.count + cats.count + birds.count;
+    }
+
+    // Detached views - one object per call, safe to keep around
+    public DogView dog(int row) {
+        return new DogView(dogs, row);
+    }
+
+    public CatView cat(int row) {
+        return new CatView(cats, row);
+    }
+
+    public BirdView bird(int row) {
+        return new BirdView(birds, row);
+    }
+
+    // Visit every animal through a single reused view per species.
+    // The view passed to the action is only valid until the action returns.
+    public void forEachAnimal(Consumer<? super Animal> action) {
+        if (dogs.count > 0) {
+            DogView view = new DogView(dogs, 0);
+            for (int i = 0; i < dogs.count; i++) {
+                action.accept(view.moveTo(i));
+            }
+        }
+        if (cats.count > 0) {
+            CatView view = new CatView(cats, 0);
+            for (int i = 0; i < cats.count; i++) {
+                action.accept(view.moveTo(i));
+            }
+        }
+        if (birds.count > 0) {
+            BirdView view = new BirdView(birds, 0);
+            for (int i = 0; i < birds.count; i++) {
+                action.accept(view.moveTo(i));
+            }
+        }
+    }
+
+    // Arrays of detached views for existing callers such as AnimalShelter.makeAllAnimalsSound
+    public Animal[] toAnimalArray() {
+        Animal[] result = new Animal[size()];
+        int next = 0;
+        for (int i = 0; i < dogs.count; i++) {
+            result[next++] = dog(i);
+        }
+        for (int i = 0; i < cats.count; i++) {
+            result[next++] = cat(i);
+        }
+        for (int i = 0; i < birds.count; i++) {
+            result[next++] = bird(i);
+        }
+        return result;
+    }
+
+    public Playable[] toPlayableArray() {
+        Playable[] result = new Playable[dogs.count + cats.count];
+        int next = 0;
+        for (int i = 0; i < dogs.count; i++) {
+            result[next++] = dog(i);
+        }
+        for (int i = 0; i < cats.count; i++) {
+            result[next++] = cat(i);
+        }
+        return result;
+    }
+
+    // Bulk move(): same energy rules as Dog.move(), Cat.move() and Bird.move()
+    public void moveAll() {
+        double[] dogEnergy = dogs.energy;
+        boolean[] dogHungry = dogs.hungry;
+        for (int i = 0; i < dogs.count; i++) {
+            double energy = Math.max(0, dogEnergy[i] - 10);
+            dogEnergy[i] = energy;
+            dogHungry[i] |= energy < Dog.HUNGRY_BELOW;
+        }
+        double[] catEnergy = cats.energy;
+        for (int i = 0; i < cats.count; i++) {
+            catEnergy[i] -= 8;
+        }
+        double[] birdEnergy = birds.energy;
+        for (int i = 0; i < birds.count; i++) {
+            birdEnergy[i] -= 10;
+        }
+    }
+
+    // Bulk rest(): only Playable animals (dogs and cats) can rest
+    public void restAll() {
+        dogs.restAll();
+        cats.restAll();
+    }
+}
+
+// Main class: small demo plus a memory comparison against one object per animal
+public class shelter_store {
+    private static final String[] NAMES = {"Buddy", "Whiskers", "Tweety", "Max", "Luna", "Charlie"};
+    private static final String[] BREEDS = {"Golden Retriever", "Labrador", "Beagle", "Poodle"};
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println("STRUCT-OF-ARRAYS ANIMAL STORAGE DEMO");
+        System.out.println("=".repeat(60));
+
+        // ========================== SAME API AS oops.java ==========================
+        System.out.println("\n1. VIEWS BEHAVE LIKE THE ORIGINAL CLASSES");
+        ShelterStore small = new ShelterStore();
+        small.addDog("Buddy", 3, "Golden Retriever");
+        small.addCat("Whiskers", 2, true);
+        small.addBird("Tweety", 1, true);
+
+        AnimalShelter.makeAllAnimalsSound(small.toAnimalArray());
+        AnimalShelter.makePlayableAnimalsPlay(small.toPlayableArray());
+
+        small.moveAll();
+        small.restAll();
+        System.out.println("\nDog energy after bulk move + rest: " + small.dog(0).getEnergy());
+        System.out.println("Cat energy after bulk move + rest: " + small.cat(0).getEnergy());
+        System.out.println("Bird energy after bulk move: " + small.bird(0).getEnergy());
+
+        // ========================== MEMORY COMPARISON ==========================
+        System.out.println("\n2. MEMORY COMPARISON FOR " + count + " ANIMALS");
+
+        long baseline = usedMemory();
+        Animal[] objects = new Animal[count];
+        for (int i = 0; i < count; i++) {
+            String name = NAMES[i % NAMES.length];
+            switch (i % 3) {
+                case 0 -> objects[i] = new Dog(name, i % 15, BREEDS[i % BREEDS.length]);
+                case 1 -> objects[i] = new Cat(name, i % 15, i % 2 == 0);
+                default -> objects[i] = new Bird(name, i % 15, i % 5 != 0);
+            }
+        }
+        long objectBytes = usedMemory() - baseline;
+        Reference.reachabilityFence(objects); // Keep the objects alive until they have been measured
+        System.out.println("Object per animal:  " + objectBytes / count + " bytes/animal (" + objectBytes / (1024 * 1024) + " MB)");
+        objects = null;
+
+        baseline = usedMemory();
+        ShelterStore store = new ShelterStore();
+        for (int i = 0; i < count; i++) {
+            String name = NAMES[i % NAMES.length];
+            switch (i % 3) {
+                case 0 -> store.addDog(name, i % 15, BREEDS[i % BREEDS.length]);
+                case 1 -> store.addCat(name, i % 15, i % 2 == 0);
+                default -> store.addBird(name, i % 15, i % 5 != 0);
+            }
+        }
+        long columnBytes = usedMemory() - baseline;
+        System.out.println("Struct of arrays:   " + columnBytes / count + " bytes/animal (" + columnBytes / (1024 * 1024) + " MB)");
+        System.out.println("(column sizes include up to 2x spare capacity from array growth)");
+
+        // ========================== BULK OPERATIONS ==========================
+        System.out.println("\n3. BULK OPERATIONS");
+        long start = System.nanoTime();
+        for (int tick = 0; tick < 10; tick++) {
+            store.moveAll();
+            store.restAll();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println("10 x (moveAll + restAll) over " + store.size() + " animals: " + elapsed / 1_000_000 + " ms");
+        System.out.println("=".repeat(60));
+    }
+
+    // Approximate live heap size after asking the JVM to collect garbage
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}